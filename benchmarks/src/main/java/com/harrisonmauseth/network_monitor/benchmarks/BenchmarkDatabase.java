@@ -0,0 +1,77 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates a scratch database for the benchmarks that need PostgreSQL, using the same environment variables as the
+ * server's DAO tests. The schema is loaded from ../server/database/NetworkConnectivityLogs.sql, or from the file
+ * named by the bench.schema system property.
+ */
+public final class BenchmarkDatabase {
+    private static final String DB_NAME = "NetworkConnectivityLogs-bench";
+    private static final String DB_HOST = env("POSTGRES_HOST", "localhost");
+    private static final String DB_PORT = env("POSTGRES_PORT", "5432");
+    private static final String DB_USERNAME = env("POSTGRES_USER", "postgres");
+    private static final String DB_PASSWORD = env("POSTGRES_TOKEN", "postgres");
+    private static final String ADMIN_URL = env("POSTGRES_JDBC_ADMIN_URL", "jdbc:postgresql://" + DB_HOST + ":" + DB_PORT + "/postgres");
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Drop and recreate the benchmark database with an empty schema.
+     */
+    public static DataSource create() throws SQLException {
+        createDatabase();
+        return new SingleConnectionDataSource(url(), DB_USERNAME, DB_PASSWORD, true);
+    }
+
+    /**
+     * Drop and recreate the benchmark database like {@link #create()}, and connect to it through a pool of
+     * poolSize connections, for benchmarks that run on more than one thread.
+     */
+    public static HikariDataSource createPooled(int poolSize) throws SQLException {
+        createDatabase();
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url());
+        pool.setUsername(DB_USERNAME);
+        pool.setPassword(DB_PASSWORD);
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMinimumIdle(poolSize);
+        return pool;
+    }
+
+    private static void createDatabase() throws SQLException {
+        SingleConnectionDataSource admin = new SingleConnectionDataSource(ADMIN_URL, DB_USERNAME, DB_PASSWORD, true);
+        try {
+            JdbcTemplate adminJdbcTemplate = new JdbcTemplate(admin);
+            adminJdbcTemplate.update("DROP DATABASE IF EXISTS \"" + DB_NAME + "\";");
+            adminJdbcTemplate.update("CREATE DATABASE \"" + DB_NAME + "\";");
+        } finally {
+            admin.destroy();
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url(), DB_USERNAME, DB_PASSWORD);
+        try (Connection connection = dataSource.getConnection()) {
+            String schema = System.getProperty("bench.schema", "../server/database/NetworkConnectivityLogs.sql");
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource(schema));
+        }
+    }
+
+    private static String url() {
+        return String.format("jdbc:postgresql://%s:%s/%s", DB_HOST, DB_PORT, DB_NAME);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,75 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.harrisonmauseth.network_monitor.controller.EventController;
+import com.harrisonmauseth.network_monitor.service.EventBroadcaster;
+import com.harrisonmauseth.network_monitor.service.EventIngestQueue;
+import com.harrisonmauseth.network_monitor.service.EventsVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * End-to-end dispatch through Spring MVC into {@link EventController}: request mapping, argument binding, JSON
+ * conversion and response writing, with an in-memory DAO so the database does not dominate the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerDispatchBenchmark {
+    private static final int DATASET_SIZE = 10_000;
+    private static final int EVENTS_PER_POST = 20;
+    private MockMvc mockMvc;
+    private byte[] postBody;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        InMemoryEventDao dao = new InMemoryEventDao(EventDataset.generate(DATASET_SIZE, EventDataset.DEFAULT_SEED));
+        EventController controller = new EventController(dao, mapper, event -> {
+        }, new EventsVersion(), new EventBroadcaster(mapper, 1, 1, Duration.ofMinutes(1), 1), new StaticListableBeanFactory().getBeanProvider(EventIngestQueue.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(mapper))
+                .build();
+        postBody = mapper.writeValueAsBytes(EventDataset.newEvents(EVENTS_PER_POST, EventDataset.DEFAULT_SEED));
+    }
+
+    @Benchmark
+    public MvcResult getEventsLimited() throws Exception {
+        return mockMvc.perform(get("/api/events").param("limit", "50")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getDisconnectedEvents() throws Exception {
+        return mockMvc.perform(get("/api/events/failed").param("limit", "50")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult postMultipleEvents() throws Exception {
+        return mockMvc.perform(post("/api/events/multiple").contentType(MediaType.APPLICATION_JSON).content(postBody)).andReturn();
+    }
+}
@@ -0,0 +1,72 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same events for the same seed, so every benchmark run (and every machine) measures identical data.
+ * Events look like what a monitor logs: a heartbeat every 30 seconds, with occasional Wi-Fi and internet outages
+ * that last for a few heartbeats.
+ */
+public final class EventDataset {
+    public static final long DEFAULT_SEED = 20240101L;
+    public static final LocalDateTime START_TIME = LocalDateTime.parse("2024-01-01T00:00:00");
+    private static final double WIFI_DROP_CHANCE = 0.002;
+    private static final double INTERNET_DROP_CHANCE = 0.005;
+    private static final double RECOVERY_CHANCE = 0.2;
+
+    private EventDataset() {
+    }
+
+    /**
+     * @param count the number of events to generate
+     * @param seed  the seed of the generator
+     * @return events in ascending time order, numbered from eventId 1
+     */
+    public static List<Event> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Event> events = new ArrayList<>(count);
+        boolean wifi = true;
+        boolean internet = true;
+        for (int i = 0; i < count; i++) {
+            if (!wifi) {
+                wifi = random.nextDouble() < RECOVERY_CHANCE;
+                internet = wifi && random.nextBoolean();
+            } else if (!internet) {
+                internet = random.nextDouble() < RECOVERY_CHANCE;
+            } else if (random.nextDouble() < WIFI_DROP_CHANCE) {
+                wifi = false;
+                internet = false;
+            } else if (random.nextDouble() < INTERNET_DROP_CHANCE) {
+                internet = false;
+            }
+            events.add(new Event(i + 1, Event.DEFAULT_DEVICE_ID, START_TIME.plusSeconds(30L * i), wifi, internet, message(wifi, internet, random)));
+        }
+        return events;
+    }
+
+    /**
+     * @return copies of the generated events without ids, ready to be inserted
+     */
+    public static Event[] newEvents(int count, long seed) {
+        return generate(count, seed).stream()
+                .map(event -> new Event(0, event.getDeviceId(), event.getEventTime(), event.isConnectedToWifi(), event.isConnectedToInternet(), event.getMessage()))
+                .toArray(Event[]::new);
+    }
+
+    private static String message(boolean wifi, boolean internet, Random random) {
+        int minutes = random.nextInt(60);
+        int seconds = random.nextInt(60);
+        if (!wifi) {
+            return "Heartbeat: WiFi has been down for " + minutes + " minutes and " + seconds + " seconds";
+        }
+        if (!internet) {
+            return "Heartbeat: WiFi is up, but no internet connection. Last ping to the internet was " + minutes + " minutes and " + seconds + " seconds ago.";
+        }
+        return "Heartbeat: WiFi is up. Last ping to the internet was " + minutes + " minutes and " + seconds + " seconds ago.";
+    }
+}
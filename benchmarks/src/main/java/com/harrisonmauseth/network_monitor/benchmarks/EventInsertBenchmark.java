@@ -0,0 +1,63 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.harrisonmauseth.network_monitor.dao.JdbcEventDao;
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares logging a monitor flush one event at a time with createEvent against a single createMultipleEvents call.
+ * Scores are per flush of batchSize events. Needs a PostgreSQL server, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventInsertBenchmark {
+    @Param({"1", "20", "500"})
+    public int batchSize;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcEventDao dao;
+    private Event[] batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        jdbcTemplate = new JdbcTemplate(BenchmarkDatabase.create());
+        dao = new JdbcEventDao(jdbcTemplate);
+        batch = EventDataset.newEvents(batchSize, EventDataset.DEFAULT_SEED);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        jdbcTemplate.update("TRUNCATE events;");
+    }
+
+    @Benchmark
+    public void createEvent(Blackhole blackhole) {
+        for (Event event : batch) {
+            blackhole.consume(dao.createEvent(event));
+        }
+    }
+
+    @Benchmark
+    public void createMultipleEvents(Blackhole blackhole) {
+        blackhole.consume(dao.createMultipleEvents(batch));
+    }
+}
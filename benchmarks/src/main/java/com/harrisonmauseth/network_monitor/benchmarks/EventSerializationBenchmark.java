@@ -0,0 +1,73 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the event listings (writing List&lt;Event&gt;) and of ingest (reading the Event[] a monitor posts),
+ * using an ObjectMapper configured the way Spring Boot configures the server's. Ingest is measured for both JSON
+ * and the MessagePack encoding monitors can post instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+    @Param({"50", "1000"})
+    public int events;
+    private List<Event> eventList;
+    private byte[] eventJson;
+    private ObjectWriter listWriter;
+    private ObjectReader arrayReader;
+    private byte[] eventMessagePack;
+    private ObjectReader messagePackArrayReader;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        eventList = EventDataset.generate(events, EventDataset.DEFAULT_SEED);
+        listWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Event.class));
+        arrayReader = mapper.readerFor(Event[].class);
+        eventJson = listWriter.writeValueAsBytes(eventList);
+        ObjectMapper messagePackMapper = mapper.copyWith(new MessagePackFactory());
+        messagePackArrayReader = messagePackMapper.readerFor(Event[].class);
+        eventMessagePack = messagePackMapper.writeValueAsBytes(eventList);
+    }
+
+    @Benchmark
+    public byte[] writeEventList() throws IOException {
+        return listWriter.writeValueAsBytes(eventList);
+    }
+
+    @Benchmark
+    public Event[] readEventArray() throws IOException {
+        return arrayReader.readValue(eventJson);
+    }
+
+    @Benchmark
+    public Event[] readEventArrayMessagePack() throws IOException {
+        return messagePackArrayReader.readValue(eventMessagePack);
+    }
+}
@@ -0,0 +1,133 @@
+package com.harrisonmauseth.network_monitor.benchmarks;
+
+import com.harrisonmauseth.network_monitor.dao.EventDao;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * A fixed, read-only set of events behind the EventDao interface, so controller benchmarks measure the web layer
+ * and not the database. Writes hand back their input with ids filled in and store nothing.
+ */
+public class InMemoryEventDao implements EventDao {
+    private final List<Event> newestFirst;
+    private final AtomicInteger nextId;
+
+    public InMemoryEventDao(List<Event> events) {
+        this.newestFirst = events.stream()
+                .sorted(Comparator.comparing(Event::getEventTime).thenComparingInt(Event::getEventId).reversed())
+                .collect(Collectors.toList());
+        this.nextId = new AtomicInteger(events.size() + 1);
+    }
+
+    @Override
+    public List<Event> getAllEvents() {
+        return newestFirst;
+    }
+
+    @Override
+    public void streamAllEvents(Consumer<Event> eventConsumer) {
+        newestFirst.forEach(eventConsumer);
+    }
+
+    @Override
+    public void streamEvents(EventQuery query, Consumer<Event> eventConsumer) {
+        getEvents(query).forEach(eventConsumer);
+    }
+
+    @Override
+    public List<Event> getAllEventsLimited(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.ANY, limit));
+    }
+
+    @Override
+    public List<Event> getAllDisconnectedEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedWifiEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedInternetEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.INTERNET_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getEvents(EventQuery query) {
+        List<Event> events = new ArrayList<>();
+        for (Event event : newestFirst) {
+            if (query.getLimit() > 0 && events.size() == query.getLimit()) {
+                break;
+            }
+            if (query.matches(event)) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public List<String> getDeviceIds() {
+        return newestFirst.stream().map(Event::getDeviceId).distinct().sorted().collect(Collectors.toList());
+    }
+
+    @Override
+    public Event getEventById(int id) {
+        return newestFirst.stream().filter(event -> event.getEventId() == id).findFirst().orElse(null);
+    }
+
+    @Override
+    public Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        return newestFirst.stream().filter(event -> event.getSequence() != null && event.getSequence() == sequence
+                && event.getDeviceId().equals(deviceId) && event.getEventTime().equals(eventTime)).findFirst().orElse(null);
+    }
+
+    @Override
+    public Event createEvent(Event eventToCreate) {
+        eventToCreate.setEventId(nextId.getAndIncrement());
+        return eventToCreate;
+    }
+
+    @Override
+    public List<Event> createMultipleEvents(Event[] events) {
+        for (Event event : events) {
+            event.setEventId(nextId.getAndIncrement());
+        }
+        return Arrays.asList(events);
+    }
+
+    @Override
+    public List<Integer> reserveEventIds(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(nextId.getAndIncrement());
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Event> createEventsWithIds(List<Event> events) {
+        return events;
+    }
+
+    @Override
+    public Event updateEvent(Event eventToUpdate) {
+        return eventToUpdate;
+    }
+
+    @Override
+    public int deleteEvent(int eventId) {
+        return 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.benchmarks.BenchmarkDatabase;
+import com.harrisonmauseth.network_monitor.benchmarks.EventDataset;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the newest page of events from PostgreSQL through the earlier queryForRowSet path and through
+ * {@link JdbcEventDao#getEvents}, so the difference includes the driver and the network. Scores are per page of
+ * limit events. Needs a PostgreSQL server, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventReadBenchmark {
+    private static final int TABLE_SIZE = 20_000;
+    @Param({"50", "1000"})
+    public int limit;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcEventDao dao;
+    private EventQuery query;
+
+    @Setup
+    public void setup() throws SQLException {
+        jdbcTemplate = new JdbcTemplate(BenchmarkDatabase.create());
+        dao = new JdbcEventDao(jdbcTemplate, 2000);
+        dao.createMultipleEvents(EventDataset.newEvents(TABLE_SIZE, EventDataset.DEFAULT_SEED));
+        jdbcTemplate.execute("ANALYZE events;");
+        query = new EventQuery(EventQuery.Status.ANY, limit);
+    }
+
+    @Benchmark
+    public void queryForRowSet(Blackhole blackhole) {
+        SqlRowSet results = jdbcTemplate.queryForRowSet("SELECT eventId, deviceId, eventTime, isConnectedToWifi, isConnectedToInternet, message " +
+                "FROM events ORDER BY eventTime DESC, eventId DESC LIMIT ?;", limit);
+        while (results.next()) {
+            blackhole.consume(EventRowMappingBenchmark.mapRowByName(results));
+        }
+    }
+
+    @Benchmark
+    public void getEvents(Blackhole blackhole) {
+        blackhole.consume(dao.getEvents(query));
+    }
+}
@@ -0,0 +1,107 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.benchmarks.EventDataset;
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways {@link JdbcEventDao} has turned rows into events, over rows held in memory, so the result is
+ * the cost of mapping without any database or network time mixed in. queryForRowSet is the earlier read path: the
+ * rows are copied into a CachedRowSet, as JdbcTemplate.queryForRowSet does, then mapped by column name. rowMapper is
+ * the current one, mapping straight from the result set by position. Run with -prof gc to compare allocations per
+ * row (gc.alloc.rate.norm divided by rows).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventRowMappingBenchmark {
+    @Param({"50", "1000"})
+    public int rows;
+    private CachedRowSet resultSet;
+
+    @Setup
+    public void setup() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        String[] names = {"eventId", "deviceId", "eventTime", "isConnectedToWifi", "isConnectedToInternet", "message"};
+        int[] types = {Types.INTEGER, Types.VARCHAR, Types.TIMESTAMP, Types.BOOLEAN, Types.BOOLEAN, Types.VARCHAR};
+        for (int i = 0; i < names.length; i++) {
+            metaData.setColumnName(i + 1, names[i]);
+            metaData.setColumnLabel(i + 1, names[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        for (Event event : EventDataset.generate(rows, EventDataset.DEFAULT_SEED)) {
+            resultSet.moveToInsertRow();
+            resultSet.updateInt(1, event.getEventId());
+            resultSet.updateString(2, event.getDeviceId());
+            resultSet.updateTimestamp(3, Timestamp.valueOf(event.getEventTime()));
+            resultSet.updateBoolean(4, event.isConnectedToWifi());
+            resultSet.updateBoolean(5, event.isConnectedToInternet());
+            resultSet.updateString(6, event.getMessage());
+            resultSet.insertRow();
+            resultSet.moveToCurrentRow();
+        }
+    }
+
+    @Benchmark
+    public void queryForRowSet(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        SqlRowSet results = new SqlRowSetResultSetExtractor().extractData(resultSet);
+        while (results.next()) {
+            blackhole.consume(mapRowByName(results));
+        }
+    }
+
+    @Benchmark
+    public void rowMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(JdbcEventDao.EVENT_ROW_MAPPER.mapRow(resultSet, resultSet.getRow()));
+        }
+    }
+
+    /**
+     * The mapping JdbcEventDao used before reads moved to {@link JdbcEventDao#EVENT_ROW_MAPPER}, kept as the baseline.
+     */
+    static Event mapRowByName(SqlRowSet rowSet) {
+        Event event = new Event();
+        event.setEventId(rowSet.getInt("eventId"));
+        event.setDeviceId(rowSet.getString("deviceId"));
+        if (rowSet.getTimestamp("eventTime") != null) {
+            event.setEventTime(Objects.requireNonNull(rowSet.getTimestamp("eventTime")).toLocalDateTime());
+        }
+        event.setConnectedToWifi(rowSet.getBoolean("isConnectedToWifi"));
+        event.setConnectedToInternet(rowSet.getBoolean("isConnectedToInternet"));
+        if (rowSet.getString("message") != null) {
+            event.setMessage(rowSet.getString("message"));
+        }
+        return event;
+    }
+}
@@ -0,0 +1,101 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.benchmarks.BenchmarkDatabase;
+import com.harrisonmauseth.network_monitor.benchmarks.EventDataset;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same reads and writes against each storage engine, {@link JdbcEventDao} on PostgreSQL and
+ * {@link SegmentLogEventDao} in a temporary directory, both holding the same events. Reads are per page of 50
+ * events, writes per flush of 100. The postgresql engine needs a PostgreSQL server, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStoreBenchmark {
+    private static final int STORE_SIZE = 20_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int FLUSH_SIZE = 100;
+    @Param({"postgresql", "segment-log"})
+    public String engine;
+    private EventDao dao;
+    private Path directory;
+    private EventQuery newest;
+    private EventQuery failures;
+    private EventQuery olderRange;
+    private long seed;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        if (engine.equals("postgresql")) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(BenchmarkDatabase.create());
+            dao = new JdbcEventDao(jdbcTemplate, 2000);
+            dao.createMultipleEvents(EventDataset.newEvents(STORE_SIZE, EventDataset.DEFAULT_SEED));
+            jdbcTemplate.execute("ANALYZE events;");
+        } else {
+            directory = Files.createTempDirectory("event-log-bench");
+            dao = new SegmentLogEventDao(directory, DataSize.ofMegabytes(16), false);
+            dao.createMultipleEvents(EventDataset.newEvents(STORE_SIZE, EventDataset.DEFAULT_SEED));
+        }
+        List<Event> page = dao.getEvents(new EventQuery(EventQuery.Status.ANY, STORE_SIZE / 2));
+        newest = new EventQuery(EventQuery.Status.ANY, PAGE_SIZE);
+        failures = new EventQuery(EventQuery.Status.DISCONNECTED, PAGE_SIZE);
+        olderRange = new EventQuery(EventQuery.Status.ANY, PAGE_SIZE);
+        olderRange.setTo(page.get(page.size() - 1).getEventTime());
+        seed = EventDataset.DEFAULT_SEED;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (dao instanceof SegmentLogEventDao) {
+            ((SegmentLogEventDao) dao).close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public Object newestPage() {
+        return dao.getEvents(newest);
+    }
+
+    @Benchmark
+    public Object newestFailures() {
+        return dao.getEvents(failures);
+    }
+
+    @Benchmark
+    public Object pageHalfwayBack() {
+        return dao.getEvents(olderRange);
+    }
+
+    @Benchmark
+    public Object flush() {
+        return dao.createMultipleEvents(EventDataset.newEvents(FLUSH_SIZE, ++seed));
+    }
+}
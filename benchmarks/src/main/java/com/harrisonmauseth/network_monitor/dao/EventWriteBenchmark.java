@@ -0,0 +1,112 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.benchmarks.BenchmarkDatabase;
+import com.harrisonmauseth.network_monitor.benchmarks.EventDataset;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-event writes from many monitors at once, the way POST /api/events and PUT /api/events/{id} reach the
+ * database: the earlier statement followed by a SELECT of the written row, against {@link JdbcEventDao}'s single
+ * statement returning the row. Each thread is a monitor with its own deviceId, sharing a pool of connections the
+ * size of the server's default. Scores are writes per second across all threads. Needs a PostgreSQL server, see
+ * {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class EventWriteBenchmark {
+    // HikariCP's default, which the server runs with
+    private static final int POOL_SIZE = 10;
+    private static final String SELECT_BY_ID = "SELECT " + JdbcEventDao.EVENT_COLUMNS + " FROM events WHERE eventId = ?;";
+    private final AtomicInteger monitors = new AtomicInteger();
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcEventDao dao;
+
+    @State(Scope.Thread)
+    public static class Monitor {
+        String deviceId;
+        LocalDateTime eventTime;
+        int eventId;
+        boolean connected;
+
+        @Setup
+        public void setup(EventWriteBenchmark benchmark) {
+            deviceId = "monitor-" + benchmark.monitors.incrementAndGet();
+            eventTime = EventDataset.START_TIME;
+            eventId = benchmark.dao.createEvent(next()).getEventId();
+        }
+
+        Event next() {
+            eventTime = eventTime.plusSeconds(30);
+            connected = !connected;
+            return new Event(0, deviceId, eventTime, connected, connected, connected ? null : "Lost connection");
+        }
+    }
+
+    @Setup
+    public void setup() throws SQLException {
+        pool = BenchmarkDatabase.createPooled(POOL_SIZE);
+        jdbcTemplate = new JdbcTemplate(pool);
+        dao = new JdbcEventDao(jdbcTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public Event insertThenSelect(Monitor monitor) {
+        Event event = monitor.next();
+        Integer eventId = jdbcTemplate.queryForObject("INSERT INTO events (deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) " +
+                        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING RETURNING eventId;", Integer.class,
+                event.getDeviceId(), event.getSequence(), event.getEventTime(), event.isConnectedToWifi(), event.isConnectedToInternet(), event.getMessage());
+        return jdbcTemplate.queryForObject(SELECT_BY_ID, JdbcEventDao.EVENT_ROW_MAPPER, eventId);
+    }
+
+    @Benchmark
+    public Event createEvent(Monitor monitor) {
+        return dao.createEvent(monitor.next());
+    }
+
+    @Benchmark
+    public Event updateThenSelect(Monitor monitor) {
+        Event event = monitor.next();
+        jdbcTemplate.update("UPDATE events SET deviceId = COALESCE(?, deviceId), eventTime = ?, isConnectedToWifi = ?, isConnectedToInternet = ?, message = ? WHERE eventId = ?;",
+                event.getDeviceId(), event.getEventTime(), event.isConnectedToWifi(), event.isConnectedToInternet(), event.getMessage(), monitor.eventId);
+        List<Event> events = jdbcTemplate.query(SELECT_BY_ID, JdbcEventDao.EVENT_ROW_MAPPER, monitor.eventId);
+        return events.get(0);
+    }
+
+    @Benchmark
+    public Event updateEvent(Monitor monitor) {
+        Event event = monitor.next();
+        event.setEventId(monitor.eventId);
+        return dao.updateEvent(event);
+    }
+}
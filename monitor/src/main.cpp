@@ -4,8 +4,16 @@
 #include <HTTPClient.h>
 #include <ESP32Ping.h>
 #include <list>
+#include <vector>
 #include <ArduinoJson.h>
 #include <time.h>
+#include <Preferences.h>
+
+// Identifies this monitor to the server. Define DEVICE_ID in credentials.h to pick a readable name, otherwise
+// the board's Wi-Fi MAC address is used.
+#ifndef DEVICE_ID
+#define DEVICE_ID WiFi.macAddress()
+#endif
 
 const IPAddress PING_IP(8, 8, 8, 8);
 const int MAX_LOGS = 180;
@@ -13,7 +21,7 @@ const unsigned long LOG_INTERVAL_IN_MILLISECONDS = 300000;
 const unsigned long HEARTBEAT_INTERVAL_IN_MILLISECONDS = 30000;
 const unsigned long PING_INTERVAL_IN_MILLISECONDS = 900000;
 const unsigned long PING_DELAY_IN_MILLISECONDS = 15000;
-const unsigned long JSON_EVENT_SIZE_IN_BYTES = 256;
+const unsigned long JSON_EVENT_SIZE_IN_BYTES = 320;
 const unsigned long MAX_JSON_SIZE_IN_BYTES = (MAX_LOGS + 20) * JSON_EVENT_SIZE_IN_BYTES;
 bool wifiIsConnected = false;
 bool internetIsConnected = false;
@@ -26,6 +34,10 @@ unsigned long lastPingTime = 0;
 unsigned long timeOfLastLog = 0;
 unsigned long timeOfDisconnect = 0;
 std::list<String> logs;
+String deviceId;
+// Numbers every event so the server can drop copies of a batch it already logged when a response is lost and the
+// batch is sent again. The boot count kept in flash fills the high bits, so sequences keep rising across restarts.
+uint64_t nextSequence = 0;
 
 String getCurrentTime()
 {
@@ -83,6 +95,8 @@ void logEvent(bool isConnectedToWifi, bool isConnectedToInternet, String message
   String timestamp = getCurrentTime();
 
   DynamicJsonDocument jsonDoc(JSON_EVENT_SIZE_IN_BYTES);
+  jsonDoc["deviceId"] = deviceId;
+  jsonDoc["sequence"] = nextSequence++;
   jsonDoc["eventTime"] = timestamp;
   jsonDoc["isConnectedToWifi"] = isConnectedToWifi;
   jsonDoc["isConnectedToInternet"] = isConnectedToInternet;
@@ -138,15 +152,19 @@ void sendLogsToServer()
       Serial.println("Log added to payload: " + log);
     }
 
-    String payload;
-    serializeJson(jsonDoc, payload);
+    // MessagePack is smaller than JSON and the server parses it without scanning text
+    size_t payloadSize = measureMsgPack(jsonDoc);
+    std::vector<uint8_t> payload(payloadSize);
+    serializeMsgPack(jsonDoc, payload.data(), payloadSize);
 
     HTTPClient http;
     http.begin(API_ENDPOINT);
-    http.addHeader("Content-Type", "application/json");
+    http.addHeader("Content-Type", "application/x-msgpack");
+    http.addHeader("Accept", "application/json");
 
-    int httpResponseCode = http.POST(payload);
-    if (httpResponseCode == 201)
+    int httpResponseCode = http.POST(payload.data(), payloadSize);
+    // 202 means the server queued the events to write later, a 429 leaves them here to retry on the next send
+    if (httpResponseCode == 201 || httpResponseCode == 202)
     {
       Serial.println("Success!");
       logs.clear();
@@ -237,6 +255,13 @@ void setup()
 {
   Serial.begin(9600);
 
+  deviceId = String(DEVICE_ID);
+  Preferences preferences;
+  preferences.begin("monitor");
+  uint32_t bootCount = preferences.getUInt("boots", 0) + 1;
+  preferences.putUInt("boots", bootCount);
+  preferences.end();
+  nextSequence = (uint64_t)bootCount << 32;
   WiFi.begin(USER_SSID, USER_SSID_TOKEN);
   WiFi.onEvent(WiFiEventHandler);
   configTime(0, 0, "pool.ntp.org");
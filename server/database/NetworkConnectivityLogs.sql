@@ -1,6 +1,6 @@
 START TRANSACTION;
 
-DROP TABLE IF EXISTS events;
+DROP TABLE IF EXISTS events, event_rollups_minute, event_rollups_hour, event_rollups_day, jobs, job_queue, outages, device_coverage;
 
 CREATE TABLE events (
     eventId SERIAL,
@@ -8,7 +8,132 @@ CREATE TABLE events (
     isConnectedToWifi BOOLEAN NOT NULL DEFAULT false,
     isConnectedToInternet BOOLEAN NOT NULL DEFAULT false,
     message text NULL,
-    CONSTRAINT PK_events PRIMARY KEY (eventId)
+    -- the monitor that logged the event; rows from before devices were tracked belong to 'default'
+    deviceId VARCHAR(64) NOT NULL DEFAULT 'default',
+    -- a number the monitor gives each event it logs, so a resent batch can be recognised; null for events without one
+    sequence BIGINT NULL,
+    CONSTRAINT PK_events PRIMARY KEY (eventId, eventTime)
+) PARTITION BY RANGE (eventTime);
+
+-- monthly partitions (events_pYYYY_MM) are created ahead of time by the server, this catches anything outside of them
+CREATE TABLE events_default PARTITION OF events DEFAULT;
+
+-- supports keyset pagination on (eventTime, eventId), newest first
+CREATE INDEX ix_events_eventTime_eventId ON events (eventTime DESC, eventId DESC);
+
+-- failures are a tiny fraction of the rows, so partial indexes keep the /failed queries from scanning heartbeats
+CREATE INDEX ix_events_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false OR isConnectedToInternet = false;
+CREATE INDEX ix_events_wifi_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false;
+CREATE INDEX ix_events_internet_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToInternet = false;
+
+-- per-device listings and failures lead with deviceId, so one monitor's rows are read without touching the fleet's
+CREATE INDEX ix_events_device_eventTime_eventId ON events (deviceId, eventTime DESC, eventId DESC);
+CREATE INDEX ix_events_device_disconnected ON events (deviceId, eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false OR isConnectedToInternet = false;
+
+-- a monitor's (sequence, eventTime) identifies an event, so a batch resent after a lost response inserts nothing;
+-- unique indexes on a partitioned table must include the partition key, and a resent event keeps its eventTime
+CREATE UNIQUE INDEX ux_events_device_sequence ON events (deviceId, sequence, eventTime);
+
+-- per-minute, per-hour and per-day summaries of events, maintained incrementally by the server's rollup job
+CREATE TABLE event_rollups_minute (
+    bucketStart TIMESTAMP NOT NULL,
+    samples INTEGER NOT NULL,
+    connectedSamples INTEGER NOT NULL,
+    wifiDownSamples INTEGER NOT NULL,
+    internetDownSamples INTEGER NOT NULL,
+    downtimeSeconds DOUBLE PRECISION NOT NULL,
+    CONSTRAINT PK_event_rollups_minute PRIMARY KEY (bucketStart)
+);
+
+CREATE TABLE event_rollups_hour (LIKE event_rollups_minute INCLUDING ALL);
+CREATE TABLE event_rollups_day (LIKE event_rollups_minute INCLUDING ALL);
+
+-- outage intervals reconstructed from events; endTime is null while an outage is still ongoing
+CREATE TABLE outages (
+    outageId SERIAL,
+    outageType VARCHAR(8) NOT NULL,
+    deviceId VARCHAR(64) NOT NULL DEFAULT 'default',
+    startTime TIMESTAMP NOT NULL,
+    endTime TIMESTAMP NULL,
+    CONSTRAINT PK_outages PRIMARY KEY (outageId),
+    CONSTRAINT CK_outages_type CHECK (outageType IN ('wifi', 'internet'))
+);
+
+CREATE INDEX ix_outages_type_startTime ON outages (outageType, startTime DESC);
+CREATE INDEX ix_outages_device_type_startTime ON outages (deviceId, outageType, startTime DESC);
+
+-- the stretches of time each monitor was reporting: a sample covers the time until the next sample from the same
+-- monitor, up to the max sample gap. Kept by the outage job, and kept when raw events are pruned or archived
+CREATE TABLE device_coverage (
+    deviceId VARCHAR(64) NOT NULL,
+    startTime TIMESTAMP NOT NULL,
+    endTime TIMESTAMP NOT NULL,
+    CONSTRAINT PK_device_coverage PRIMARY KEY (deviceId, startTime)
 );
 
+CREATE INDEX ix_device_coverage_startTime ON device_coverage (startTime);
+
+-- the background jobs that process new events; a job adds itself on its first run
+CREATE TABLE jobs (
+    jobName VARCHAR(50) NOT NULL,
+    CONSTRAINT PK_jobs PRIMARY KEY (jobName)
+);
+
+-- the events each job has yet to process, one row per job, device and minute of an insert. The trigger fills it in
+-- the transaction that inserts the events, so a job sees an event exactly when it commits, whatever its eventId.
+-- Edited and deleted events queue the minutes they left, with the samples that were removed from them
+CREATE TABLE job_queue (
+    jobName VARCHAR(50) NOT NULL,
+    deviceId VARCHAR(64) NOT NULL,
+    bucketStart TIMESTAMP NOT NULL,
+    eventIds INTEGER[] NOT NULL,
+    firstTime TIMESTAMP NOT NULL,
+    lastTime TIMESTAMP NOT NULL,
+    removedSamples INTEGER NOT NULL DEFAULT 0,
+    removedConnectedSamples INTEGER NOT NULL DEFAULT 0,
+    removedWifiDownSamples INTEGER NOT NULL DEFAULT 0,
+    removedInternetDownSamples INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX ix_job_queue_jobName ON job_queue (jobName);
+
+CREATE OR REPLACE FUNCTION queue_events_for_jobs() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime)
+    SELECT jobs.jobName, added.deviceId, date_trunc(''minute'', added.eventTime), array_agg(added.eventId), MIN(added.eventTime), MAX(added.eventTime)
+    FROM added CROSS JOIN jobs
+    GROUP BY jobs.jobName, added.deviceId, date_trunc(''minute'', added.eventTime);
+    RETURN NULL;
+END';
+
+-- pruning and archiving retire events every job has processed, so they set network_monitor.retiring_events for
+-- their deletes and nothing is queued; any other update or delete is an edit the jobs have to rebuild
+CREATE OR REPLACE FUNCTION queue_removed_events_for_jobs() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF current_setting(''network_monitor.retiring_events'', true) = ''on'' THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime,
+        removedSamples, removedConnectedSamples, removedWifiDownSamples, removedInternetDownSamples)
+    SELECT jobs.jobName, removed.deviceId, date_trunc(''minute'', removed.eventTime), ''{}'', MIN(removed.eventTime), MAX(removed.eventTime),
+        COUNT(*), COUNT(*) FILTER (WHERE removed.isConnectedToWifi AND removed.isConnectedToInternet),
+        COUNT(*) FILTER (WHERE NOT removed.isConnectedToWifi), COUNT(*) FILTER (WHERE NOT removed.isConnectedToInternet)
+    FROM removed CROSS JOIN jobs
+    GROUP BY jobs.jobName, removed.deviceId, date_trunc(''minute'', removed.eventTime);
+    RETURN NULL;
+END';
+
+CREATE TRIGGER tr_events_queue_for_jobs AFTER INSERT ON events REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_events_for_jobs();
+
+-- an edit removes the old version of each row and adds the new one
+CREATE TRIGGER tr_events_queue_edited_for_jobs AFTER UPDATE ON events REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_events_for_jobs();
+
+CREATE TRIGGER tr_events_queue_replaced_for_jobs AFTER UPDATE ON events REFERENCING OLD TABLE AS removed
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_removed_events_for_jobs();
+
+CREATE TRIGGER tr_events_queue_deleted_for_jobs AFTER DELETE ON events REFERENCING OLD TABLE AS removed
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_removed_events_for_jobs();
+
 COMMIT;
\ No newline at end of file
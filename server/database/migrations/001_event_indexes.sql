@@ -0,0 +1,12 @@
+-- Adds the listing indexes to an events table created before they were part of NetworkConnectivityLogs.sql.
+-- CREATE INDEX CONCURRENTLY cannot run inside a transaction block, so run this file on its own, e.g.
+--   psql -d NetworkConnectivityLogs -f database/migrations/001_event_indexes.sql
+-- Ingest keeps working while the indexes build.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_events_eventTime_eventId ON events (eventTime DESC, eventId DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_events_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false OR isConnectedToInternet = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_events_wifi_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_events_internet_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToInternet = false;
+
+ANALYZE events;
@@ -0,0 +1,35 @@
+-- Converts an existing events table into the monthly range-partitioned layout of NetworkConnectivityLogs.sql.
+-- Existing rows are copied into the default partition; the server moves them into monthly partitions
+-- (events_pYYYY_MM) on its next partition maintenance run. Stop the server while this runs.
+
+START TRANSACTION;
+
+ALTER TABLE events RENAME TO events_unpartitioned;
+ALTER TABLE events_unpartitioned RENAME CONSTRAINT PK_events TO PK_events_unpartitioned;
+DROP INDEX IF EXISTS ix_events_eventTime_eventId, ix_events_disconnected, ix_events_wifi_disconnected, ix_events_internet_disconnected;
+
+CREATE TABLE events (
+    eventId INTEGER NOT NULL DEFAULT nextval('events_eventid_seq'),
+    eventTime TIMESTAMP NOT NULL DEFAULT NOW(),
+    isConnectedToWifi BOOLEAN NOT NULL DEFAULT false,
+    isConnectedToInternet BOOLEAN NOT NULL DEFAULT false,
+    message text NULL,
+    CONSTRAINT PK_events PRIMARY KEY (eventId, eventTime)
+) PARTITION BY RANGE (eventTime);
+
+-- keep the existing sequence so eventIds carry on where they left off
+ALTER SEQUENCE events_eventid_seq OWNED BY events.eventId;
+
+CREATE TABLE events_default PARTITION OF events DEFAULT;
+
+CREATE INDEX ix_events_eventTime_eventId ON events (eventTime DESC, eventId DESC);
+CREATE INDEX ix_events_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false OR isConnectedToInternet = false;
+CREATE INDEX ix_events_wifi_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false;
+CREATE INDEX ix_events_internet_disconnected ON events (eventTime DESC, eventId DESC) WHERE isConnectedToInternet = false;
+
+INSERT INTO events (eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message)
+SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events_unpartitioned;
+
+DROP TABLE events_unpartitioned;
+
+COMMIT;
@@ -0,0 +1,25 @@
+-- Adds the rollup tables used by the server's rollup job and /api/stats.
+-- The first rollup run after this migration summarizes all existing events.
+
+START TRANSACTION;
+
+CREATE TABLE event_rollups_minute (
+    bucketStart TIMESTAMP NOT NULL,
+    samples INTEGER NOT NULL,
+    connectedSamples INTEGER NOT NULL,
+    wifiDownSamples INTEGER NOT NULL,
+    internetDownSamples INTEGER NOT NULL,
+    downtimeSeconds DOUBLE PRECISION NOT NULL,
+    CONSTRAINT PK_event_rollups_minute PRIMARY KEY (bucketStart)
+);
+
+CREATE TABLE event_rollups_hour (LIKE event_rollups_minute INCLUDING ALL);
+CREATE TABLE event_rollups_day (LIKE event_rollups_minute INCLUDING ALL);
+
+CREATE TABLE job_watermarks (
+    jobName VARCHAR(50) NOT NULL,
+    lastEventId INTEGER NOT NULL,
+    CONSTRAINT PK_job_watermarks PRIMARY KEY (jobName)
+);
+
+COMMIT;
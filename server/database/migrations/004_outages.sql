@@ -0,0 +1,17 @@
+-- Adds the outages table maintained by the server. The first refresh after this migration
+-- reconstructs outages from every existing event.
+
+START TRANSACTION;
+
+CREATE TABLE outages (
+    outageId SERIAL,
+    outageType VARCHAR(8) NOT NULL,
+    startTime TIMESTAMP NOT NULL,
+    endTime TIMESTAMP NULL,
+    CONSTRAINT PK_outages PRIMARY KEY (outageId),
+    CONSTRAINT CK_outages_type CHECK (outageType IN ('wifi', 'internet'))
+);
+
+CREATE INDEX ix_outages_type_startTime ON outages (outageType, startTime DESC);
+
+COMMIT;
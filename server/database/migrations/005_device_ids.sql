@@ -0,0 +1,16 @@
+-- Adds the deviceId column to events and outages. Existing rows are assigned to the 'default' device; adding a
+-- column with a constant default does not rewrite the table.
+--
+-- The indexes are built without CONCURRENTLY because PostgreSQL does not support it on partitioned tables, so
+-- inserts wait while they build. Run this when the monitors can buffer for a few minutes.
+
+START TRANSACTION;
+
+ALTER TABLE events ADD COLUMN deviceId VARCHAR(64) NOT NULL DEFAULT 'default';
+CREATE INDEX ix_events_device_eventTime_eventId ON events (deviceId, eventTime DESC, eventId DESC);
+CREATE INDEX ix_events_device_disconnected ON events (deviceId, eventTime DESC, eventId DESC) WHERE isConnectedToWifi = false OR isConnectedToInternet = false;
+
+ALTER TABLE outages ADD COLUMN deviceId VARCHAR(64) NOT NULL DEFAULT 'default';
+CREATE INDEX ix_outages_device_type_startTime ON outages (deviceId, outageType, startTime DESC);
+
+COMMIT;
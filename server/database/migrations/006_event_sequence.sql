@@ -0,0 +1,12 @@
+-- Adds the sequence column monitors use to make resent batches idempotent. Existing rows get NULL, which never
+-- conflicts, and adding a nullable column does not rewrite the table.
+--
+-- The unique index is built without CONCURRENTLY because PostgreSQL does not support it on partitioned tables, so
+-- inserts wait while it builds. Run this when the monitors can buffer for a few minutes.
+
+START TRANSACTION;
+
+ALTER TABLE events ADD COLUMN sequence BIGINT NULL;
+CREATE UNIQUE INDEX ux_events_device_sequence ON events (deviceId, sequence, eventTime);
+
+COMMIT;
@@ -0,0 +1,50 @@
+-- Replaces the eventId watermarks of the rollup and outage jobs with a queue of the events each job has yet to
+-- process. Event ids are handed out before the rows that use them commit (and asynchronous ingest reserves them well
+-- ahead), so a job could move its watermark past an event that committed later, never process it, and let pruning
+-- delete it. The queue is filled by a trigger in the transaction that inserts the events, so an event is queued
+-- exactly when it becomes visible.
+--
+-- Events past the old watermarks are queued for their jobs. Inserts wait while this runs.
+
+START TRANSACTION;
+
+CREATE TABLE jobs (
+    jobName VARCHAR(50) NOT NULL,
+    CONSTRAINT PK_jobs PRIMARY KEY (jobName)
+);
+
+CREATE TABLE job_queue (
+    jobName VARCHAR(50) NOT NULL,
+    deviceId VARCHAR(64) NOT NULL,
+    bucketStart TIMESTAMP NOT NULL,
+    eventIds INTEGER[] NOT NULL,
+    firstTime TIMESTAMP NOT NULL,
+    lastTime TIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_job_queue_jobName ON job_queue (jobName);
+
+LOCK TABLE events IN SHARE MODE;
+
+INSERT INTO jobs (jobName) SELECT jobName FROM job_watermarks;
+
+INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime)
+SELECT w.jobName, e.deviceId, date_trunc('minute', e.eventTime), array_agg(e.eventId), MIN(e.eventTime), MAX(e.eventTime)
+FROM job_watermarks w JOIN events e ON e.eventId > w.lastEventId
+GROUP BY w.jobName, e.deviceId, date_trunc('minute', e.eventTime);
+
+DROP TABLE job_watermarks;
+
+CREATE OR REPLACE FUNCTION queue_events_for_jobs() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime)
+    SELECT jobs.jobName, added.deviceId, date_trunc(''minute'', added.eventTime), array_agg(added.eventId), MIN(added.eventTime), MAX(added.eventTime)
+    FROM added CROSS JOIN jobs
+    GROUP BY jobs.jobName, added.deviceId, date_trunc(''minute'', added.eventTime);
+    RETURN NULL;
+END';
+
+CREATE TRIGGER tr_events_queue_for_jobs AFTER INSERT ON events REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_events_for_jobs();
+
+COMMIT;
@@ -0,0 +1,33 @@
+-- Adds the stretches of time each monitor was reporting, which /api/stats/availability measures observed time from
+-- instead of the length of each bucket times the monitors in the events table. The outage job keeps it current, and
+-- it outlives the raw events, so pruned and archived history is still measured.
+--
+-- A sample covers the time until the next sample from the same monitor, up to 90 seconds (the default
+-- events.rollup.max-sample-gap-seconds; rerun the backfill with another value if the server is configured
+-- differently). Events already moved to archive files are not read, so days archived before this migration have no
+-- observed time.
+
+START TRANSACTION;
+
+CREATE TABLE device_coverage (
+    deviceId VARCHAR(64) NOT NULL,
+    startTime TIMESTAMP NOT NULL,
+    endTime TIMESTAMP NOT NULL,
+    CONSTRAINT PK_device_coverage PRIMARY KEY (deviceId, startTime)
+);
+
+CREATE INDEX ix_device_coverage_startTime ON device_coverage (startTime);
+
+INSERT INTO device_coverage (deviceId, startTime, endTime)
+SELECT deviceId, MIN(startTime), MAX(endTime)
+FROM (SELECT deviceId, startTime, endTime,
+             SUM(CASE WHEN startTime <= previousEnd THEN 0 ELSE 1 END) OVER (PARTITION BY deviceId ORDER BY startTime, endTime) AS grp
+      FROM (SELECT deviceId, startTime, endTime,
+                   MAX(endTime) OVER (PARTITION BY deviceId ORDER BY startTime, endTime ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING) AS previousEnd
+            FROM (SELECT deviceId, eventTime AS startTime,
+                         eventTime + LEAST(LEAD(eventTime) OVER (PARTITION BY deviceId ORDER BY eventTime, eventId) - eventTime, interval '90 seconds') AS endTime
+                  FROM events) samples
+            WHERE endTime > startTime) ordered) grouped
+GROUP BY deviceId, grp;
+
+COMMIT;
@@ -0,0 +1,42 @@
+-- Queues edited and deleted events for the rollup and outage jobs. Until now only inserts were queued, so
+-- PUT /api/events/{id} and DELETE /api/events/{id} never reached the minute summaries or the outages. An update
+-- queues the minute each row left, with the samples removed from it, and the minute it moved to; a delete queues the
+-- minute it left. Pruning and archiving set network_monitor.retiring_events for their deletes, so retired events stay
+-- in the summaries.
+--
+-- Edits made before this migration are not replayed.
+
+START TRANSACTION;
+
+ALTER TABLE job_queue
+    ADD COLUMN removedSamples INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN removedConnectedSamples INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN removedWifiDownSamples INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN removedInternetDownSamples INTEGER NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION queue_removed_events_for_jobs() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF current_setting(''network_monitor.retiring_events'', true) = ''on'' THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime,
+        removedSamples, removedConnectedSamples, removedWifiDownSamples, removedInternetDownSamples)
+    SELECT jobs.jobName, removed.deviceId, date_trunc(''minute'', removed.eventTime), ''{}'', MIN(removed.eventTime), MAX(removed.eventTime),
+        COUNT(*), COUNT(*) FILTER (WHERE removed.isConnectedToWifi AND removed.isConnectedToInternet),
+        COUNT(*) FILTER (WHERE NOT removed.isConnectedToWifi), COUNT(*) FILTER (WHERE NOT removed.isConnectedToInternet)
+    FROM removed CROSS JOIN jobs
+    GROUP BY jobs.jobName, removed.deviceId, date_trunc(''minute'', removed.eventTime);
+    RETURN NULL;
+END';
+
+-- an edit removes the old version of each row and adds the new one
+CREATE TRIGGER tr_events_queue_edited_for_jobs AFTER UPDATE ON events REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_events_for_jobs();
+
+CREATE TRIGGER tr_events_queue_replaced_for_jobs AFTER UPDATE ON events REFERENCING OLD TABLE AS removed
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_removed_events_for_jobs();
+
+CREATE TRIGGER tr_events_queue_deleted_for_jobs AFTER DELETE ON events REFERENCING OLD TABLE AS removed
+    FOR EACH STATEMENT EXECUTE FUNCTION queue_removed_events_for_jobs();
+
+COMMIT;
@@ -0,0 +1,146 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for the event endpoints. Each client sends requests back to back for the measurement period, and the
+ * latency of every request is recorded to report p50/p99 latency and throughput per endpoint and client count.
+ * <p>
+ * Run it against a server whose database can take the inserted events, for example:
+ * <pre>
+ *     java loadtest/EventsLoadTest.java http://localhost:8080 1,50,500 20
+ * </pre>
+ * Arguments are the base url, the client counts to test and the seconds to measure each scenario (defaults shown).
+ * Compare the default runtime with the high-concurrency profile by running it once against each.
+ */
+public class EventsLoadTest {
+    private static final int EVENTS_PER_POST = 20;
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] clientCounts = Arrays.stream((args.length > 1 ? args[1] : "1,50,500").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration measure = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest listEvents = HttpRequest.newBuilder(URI.create(baseUrl + "/api/events?limit=50"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        HttpRequest logEvents = HttpRequest.newBuilder(URI.create(baseUrl + "/api/events/multiple"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(eventBatch()))
+                .build();
+
+        System.out.printf("%-28s %8s %10s %10s %10s %8s%n", "scenario", "clients", "req/s", "p50 ms", "p99 ms", "errors");
+        for (int clients : clientCounts) {
+            report("GET /api/events?limit=50", clients, run(client, listEvents, clients, measure));
+            report("POST /api/events/multiple", clients, run(client, logEvents, clients, measure));
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int clients, Duration measure) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            long warmUpEnd = System.nanoTime() + WARM_UP.toNanos();
+            long end = warmUpEnd + measure.toNanos();
+            AtomicInteger errors = new AtomicInteger();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 300;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (now < warmUpEnd) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = finished - now;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            return new Result(all, errors.get(), measure);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String scenario, int clients, Result result) {
+        System.out.printf("%-28s %8d %10.1f %10.2f %10.2f %8d%n", scenario, clients,
+                result.latencies.length / (double) result.measure.toSeconds(),
+                result.percentile(50), result.percentile(99), result.errors);
+    }
+
+    private static String eventBatch() {
+        LocalDateTime start = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(EVENTS_PER_POST);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < EVENTS_PER_POST; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"eventTime\":\"").append(start.plusSeconds(30L * i).format(TIME_FORMAT)).append('"')
+                    .append(",\"isConnectedToWifi\":true,\"isConnectedToInternet\":").append(i % 10 != 0)
+                    .append(",\"message\":\"load test heartbeat\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static final class Result {
+        private final long[] latencies;
+        private final int errors;
+        private final Duration measure;
+
+        private Result(long[] latencies, int errors, Duration measure) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.measure = measure;
+        }
+
+        private double percentile(int percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.harrisonmauseth.network_monitor.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Settings for the high-concurrency profile, used when many monitors reconnect and flush at once. Requests run on
+ * virtual threads (see application-high-concurrency.properties), so a request waiting on the database no longer
+ * holds a Tomcat thread, and the connection pool is sized to the machine instead of Hikari's fixed default of 10.
+ */
+@Configuration
+@Profile("high-concurrency")
+public class HighConcurrencyConfig {
+    private static final Logger log = LoggerFactory.getLogger(HighConcurrencyConfig.class);
+    private static final String POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+
+    /**
+     * Size the pool at connections-per-core per available core, plus one, unless the size is set explicitly.
+     * PostgreSQL does its best work with few connections per core, and virtual threads make it cheap for requests
+     * to wait their turn for one.
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource && !environment.containsProperty(POOL_SIZE_PROPERTY)) {
+                    int connectionsPerCore = environment.getProperty("events.datasource.connections-per-core", Integer.class, 2);
+                    int poolSize = poolSizeFor(Runtime.getRuntime().availableProcessors(), connectionsPerCore);
+                    ((HikariDataSource) bean).setMaximumPoolSize(poolSize);
+                    log.info("Sized the connection pool to {} connections", poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSizeFor(int cores, int connectionsPerCore) {
+        return Math.max(1, cores) * Math.max(1, connectionsPerCore) + 1;
+    }
+
+    /**
+     * Virtual threads need Java 21, on older runtimes Spring Boot quietly keeps platform threads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkVirtualThreads(ApplicationReadyEvent event) {
+        boolean requested = event.getApplicationContext().getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (requested && Runtime.version().feature() < 21) {
+            log.warn("Virtual threads need Java 21 or newer, requests are running on platform threads (Java {})", Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.harrisonmauseth.network_monitor.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Lets the API read and write MessagePack, the binary form of JSON that ArduinoJson can produce on the monitors.
+ * A flush of events is smaller than as JSON and is parsed straight into Event objects by Jackson's
+ * streaming parser, with no text to scan and no intermediate tree.
+ * <p>
+ * The converter uses a copy of the application's ObjectMapper, so dates and property names are handled exactly as
+ * they are for JSON. It is added after the JSON converter, so responses are only MessagePack when the client asks
+ * for it in its Accept header.
+ */
+@Configuration
+public class MessagePackConfig implements WebMvcConfigurer {
+    public static final String APPLICATION_MSGPACK_VALUE = "application/x-msgpack";
+    public static final MediaType APPLICATION_MSGPACK = MediaType.valueOf(APPLICATION_MSGPACK_VALUE);
+    private final ObjectMapper objectMapper;
+
+    public MessagePackConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MessagePackHttpMessageConverter(objectMapper.copyWith(new MessagePackFactory())));
+    }
+
+    static class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+        MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+            super(objectMapper, APPLICATION_MSGPACK);
+        }
+    }
+}
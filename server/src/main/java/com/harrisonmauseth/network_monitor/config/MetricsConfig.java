@@ -0,0 +1,39 @@
+package com.harrisonmauseth.network_monitor.config;
+
+import com.harrisonmauseth.network_monitor.dao.EventDao;
+import com.harrisonmauseth.network_monitor.dao.JdbcEventDao;
+import com.harrisonmauseth.network_monitor.dao.MeteredEventDao;
+import com.harrisonmauseth.network_monitor.dao.SegmentLogEventDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage metrics for the event DAO, published at /actuator/prometheus along with the request, connection pool
+ * and JVM metrics that Spring Boot records on its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    /**
+     * Wrap the event store, whichever engine it is, where it is defined, so the cache and the ingest queue that sit
+     * in front of it are metered without knowing about it. This runs after the transaction proxy is applied, which is why the
+     * wrapper goes around the proxy rather than replacing it.
+     */
+    @Bean
+    public static BeanPostProcessor eventDaoMeter(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcEventDao || bean instanceof SegmentLogEventDao) {
+                    return new MeteredEventDao((EventDao) bean, registry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.harrisonmauseth.network_monitor.config;
+
+import com.harrisonmauseth.network_monitor.dao.ReadReplica;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Connects to the read replica that event reads are sent to. The replica gets a connection pool of its own, which is
+ * not a DataSource bean so that Spring Boot keeps configuring the primary. Its settings are bound from
+ * events.replica.hikari.* like the primary's are from spring.datasource.hikari.*, and its metrics are published under
+ * the pool name "replica".
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadReplica readReplica(Environment environment, ObjectProvider<MeterRegistry> registry,
+                                   @Value("${events.replica.url}") String url,
+                                   @Value("${events.replica.username:${spring.datasource.username:}}") String username,
+                                   @Value("${events.replica.password:${spring.datasource.password:}}") String password,
+                                   @Value("${events.replica.read-your-writes:PT5S}") Duration readYourWrites) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        Binder.get(environment).bind("events.replica.hikari", Bindable.ofInstance(dataSource));
+        registry.ifAvailable(meterRegistry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+        return new ReadReplica(dataSource, readYourWrites);
+    }
+}
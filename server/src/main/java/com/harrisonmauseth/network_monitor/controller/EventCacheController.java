@@ -0,0 +1,26 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.harrisonmauseth.network_monitor.dao.CachingEventDao;
+import com.harrisonmauseth.network_monitor.model.CacheStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api/cache/events")
+@ConditionalOnProperty(name = "events.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EventCacheController {
+    private final CachingEventDao cachingEventDao;
+
+    public EventCacheController(CachingEventDao cachingEventDao) {
+        this.cachingEventDao = cachingEventDao;
+    }
+
+    @GetMapping
+    public CacheStats getStats() {
+        return cachingEventDao.getStats();
+    }
+}
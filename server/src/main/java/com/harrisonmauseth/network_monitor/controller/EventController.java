@@ -1,10 +1,28 @@
 package com.harrisonmauseth.network_monitor.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.harrisonmauseth.network_monitor.dao.EventDao;
 import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.exception.IngestQueueFullException;
+import com.harrisonmauseth.network_monitor.exception.TooManySubscribersException;
 import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventBroadcaster;
+import com.harrisonmauseth.network_monitor.service.EventIngestQueue;
+import com.harrisonmauseth.network_monitor.service.EventsChangedEvent;
+import com.harrisonmauseth.network_monitor.service.EventsVersion;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,91 +34,171 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
-@CrossOrigin
+@CrossOrigin(exposedHeaders = EventController.NEXT_CURSOR_HEADER)
 @RequestMapping("/api/events")
 public class EventController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final EventDao eventDao;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter eventWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    // tags GET responses, so a poll that already has the current events is answered before the database is read
+    private final EventsVersion eventsVersion;
+    private final EventBroadcaster broadcaster;
+    // only present when events.ingest.async is enabled
+    private final EventIngestQueue ingestQueue;
 
-    public EventController(EventDao dao) {
+    public EventController(EventDao dao, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                           EventsVersion eventsVersion, EventBroadcaster broadcaster,
+                           ObjectProvider<EventIngestQueue> ingestQueue) {
         this.eventDao = dao;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.eventsVersion = eventsVersion;
+        this.broadcaster = broadcaster;
+        this.ingestQueue = ingestQueue.getIfAvailable();
+        this.eventWriter = objectMapper.writerFor(Event.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping
-    public List<Event> getEvents(@RequestParam(defaultValue = "0") int limit) {
-        List<Event> events;
+    public List<Event> getEvents(@RequestParam(defaultValue = "0") int limit,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(required = false) String deviceId,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                 ServletWebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(eventsVersion.getETag())) {
+            return null;
+        }
+        EventQuery query = newQuery(EventQuery.Status.ANY, limit, deviceId, from, to);
+        if (limit <= 0 && cursor == null) {
+            streamEvents(query, response);
+            return null;
+        }
+        return getEventPage(query, cursor, response);
+    }
+
+    @GetMapping(path = "/devices")
+    public List<String> getDeviceIds(ServletWebRequest request) {
+        if (request.checkNotModified(eventsVersion.getETag())) {
+            return null;
+        }
         try {
-            events = eventDao.getAllEventsLimited(limit);
+            return eventDao.getDeviceIds();
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
         }
-        return events;
     }
 
-    @GetMapping(path = "/failed")
-    public List<Event> getAllDisconnectedEvents(@RequestParam(defaultValue = "0") int limit) {
-        List<Event> events;
+    /**
+     * Opens a Server-Sent Events feed of events as they are logged. status narrows it to failures (failed, wifi or
+     * internet), and deviceId to one monitor.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNewEvents(@RequestParam(defaultValue = "any") String status,
+                                      @RequestParam(required = false) String deviceId) {
+        EventQuery filter = new EventQuery(streamStatus(status), 0);
+        filter.setDeviceId(deviceId);
         try {
-            events = eventDao.getAllDisconnectedEvents(limit);
-        } catch (DaoException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+            return broadcaster.subscribe(filter);
+        } catch (TooManySubscribersException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
         }
-        return events;
+    }
+
+    @GetMapping(path = "/failed")
+    public List<Event> getAllDisconnectedEvents(@RequestParam(defaultValue = "0") int limit,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) String deviceId,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                ServletWebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(eventsVersion.getETag())) {
+            return null;
+        }
+        return getEventPage(newQuery(EventQuery.Status.DISCONNECTED, limit, deviceId, from, to), cursor, response);
     }
 
     @GetMapping(path = "/failed/wifi")
-    public List<Event> getDisconnectedWifiEvents(@RequestParam(defaultValue = "0") int limit) {
-        List<Event> events;
-        try {
-            events = eventDao.getDisconnectedWifiEvents(limit);
-        } catch (DaoException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+    public List<Event> getDisconnectedWifiEvents(@RequestParam(defaultValue = "0") int limit,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) String deviceId,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                 ServletWebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(eventsVersion.getETag())) {
+            return null;
         }
-        return events;
+        return getEventPage(newQuery(EventQuery.Status.WIFI_DISCONNECTED, limit, deviceId, from, to), cursor, response);
     }
 
     @GetMapping(path = "/failed/internet")
-    public List<Event> getDisconnectedInternetEvents(@RequestParam(defaultValue = "0") int limit) {
-        List<Event> events;
-        try {
-            events = eventDao.getDisconnectedInternetEvents(limit);
-        } catch (DaoException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+    public List<Event> getDisconnectedInternetEvents(@RequestParam(defaultValue = "0") int limit,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) String deviceId,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                     ServletWebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(eventsVersion.getETag())) {
+            return null;
         }
-        return events;
+        return getEventPage(newQuery(EventQuery.Status.INTERNET_DISCONNECTED, limit, deviceId, from, to), cursor, response);
     }
 
-    @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    public Event log(@Valid @RequestBody Event eventToCreate) {
+    public ResponseEntity<Event> log(@Valid @RequestBody Event eventToCreate) {
+        if (ingestQueue != null) {
+            return ResponseEntity.accepted().body(enqueue(List.of(eventToCreate)).get(0));
+        }
         Event createdEvent;
+        Event storedEvent = null;
         try {
             createdEvent = eventDao.createEvent(eventToCreate);
+            if (createdEvent == null && eventToCreate.getSequence() != null) {
+                // a resend of an event already logged: nothing changed, so the stored event is answered as it is
+                String deviceId = eventToCreate.getDeviceId() != null ? eventToCreate.getDeviceId() : Event.DEFAULT_DEVICE_ID;
+                storedEvent = eventDao.getEventBySequence(deviceId, eventToCreate.getSequence(), eventToCreate.getEventTime());
+            }
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
         }
         if (createdEvent != null) {
-            return createdEvent;
+            eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, List.of(createdEvent)));
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdEvent);
+        } else if (storedEvent != null) {
+            return ResponseEntity.ok(storedEvent);
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unable to log event.");
         }
     }
 
-    @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(path = "/multiple")
-    public List<Event> logMultiple(@RequestBody Event[] eventsToCreate) {
+    public ResponseEntity<List<Event>> logMultiple(@RequestBody List<@Valid Event> eventsToCreate) {
+        if (ingestQueue != null) {
+            return ResponseEntity.accepted().body(enqueue(eventsToCreate));
+        }
         List<Event> createdEvents;
         try {
-            createdEvents = eventDao.createMultipleEvents(eventsToCreate);
+            createdEvents = eventDao.createMultipleEvents(eventsToCreate.toArray(new Event[0]));
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
         }
         if (createdEvents != null) {
-            return createdEvents;
+            if (!createdEvents.isEmpty()) {
+                eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, createdEvents));
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdEvents);
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unable to log events.");
         }
@@ -109,8 +207,9 @@ public class EventController {
     @PutMapping(path = "/{id}")
     public Event updateEvent(@Valid @RequestBody Event eventToUpdate, @PathVariable int id) {
         eventToUpdate.setEventId(id);
+        Event updatedEvent;
         try {
-            return eventDao.updateEvent(eventToUpdate);
+            updatedEvent = eventDao.updateEvent(eventToUpdate);
         } catch (DaoException e) {
             if (e.getMessage().equals("Zero rows affected, expected at least one.")) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event (eventId: " + id + ") not found.");
@@ -118,6 +217,8 @@ public class EventController {
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
             }
         }
+        eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.UPDATED, 1));
+        return updatedEvent;
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -128,6 +229,105 @@ public class EventController {
             if (rowsDeleted == 0) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event (eventId: " + id + ") not found.");
             }
+            eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.DELETED, rowsDeleted));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+
+    private EventQuery.Status streamStatus(String status) {
+        switch (status) {
+            case "any":
+                return EventQuery.Status.ANY;
+            case "failed":
+                return EventQuery.Status.DISCONNECTED;
+            case "wifi":
+                return EventQuery.Status.WIFI_DISCONNECTED;
+            case "internet":
+                return EventQuery.Status.INTERNET_DISCONNECTED;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status: " + status);
+        }
+    }
+
+    /**
+     * Hands events to the ingest queue, which assigns their ids and writes them to the database in the background.
+     */
+    private List<Event> enqueue(List<Event> events) {
+        try {
+            return ingestQueue.accept(events);
+        } catch (IngestQueueFullException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the query shared by the event listings. Without a deviceId it covers every device, and from and to
+     * narrow it to events logged in [from, to).
+     */
+    private EventQuery newQuery(EventQuery.Status status, int limit, String deviceId, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+        EventQuery query = new EventQuery(status, limit);
+        query.setDeviceId(deviceId);
+        query.setFrom(from);
+        query.setTo(to);
+        // the response is tagged with the events version, so it must not come from a replica missing a change
+        query.setConsistent(true);
+        return query;
+    }
+
+    /**
+     * Reads one page of events. When the page is full, the cursor for the following page is returned in the
+     * X-Next-Cursor header; clients pass it back as the cursor parameter to keep paging.
+     */
+    private List<Event> getEventPage(EventQuery query, String cursor, HttpServletResponse response) {
+        int limit = query.getLimit();
+        if (cursor != null) {
+            if (limit <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A limit is required when paging with a cursor.");
+            }
+            try {
+                query.setAfter(EventCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+            }
+        }
+        List<Event> events;
+        try {
+            events = eventDao.getEvents(query);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+        if (limit > 0 && events.size() == limit) {
+            response.setHeader(NEXT_CURSOR_HEADER, EventCursor.after(events.get(events.size() - 1)).encode());
+        }
+        return events;
+    }
+
+    /**
+     * Writes every event matching the query straight from the database cursor to the response as a JSON array,
+     * so the full table is never held in memory.
+     */
+    private void streamEvents(EventQuery query, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Consumer<Event> writeEvent = event -> {
+                try {
+                    eventWriter.writeValue(generator, event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            // the query rather than streamAllEvents even when nothing is filtered, so the listing stays consistent
+            // with the ETag it is sent under
+            eventDao.streamEvents(query, writeEvent);
+            generator.writeEndArray();
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
         }
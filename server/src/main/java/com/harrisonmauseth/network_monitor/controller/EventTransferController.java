@@ -0,0 +1,122 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.harrisonmauseth.network_monitor.dao.EventTransferDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.exception.InvalidImportException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import com.harrisonmauseth.network_monitor.model.EventImportResult;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventImportReader;
+import com.harrisonmauseth.network_monitor.service.EventsChangedEvent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Bulk import and export of events as CSV or NDJSON, streamed between the request and the database with COPY so
+ * neither side of a transfer is held in memory. Useful for backfilling events logged elsewhere and for moving a log
+ * from one server to another.
+ */
+@RestController
+@CrossOrigin
+@RequestMapping("/api/events")
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class EventTransferController {
+    private final EventTransferDao transferDao;
+    private final ObjectReader eventReader;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventTransferController(EventTransferDao transferDao, ObjectMapper objectMapper, Validator validator,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.transferDao = transferDao;
+        this.eventReader = objectMapper.readerFor(Event.class);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds the events in the request body, CSV or NDJSON by its Content-Type. The import is all or nothing: the first
+     * invalid line is answered with 400 naming it, and no events are added. Events already stored, by device,
+     * sequence and eventTime, are skipped.
+     */
+    @PostMapping(path = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public EventImportResult importEvents(HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        EventFormat format = contentType.isCompatibleWith(MediaType.parseMediaType(EventFormat.CSV.getMediaType())) ? EventFormat.CSV : EventFormat.NDJSON;
+        Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+        EventImportResult result;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset))) {
+            result = transferDao.importEvents(new EventImportReader(reader, format, eventReader, validator));
+        } catch (InvalidImportException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+        if (result.getImported() > 0) {
+            eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.IMPORTED, result.getImported()));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the events in the database as a csv (the default) or ndjson download, oldest first. deviceId narrows it
+     * to one monitor, and from and to to events logged in [from, to). Archived events are not included.
+     */
+    @GetMapping(path = "/export")
+    public void exportEvents(@RequestParam(defaultValue = "csv") String format,
+                             @RequestParam(required = false) String deviceId,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             HttpServletResponse response) throws IOException {
+        EventFormat eventFormat;
+        try {
+            eventFormat = EventFormat.fromCode(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid format: " + format);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setDeviceId(deviceId);
+        query.setFrom(from);
+        query.setTo(to);
+        response.setContentType(eventFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events." + eventFormat.name().toLowerCase(Locale.ROOT) + "\"");
+        try {
+            transferDao.exportEvents(query, eventFormat, response.getOutputStream());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+}
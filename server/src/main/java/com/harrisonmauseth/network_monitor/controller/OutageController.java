@@ -0,0 +1,53 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.harrisonmauseth.network_monitor.dao.OutageDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Outage;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api/outages")
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class OutageController {
+    private final OutageDao outageDao;
+
+    public OutageController(OutageDao outageDao) {
+        this.outageDao = outageDao;
+    }
+
+    @GetMapping
+    public List<Outage> getOutages(@RequestParam(required = false) String deviceId,
+                                   @RequestParam(required = false) String type,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OutageType outageType = null;
+        if (type != null) {
+            try {
+                outageType = OutageType.fromCode(type);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid outage type: " + type);
+            }
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to.");
+        }
+        try {
+            return outageDao.getOutages(deviceId, outageType, from, to);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.harrisonmauseth.network_monitor.dao.StatsDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Availability;
+import com.harrisonmauseth.network_monitor.model.EventSummary;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import com.harrisonmauseth.network_monitor.model.SummaryResolution;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api/stats")
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class StatsController {
+    // the number of buckets returned when no start time is given
+    private static final int DEFAULT_BUCKETS = 60;
+    // keeps a single availability request from asking for an unbounded series
+    private static final int MAX_AVAILABILITY_BUCKETS = 10_000;
+    private final StatsDao statsDao;
+
+    public StatsController(StatsDao statsDao) {
+        this.statsDao = statsDao;
+    }
+
+    @GetMapping
+    public List<EventSummary> getSummaries(@RequestParam(defaultValue = "hour") String resolution,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        SummaryResolution summaryResolution = parseResolution(resolution);
+        if (to == null) {
+            to = LocalDateTime.now(ZoneOffset.UTC);
+        }
+        if (from == null) {
+            from = to.minus(summaryResolution.getBucketSize().multipliedBy(DEFAULT_BUCKETS));
+        }
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+        try {
+            return statsDao.getSummaries(summaryResolution, from, to);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/availability")
+    public List<Availability> getAvailability(@RequestParam(defaultValue = "day") String bucket,
+                                              @RequestParam(defaultValue = "internet") String type,
+                                              @RequestParam(required = false) String deviceId,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        SummaryResolution resolution = parseResolution(bucket);
+        OutageType outageType;
+        try {
+            outageType = OutageType.fromCode(type);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid outage type: " + type);
+        }
+        if (to == null) {
+            to = LocalDateTime.now(ZoneOffset.UTC);
+        }
+        if (from == null) {
+            from = to.minus(resolution.getBucketSize().multipliedBy(DEFAULT_BUCKETS));
+        }
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+        if (Duration.between(from, to).dividedBy(resolution.getBucketSize()) >= MAX_AVAILABILITY_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The range spans more than " + MAX_AVAILABILITY_BUCKETS + " buckets; use a larger bucket or a shorter range.");
+        }
+        try {
+            return statsDao.getAvailability(resolution, outageType, deviceId, from, to);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Server error: " + e.getMessage());
+        }
+    }
+
+    private SummaryResolution parseResolution(String resolution) {
+        try {
+            return SummaryResolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Resolution must be one of minute, hour, day or week.");
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.CacheStats;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the most recent events in memory in front of the event store ({@link JdbcEventDao} or
+ * {@link SegmentLogEventDao}, see {@code events.storage.engine}), so dashboards polling the newest page
+ * of events (or of failures) do not query the database every time.
+ * <p>
+ * The cache is an immutable, sorted snapshot of the newest events that is swapped atomically on every change, so
+ * reads never lock and never see a half-applied write. The snapshot is always exactly the newest rows of the
+ * table: an update or delete that pushes an event out of it shrinks the snapshot rather than leaving a hole, and
+ * the next read that needs more than the snapshot holds reloads it. Reads that cannot be answered from the
+ * snapshot, like unlimited listings or pages deeper than the cache, go straight to the database. The snapshot
+ * holds the newest events across all devices, so a device's page is answered from it only when that device has
+ * logged enough of the newest events to fill the page.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "events.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingEventDao implements EventDao {
+    private static final Logger log = LoggerFactory.getLogger(CachingEventDao.class);
+    private static final Comparator<Event> NEWEST_FIRST = Comparator.comparing(Event::getEventTime)
+            .thenComparingInt(Event::getEventId).reversed();
+    private static final Snapshot COLD = new Snapshot(new Event[0], false, false);
+
+    private final EventDao delegate;
+    private final int capacity;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(COLD);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingEventDao(@Qualifier("eventStore") EventDao delegate,
+                           @Value("${events.cache.size:500}") int capacity) {
+        this.delegate = delegate;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+            log.info("Cached the {} most recent events", snapshot.get().events.length);
+        } catch (RuntimeException e) {
+            log.warn("Unable to fill the event cache, reads will go to the database until it can be: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rows removed outside this DAO, like pruned or detached partitions, or added by a bulk import, cannot be tracked
+     * event by event, so the snapshot is dropped and rebuilt on the next read.
+     */
+    @EventListener
+    public void onEventsChanged(EventsChangedEvent event) {
+        if (event.getChange() == EventsChangedEvent.Change.PRUNED || event.getChange() == EventsChangedEvent.Change.IMPORTED) {
+            snapshot.set(COLD);
+        }
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(capacity, snapshot.get().events.length, hits.sum(), misses.sum());
+    }
+
+    @Override
+    public List<Event> getAllEvents() {
+        return delegate.getAllEvents();
+    }
+
+    @Override
+    public void streamAllEvents(Consumer<Event> eventConsumer) {
+        delegate.streamAllEvents(eventConsumer);
+    }
+
+    @Override
+    public void streamEvents(EventQuery query, Consumer<Event> eventConsumer) {
+        delegate.streamEvents(query, eventConsumer);
+    }
+
+    @Override
+    public List<Event> getAllEventsLimited(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.ANY, limit));
+    }
+
+    @Override
+    public List<Event> getAllDisconnectedEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedWifiEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedInternetEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.INTERNET_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getEvents(EventQuery query) {
+        Snapshot current = snapshot.get();
+        List<Event> events = current.find(query);
+        if (events == null && query.getLimit() > 0 && current.isShort(capacity)) {
+            events = reload().find(query);
+        }
+        if (events != null) {
+            hits.increment();
+            return events;
+        }
+        misses.increment();
+        return delegate.getEvents(query);
+    }
+
+    @Override
+    public List<String> getDeviceIds() {
+        return delegate.getDeviceIds();
+    }
+
+    @Override
+    public Event getEventById(int id) {
+        return delegate.getEventById(id);
+    }
+
+    @Override
+    public Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        return delegate.getEventBySequence(deviceId, sequence, eventTime);
+    }
+
+    @Override
+    public Event createEvent(Event eventToCreate) {
+        Event createdEvent = delegate.createEvent(eventToCreate);
+        if (createdEvent != null) {
+            apply(current -> current.with(createdEvent, capacity));
+        }
+        return createdEvent;
+    }
+
+    @Override
+    public List<Event> createMultipleEvents(Event[] events) {
+        List<Event> createdEvents = delegate.createMultipleEvents(events);
+        if (createdEvents != null && !createdEvents.isEmpty()) {
+            apply(current -> {
+                Snapshot next = current;
+                for (Event event : createdEvents) {
+                    next = next.with(event, capacity);
+                }
+                return next;
+            });
+        }
+        return createdEvents;
+    }
+
+    @Override
+    public List<Integer> reserveEventIds(int count) {
+        return delegate.reserveEventIds(count);
+    }
+
+    @Override
+    public List<Event> createEventsWithIds(List<Event> events) {
+        List<Event> createdEvents = delegate.createEventsWithIds(events);
+        if (!createdEvents.isEmpty()) {
+            apply(current -> {
+                Snapshot next = current;
+                for (Event event : createdEvents) {
+                    next = next.with(event, capacity);
+                }
+                return next;
+            });
+        }
+        return createdEvents;
+    }
+
+    @Override
+    public Event updateEvent(Event eventToUpdate) {
+        Event updatedEvent = delegate.updateEvent(eventToUpdate);
+        if (updatedEvent != null) {
+            apply(current -> current.without(updatedEvent.getEventId()).with(updatedEvent, capacity));
+        }
+        return updatedEvent;
+    }
+
+    @Override
+    public int deleteEvent(int eventId) {
+        int rowsDeleted = delegate.deleteEvent(eventId);
+        if (rowsDeleted > 0) {
+            apply(current -> current.without(eventId));
+        }
+        return rowsDeleted;
+    }
+
+    /**
+     * Every write swaps in a new snapshot object, even when the written event falls outside the cache, so a reload
+     * that read the table before the write can tell it has been overtaken.
+     */
+    private void apply(UnaryOperator<Snapshot> change) {
+        snapshot.updateAndGet(current -> {
+            Snapshot next = current.loaded ? change.apply(current) : current;
+            return next == current ? new Snapshot(current.events, current.complete, current.loaded) : next;
+        });
+    }
+
+    /**
+     * Read the newest rows from the database and install them as the snapshot. If a write lands while the rows
+     * are being read, the snapshot it produced is kept and the rows read here are only used for the current request.
+     */
+    private Snapshot reload() {
+        Snapshot before = snapshot.get();
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, capacity);
+        // writes are applied to the snapshot as they happen, so it has to start from every write made so far
+        query.setConsistent(true);
+        List<Event> newest = delegate.getEvents(query);
+        Event[] events = newest.stream().map(CachingEventDao::copyOf).toArray(Event[]::new);
+        Snapshot loaded = new Snapshot(events, events.length < capacity, true);
+        snapshot.compareAndSet(before, loaded);
+        return loaded;
+    }
+
+    private static Event copyOf(Event event) {
+        Event copy = new Event(event.getEventId(), event.getDeviceId(), event.getEventTime(), event.isConnectedToWifi(), event.isConnectedToInternet(), event.getMessage());
+        copy.setSequence(event.getSequence());
+        return copy;
+    }
+
+    /**
+     * The newest events in the table, sorted newest first. When complete is true the snapshot holds every event
+     * in the table, otherwise every event that is not in it sorts after its last entry.
+     */
+    private static final class Snapshot {
+        private final Event[] events;
+        private final boolean complete;
+        private final boolean loaded;
+
+        private Snapshot(Event[] events, boolean complete, boolean loaded) {
+            this.events = events;
+            this.complete = complete;
+            this.loaded = loaded;
+        }
+
+        /**
+         * @return whether reloading could let the snapshot answer more queries than it does now
+         */
+        private boolean isShort(int capacity) {
+            return !loaded || (!complete && events.length < capacity);
+        }
+
+        /**
+         * @return the events answering the query, or null if the snapshot cannot tell
+         */
+        private List<Event> find(EventQuery query) {
+            // an unlimited read of a snapshot that is not the whole table can still be answered when it only
+            // reaches back to a start time the snapshot covers
+            if (!loaded || (query.getLimit() <= 0 && !complete && query.getFrom() == null)) {
+                return null;
+            }
+            EventCursor after = query.getAfter();
+            List<Event> found = new ArrayList<>(query.getLimit() > 0 ? query.getLimit() : events.length);
+            for (Event event : events) {
+                if (after != null && !isAfter(event, after)) {
+                    continue;
+                }
+                if (query.getFrom() != null && event.getEventTime().isBefore(query.getFrom())) {
+                    // every event left, cached or not, is older still
+                    return found;
+                }
+                if (query.matches(event)) {
+                    found.add(copyOf(event));
+                    if (found.size() == query.getLimit()) {
+                        return found;
+                    }
+                }
+            }
+            return complete ? found : null;
+        }
+
+        private Snapshot with(Event event, int capacity) {
+            int position = Arrays.binarySearch(events, event, NEWEST_FIRST);
+            if (position >= 0) {
+                return without(event.getEventId()).with(event, capacity);
+            }
+            int insertAt = -position - 1;
+            if (insertAt == events.length && !complete) {
+                // older than everything cached, and the rows between it and the snapshot are unknown
+                return this;
+            }
+            boolean full = events.length == capacity;
+            if (full && insertAt == capacity) {
+                // the table now holds more rows than fit, so the snapshot no longer has all of them
+                return complete ? new Snapshot(events, false, true) : this;
+            }
+            Event[] next = new Event[full ? capacity : events.length + 1];
+            System.arraycopy(events, 0, next, 0, insertAt);
+            next[insertAt] = copyOf(event);
+            System.arraycopy(events, insertAt, next, insertAt + 1, next.length - insertAt - 1);
+            return new Snapshot(next, complete && !full, true);
+        }
+
+        private Snapshot without(int eventId) {
+            for (int i = 0; i < events.length; i++) {
+                if (events[i].getEventId() == eventId) {
+                    Event[] next = new Event[events.length - 1];
+                    System.arraycopy(events, 0, next, 0, i);
+                    System.arraycopy(events, i + 1, next, i, next.length - i);
+                    return new Snapshot(next, complete, true);
+                }
+            }
+            return this;
+        }
+
+        private static boolean isAfter(Event event, EventCursor cursor) {
+            int byTime = event.getEventTime().compareTo(cursor.getEventTime());
+            return byTime < 0 || (byTime == 0 && event.getEventId() < cursor.getEventId());
+        }
+    }
+}
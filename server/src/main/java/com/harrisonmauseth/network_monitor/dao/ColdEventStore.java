@@ -0,0 +1,265 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The cold tier of the events table: events moved out of PostgreSQL by {@link JdbcEventArchiveDao}, kept in one
+ * compressed columnar file per day (see {@link ColumnarEventFile}) under events.archive.directory. The header of
+ * every file is read when the store opens, so queries can tell which days they need to decode without touching the
+ * rest, and {@link JdbcEventDao} merges what they find with the rows still in the database.
+ * <p>
+ * Archived events are read-only. A day that is archived again, because rows for it reached the database late or an
+ * earlier run failed before deleting its rows, is rewritten with the old and new events together and replaces the old
+ * file in a single rename.
+ */
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class ColdEventStore {
+    private static final Logger log = LoggerFactory.getLogger(ColdEventStore.class);
+    private static final Pattern FILE_NAME = Pattern.compile("events-(\\d{4}-\\d{2}-\\d{2})\\.col");
+    private static final Comparator<Event> NEWEST_FIRST = Comparator.comparing(Event::getEventTime)
+            .thenComparingInt(Event::getEventId).reversed();
+
+    private final Path directory;
+    // newest day first, the order reads walk them in
+    private final NavigableMap<LocalDate, ColumnarEventFile.Summary> days = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    public ColdEventStore(@Value("${events.archive.directory:event-archive}") Path directory) throws IOException {
+        this.directory = directory;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    days.put(LocalDate.parse(matcher.group(1)), ColumnarEventFile.readSummary(file));
+                } else if (file.getFileName().toString().endsWith(".tmp")) {
+                    // left by an archive run that stopped before its rename
+                    Files.delete(file);
+                }
+            }
+        }
+        log.info("Opened the event archive in {} with {} events in {} days", directory.toAbsolutePath(),
+                days.values().stream().mapToLong(ColumnarEventFile.Summary::rows).sum(), days.size());
+    }
+
+    public boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    /**
+     * @return whether events of the UTC day have been archived
+     */
+    public boolean isArchived(LocalDate day) {
+        return days.containsKey(day);
+    }
+
+    /**
+     * @return the time of the newest archived event, or null when nothing is archived
+     */
+    public LocalDateTime getNewestEventTime() {
+        return days.isEmpty() ? null : days.firstEntry().getValue().maxTime();
+    }
+
+    /**
+     * @return whether any archived day can hold events matching the query's device, time range and cursor
+     */
+    public boolean mayContain(EventQuery query) {
+        for (ColumnarEventFile.Summary summary : days.values()) {
+            if (mayContain(summary, query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the archived events matching the query, newest first, without its limit. Days are decoded one at a time as
+     * the iterator reaches them, so a caller that stops early only pays for the days it read.
+     */
+    public Iterator<Event> read(EventQuery query) {
+        List<Map.Entry<LocalDate, ColumnarEventFile.Summary>> candidates = new ArrayList<>();
+        for (Map.Entry<LocalDate, ColumnarEventFile.Summary> day : days.entrySet()) {
+            if (mayContain(day.getValue(), query)) {
+                candidates.add(day);
+            }
+        }
+        Iterator<Map.Entry<LocalDate, ColumnarEventFile.Summary>> remainingDays = candidates.iterator();
+        return new Iterator<>() {
+            private Iterator<Event> current = Collections.emptyIterator();
+            private Event next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (current.hasNext()) {
+                        Event event = current.next();
+                        if (query.matches(event) && isAfterCursor(event, query.getAfter())) {
+                            next = event;
+                        }
+                    } else if (remainingDays.hasNext()) {
+                        current = readDay(remainingDays.next().getKey()).iterator();
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Event event = next;
+                next = null;
+                return event;
+            }
+        };
+    }
+
+    /**
+     * @return the archived event with the id, or null if none is archived
+     */
+    public Event getEventById(int id) {
+        for (Map.Entry<LocalDate, ColumnarEventFile.Summary> day : days.entrySet()) {
+            if (id >= day.getValue().minId() && id <= day.getValue().maxId()) {
+                for (Event event : readDay(day.getKey())) {
+                    if (event.getEventId() == id) {
+                        return event;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    public Set<String> getDeviceIds() {
+        Set<String> deviceIds = new TreeSet<>();
+        for (ColumnarEventFile.Summary summary : days.values()) {
+            deviceIds.addAll(summary.deviceIds());
+        }
+        return deviceIds;
+    }
+
+    /**
+     * Add events to a day's file, creating it if needed. Events already in the file are replaced by the given copy
+     * with the same id. The file is complete on disk before this returns, so the caller can delete the rows it came from.
+     *
+     * @param day    the UTC day every event belongs to
+     * @param events the events to add
+     */
+    public void archive(LocalDate day, List<Event> events) {
+        Path file = directory.resolve("events-" + day + ".col");
+        Path temporary = directory.resolve("events-" + day + ".col.tmp");
+        try {
+            Map<Integer, Event> merged = new HashMap<>();
+            if (days.containsKey(day)) {
+                for (Event event : ColumnarEventFile.read(file)) {
+                    merged.put(event.getEventId(), event);
+                }
+            }
+            for (Event event : events) {
+                merged.put(event.getEventId(), event);
+            }
+            if (merged.isEmpty()) {
+                return;
+            }
+            List<Event> sorted = new ArrayList<>(merged.values());
+            sorted.sort(NEWEST_FIRST);
+            Files.createDirectories(directory);
+            Files.deleteIfExists(temporary);
+            ColumnarEventFile.write(temporary, sorted);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            days.put(day, ColumnarEventFile.readSummary(file));
+        } catch (IOException e) {
+            throw new DaoException("Unable to write the event archive.", e);
+        }
+    }
+
+    private List<Event> readDay(LocalDate day) {
+        try {
+            return ColumnarEventFile.read(directory.resolve("events-" + day + ".col"));
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            throw new DaoException("Unable to read the event archive.", e);
+        }
+    }
+
+    private static boolean mayContain(ColumnarEventFile.Summary summary, EventQuery query) {
+        if (query.getDeviceId() != null && !summary.deviceIds().contains(query.getDeviceId())) {
+            return false;
+        }
+        if (query.getFrom() != null && summary.maxTime().isBefore(query.getFrom())) {
+            return false;
+        }
+        if (query.getTo() != null && !summary.minTime().isBefore(query.getTo())) {
+            return false;
+        }
+        // the failure counts let the /failed listings pass over the days without failures, usually nearly all of them
+        if (query.getStatus() != null) {
+            switch (query.getStatus()) {
+                case DISCONNECTED:
+                    if (summary.wifiDownRows() == 0 && summary.internetDownRows() == 0) {
+                        return false;
+                    }
+                    break;
+                case WIFI_DISCONNECTED:
+                    if (summary.wifiDownRows() == 0) {
+                        return false;
+                    }
+                    break;
+                case INTERNET_DISCONNECTED:
+                    if (summary.internetDownRows() == 0) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        EventCursor after = query.getAfter();
+        return after == null || !summary.minTime().isAfter(after.getEventTime());
+    }
+
+    private static boolean isAfterCursor(Event event, EventCursor after) {
+        if (after == null) {
+            return true;
+        }
+        int byTime = event.getEventTime().compareTo(after.getEventTime());
+        return byTime < 0 || (byTime == 0 && event.getEventId() < after.getEventId());
+    }
+}
@@ -0,0 +1,317 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads and writes one file of archived events for the {@link ColdEventStore}. The events are stored newest first,
+ * the order they are read in, one column after the other:
+ * <ul>
+ *     <li>eventTime and eventId as the difference from the previous row, so a day of 30 second heartbeats costs a
+ *     byte or two per row;</li>
+ *     <li>the Wi-Fi and internet flags as runs of the same value, so a day without failures is a single run;</li>
+ *     <li>deviceId and message as indexes into a dictionary of the distinct values;</li>
+ *     <li>sequence as the difference from the same device's previous sequence, after a run-length encoded column
+ *     saying which rows have one.</li>
+ * </ul>
+ * The columns are deflated together. They follow a small uncompressed header with the row count, the time and id
+ * ranges, how many rows have Wi-Fi or internet down and the devices in the file, so the store can index a directory
+ * of files, and skip the days a device or status filter cannot match, without decoding them. Files written before
+ * the failure counts were added have the first version's magic and are read as if every row could be a failure.
+ * Numbers in the columns are zigzag varints.
+ */
+final class ColumnarEventFile {
+    private static final int MAGIC_WITHOUT_FAILURE_COUNTS = 0x4E4D4331;
+    private static final int MAGIC = 0x4E4D4332;
+
+    private ColumnarEventFile() {
+    }
+
+    /**
+     * What the header says about a file.
+     */
+    record Summary(int rows, LocalDateTime minTime, LocalDateTime maxTime, int minId, int maxId,
+                   int wifiDownRows, int internetDownRows, List<String> deviceIds) {
+    }
+
+    /**
+     * Write events, which must be sorted newest first, to a new file and force it to disk.
+     */
+    static void write(Path path, List<Event> events) throws IOException {
+        Map<String, Integer> devices = new HashMap<>();
+        List<String> deviceIds = new ArrayList<>();
+        Map<String, Integer> messages = new HashMap<>();
+        List<String> messageValues = new ArrayList<>();
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        int wifiDownRows = 0;
+        int internetDownRows = 0;
+        for (Event event : events) {
+            devices.computeIfAbsent(event.getDeviceId(), deviceId -> {
+                deviceIds.add(deviceId);
+                return deviceIds.size() - 1;
+            });
+            if (event.getMessage() != null) {
+                messages.computeIfAbsent(event.getMessage(), message -> {
+                    messageValues.add(message);
+                    return messageValues.size();
+                });
+            }
+            long time = toMicros(event.getEventTime());
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            minId = Math.min(minId, event.getEventId());
+            maxId = Math.max(maxId, event.getEventId());
+            wifiDownRows += event.isConnectedToWifi() ? 0 : 1;
+            internetDownRows += event.isConnectedToInternet() ? 0 : 1;
+        }
+
+        ByteArrayOutputStream columns = new ByteArrayOutputStream(events.size() * 4 + 64);
+        long previous = 0;
+        for (Event event : events) {
+            long time = toMicros(event.getEventTime());
+            writeVarLong(columns, time - previous);
+            previous = time;
+        }
+        previous = 0;
+        for (Event event : events) {
+            writeVarLong(columns, event.getEventId() - previous);
+            previous = event.getEventId();
+        }
+        writeRuns(columns, events, Event::isConnectedToWifi);
+        writeRuns(columns, events, Event::isConnectedToInternet);
+        for (Event event : events) {
+            writeVarLong(columns, devices.get(event.getDeviceId()));
+        }
+        writeVarLong(columns, messageValues.size());
+        for (String message : messageValues) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(columns, bytes.length);
+            columns.writeBytes(bytes);
+        }
+        for (Event event : events) {
+            writeVarLong(columns, event.getMessage() != null ? messages.get(event.getMessage()) : 0);
+        }
+        writeRuns(columns, events, event -> event.getSequence() != null);
+        long[] previousSequence = new long[deviceIds.size()];
+        for (Event event : events) {
+            if (event.getSequence() != null) {
+                int device = devices.get(event.getDeviceId());
+                writeVarLong(columns, event.getSequence() - previousSequence[device]);
+                previousSequence[device] = event.getSequence();
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(MAGIC);
+            out.writeInt(events.size());
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            out.writeInt(minId);
+            out.writeInt(maxId);
+            out.writeInt(wifiDownRows);
+            out.writeInt(internetDownRows);
+            out.writeInt(deviceIds.size());
+            for (String deviceId : deviceIds) {
+                out.writeUTF(deviceId);
+            }
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater);
+                columns.writeTo(deflated);
+                deflated.finish();
+            } finally {
+                deflater.end();
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    static Summary readSummary(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * Read every event in a file, newest first.
+     */
+    static List<Event> read(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            Summary summary = readHeader(in);
+            try (InflaterInputStream columns = new InflaterInputStream(in)) {
+                return readColumns(columns, summary);
+            }
+        }
+    }
+
+    private static List<Event> readColumns(InputStream columns, Summary summary) throws IOException {
+        int rows = summary.rows();
+        List<Event> events = new ArrayList<>(rows);
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += readVarLong(columns);
+            Event event = new Event();
+            event.setEventTime(fromMicros(previous));
+            events.add(event);
+        }
+        previous = 0;
+        for (Event event : events) {
+            previous += readVarLong(columns);
+            event.setEventId((int) previous);
+        }
+        boolean[] values = readRuns(columns, rows);
+        for (int i = 0; i < rows; i++) {
+            events.get(i).setConnectedToWifi(values[i]);
+        }
+        values = readRuns(columns, rows);
+        for (int i = 0; i < rows; i++) {
+            events.get(i).setConnectedToInternet(values[i]);
+        }
+        List<String> deviceIds = summary.deviceIds();
+        int[] devices = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            devices[i] = (int) readVarLong(columns);
+            events.get(i).setDeviceId(deviceIds.get(devices[i]));
+        }
+        String[] messages = new String[(int) readVarLong(columns) + 1];
+        for (int i = 1; i < messages.length; i++) {
+            messages[i] = new String(columns.readNBytes((int) readVarLong(columns)), StandardCharsets.UTF_8);
+        }
+        for (Event event : events) {
+            event.setMessage(messages[(int) readVarLong(columns)]);
+        }
+        values = readRuns(columns, rows);
+        long[] previousSequence = new long[deviceIds.size()];
+        for (int i = 0; i < rows; i++) {
+            if (values[i]) {
+                previousSequence[devices[i]] += readVarLong(columns);
+                events.get(i).setSequence(previousSequence[devices[i]]);
+            }
+        }
+        return events;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ))));
+    }
+
+    private static Summary readHeader(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC && magic != MAGIC_WITHOUT_FAILURE_COUNTS) {
+            throw new IOException("Not an archived events file.");
+        }
+        int rows = in.readInt();
+        LocalDateTime minTime = fromMicros(in.readLong());
+        LocalDateTime maxTime = fromMicros(in.readLong());
+        int minId = in.readInt();
+        int maxId = in.readInt();
+        int wifiDownRows = magic == MAGIC ? in.readInt() : rows;
+        int internetDownRows = magic == MAGIC ? in.readInt() : rows;
+        int devices = in.readInt();
+        List<String> deviceIds = new ArrayList<>(devices);
+        for (int i = 0; i < devices; i++) {
+            deviceIds.add(in.readUTF());
+        }
+        return new Summary(rows, minTime, maxTime, minId, maxId, wifiDownRows, internetDownRows, deviceIds);
+    }
+
+    /**
+     * A flag column as its first value followed by the length of each run, the value flipping between runs.
+     */
+    private static void writeRuns(ByteArrayOutputStream out, List<Event> events, Predicate<Event> flag) {
+        if (events.isEmpty()) {
+            return;
+        }
+        boolean value = flag.test(events.get(0));
+        out.write(value ? 1 : 0);
+        int run = 0;
+        for (Event event : events) {
+            if (flag.test(event) != value) {
+                writeVarLong(out, run);
+                value = !value;
+                run = 0;
+            }
+            run++;
+        }
+        writeVarLong(out, run);
+    }
+
+    private static boolean[] readRuns(InputStream in, int rows) throws IOException {
+        boolean[] values = new boolean[rows];
+        if (rows == 0) {
+            return values;
+        }
+        boolean value = readByte(in) == 1;
+        for (int i = 0; i < rows; value = !value) {
+            int end = i + (int) readVarLong(in);
+            for (; i < end; i++) {
+                values[i] = value;
+            }
+        }
+        return values;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readByte(in);
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Archived events file is truncated.");
+        }
+        return b;
+    }
+}
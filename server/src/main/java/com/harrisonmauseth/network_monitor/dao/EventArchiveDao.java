@@ -0,0 +1,25 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface EventArchiveDao {
+
+    /**
+     * Get the day of the oldest event before the cutoff that can be archived. Only events that every background job
+     * has already processed can be archived, so the rollups and outages never miss an event.
+     *
+     * @param cutoff the time before which events are archived
+     * @return the UTC day of the oldest such event, or null if there is none
+     */
+    LocalDate getOldestDayToArchive(LocalDateTime cutoff);
+
+    /**
+     * Move a day's events out of the events table into the {@link ColdEventStore}. The day's file is written before
+     * the rows are deleted, and both happen in a single transaction with the rows locked.
+     *
+     * @param day the UTC day to archive
+     * @return the number of events moved
+     */
+    int archiveDay(LocalDate day);
+}
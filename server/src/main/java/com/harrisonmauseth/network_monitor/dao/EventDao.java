@@ -1,8 +1,11 @@
 package com.harrisonmauseth.network_monitor.dao;
 
 import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface EventDao {
 
@@ -13,6 +16,23 @@ public interface EventDao {
      */
     List<Event> getAllEvents();
 
+    /**
+     * Stream all events from the database, sorted with the most recent time first. Rows are read through a
+     * cursor and handed to the consumer one at a time, so memory use does not grow with the size of the table.
+     *
+     * @param eventConsumer the callback that receives each event
+     */
+    void streamAllEvents(Consumer<Event> eventConsumer);
+
+    /**
+     * Stream the events matching the query, sorted with the most recent time first, through a cursor like
+     * {@link #streamAllEvents(Consumer)}.
+     *
+     * @param query         the connection filter, device, limit and optional cursor to read
+     * @param eventConsumer the callback that receives each event
+     */
+    void streamEvents(EventQuery query, Consumer<Event> eventConsumer);
+
     /**
      * Get all events from the database, limited by the number passed in, sorted with the most recent time first.
      *
@@ -45,6 +65,23 @@ public interface EventDao {
      */
     List<Event> getDisconnectedInternetEvents(int limit);
 
+    /**
+     * Get a page of events matching the query, sorted with the most recent time first (ties broken by eventId).
+     * When the query has a cursor, only events after that position are returned, so paging through the results
+     * with the cursor of each page's last event costs the same no matter how deep the client goes.
+     *
+     * @param query the connection filter, device, limit and optional cursor to read
+     * @return a list of matching events
+     */
+    List<Event> getEvents(EventQuery query);
+
+    /**
+     * Get the id of every device that has logged an event.
+     *
+     * @return the device ids in alphabetical order
+     */
+    List<String> getDeviceIds();
+
     /**
      * Get a specific event from the database.
      *
@@ -54,21 +91,53 @@ public interface EventDao {
     Event getEventById(int id);
 
     /**
-     * Create a new event.
+     * Get the event a device logged with the given sequence and time, the way a resent event is matched.
+     *
+     * @param deviceId  the device that logged the event
+     * @param sequence  the sequence the device gave it
+     * @param eventTime the time of the event
+     * @return the stored event, or null if there is none
+     */
+    Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime);
+
+    /**
+     * Create a new event. If the event carries a sequence and its device already logged that sequence at the same
+     * time, nothing is inserted and null is returned; {@link #getEventBySequence} finds the stored event.
      *
      * @param eventToCreate the event you wish to create
-     * @return the created event that returns from the database
+     * @return the created event that returns from the database, or null if it was already logged
      */
     Event createEvent(Event eventToCreate);
 
     /**
-     * Create multiple events from an array of events.
+     * Create multiple events from an array of events in a single transaction. Events are written in
+     * chunks of multi-row inserts, and the created rows are returned in the same order they were given.
+     * Events whose device, sequence and eventTime are already stored are skipped and left out of the result, so a
+     * monitor resending a batch after a lost response does not log it twice.
      *
      * @param events an array of events to create
-     * @return a list of all events that have been created
+     * @return a list of the events that were created
      */
     List<Event> createMultipleEvents(Event[] events);
 
+    /**
+     * Reserve event ids from the events sequence without inserting anything, so events can be given their
+     * final id before they are written.
+     *
+     * @param count the number of ids to reserve
+     * @return the reserved ids in ascending order
+     */
+    List<Integer> reserveEventIds(int count);
+
+    /**
+     * Insert events that already carry an id from {@link #reserveEventIds(int)} in a single transaction.
+     * Events that are already in the database are skipped, so a batch can safely be written more than once.
+     *
+     * @param events the events to insert
+     * @return the events that were inserted
+     */
+    List<Event> createEventsWithIds(List<Event> events);
+
     /**
      * Update an event.
      *
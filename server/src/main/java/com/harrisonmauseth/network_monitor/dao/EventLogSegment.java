@@ -0,0 +1,346 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped file of the {@link SegmentLogEventDao} log. Records are appended and never changed: an updated
+ * event is appended again under the same id, and a deleted one gets a tombstone record.
+ * <p>
+ * Records are grouped in blocks of 64, and the segment keeps a small summary of each block in memory: where the block
+ * starts, the range of event times and ids in it, and one bitmap word each for the records that are Wi-Fi failures,
+ * internet failures and dead (superseded, deleted or not events at all). The time ranges are a sparse index, so a
+ * read only decodes blocks that can hold events in its range, and the failure bitmaps let failure listings skip
+ * blocks without failures and decode only the failing records of the rest.
+ * <p>
+ * Each record is {@code length, crc32, type, eventId} followed, for events, by
+ * {@code eventTime (epoch nanoseconds, UTC), flags, sequence, deviceId, message}. The length is written last, and
+ * on opening the segment is read up to the first record that is incomplete or fails its checksum.
+ * <p>
+ * Not thread safe, {@link SegmentLogEventDao} guards every segment with its lock.
+ */
+final class EventLogSegment implements Closeable {
+    static final byte EVENT = 1;
+    static final byte DELETE = 2;
+    static final byte RESERVE = 3;
+    static final int BLOCK_SIZE = 64;
+    private static final int HEADER_SIZE = 8;
+    private static final int EVENT_FIXED_SIZE = 1 + 4 + 8 + 1 + 8 + 2 + 4;
+    private static final byte WIFI = 1;
+    private static final byte INTERNET = 2;
+    private static final byte HAS_SEQUENCE = 4;
+
+    private final long number;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int records;
+    private int[] blockOffset = new int[16];
+    private long[] minTime = new long[16];
+    private long[] maxTime = new long[16];
+    private int[] minId = new int[16];
+    private int[] maxId = new int[16];
+    private long[] wifiDown = new long[16];
+    private long[] internetDown = new long[16];
+    private long[] dead = new long[16];
+
+    private EventLogSegment(long number, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Open a segment file, creating it if needed, and index the records already in it.
+     */
+    static EventLogSegment open(Path path, long number, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(capacity, channel.size());
+        EventLogSegment segment = new EventLogSegment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segment.recover();
+        return segment;
+    }
+
+    long getNumber() {
+        return number;
+    }
+
+    int getRecordCount() {
+        return records;
+    }
+
+    int getBlockCount() {
+        return (records + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    long getMinTime(int block) {
+        return minTime[block];
+    }
+
+    long getMaxTime(int block) {
+        return maxTime[block];
+    }
+
+    /**
+     * @return a bitmap of the live records in the block that have the given status
+     */
+    long candidates(int block, EventQuery.Status status) {
+        int inBlock = Math.min(BLOCK_SIZE, records - block * BLOCK_SIZE);
+        long live = (inBlock == BLOCK_SIZE ? -1L : (1L << inBlock) - 1) & ~dead[block];
+        switch (status) {
+            case DISCONNECTED:
+                return live & (wifiDown[block] | internetDown[block]);
+            case WIFI_DISCONNECTED:
+                return live & wifiDown[block];
+            case INTERNET_DISCONNECTED:
+                return live & internetDown[block];
+            default:
+                return live;
+        }
+    }
+
+    void markDead(int record) {
+        dead[record / BLOCK_SIZE] |= 1L << (record % BLOCK_SIZE);
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param type  EVENT, DELETE or RESERVE
+     * @param id    the event id the record is about
+     * @param event the event to store, for EVENT records
+     * @return the index of the new record, or -1 if it does not fit in this segment
+     */
+    int append(byte type, int id, Event event) {
+        byte[] deviceId = null;
+        byte[] message = null;
+        int length = 1 + 4;
+        if (type == EVENT) {
+            deviceId = event.getDeviceId().getBytes(StandardCharsets.UTF_8);
+            message = event.getMessage() != null ? event.getMessage().getBytes(StandardCharsets.UTF_8) : null;
+            length = EVENT_FIXED_SIZE + deviceId.length + (message != null ? message.length : 0);
+        }
+        int start = position;
+        if ((long) start + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        int at = start + HEADER_SIZE;
+        buffer.put(at, type);
+        buffer.putInt(at + 1, id);
+        long time = 0;
+        byte flags = 0;
+        if (type == EVENT) {
+            time = toNanos(event.getEventTime());
+            flags = (byte) ((event.isConnectedToWifi() ? WIFI : 0) | (event.isConnectedToInternet() ? INTERNET : 0)
+                    | (event.getSequence() != null ? HAS_SEQUENCE : 0));
+            buffer.putLong(at + 5, time);
+            buffer.put(at + 13, flags);
+            buffer.putLong(at + 14, event.getSequence() != null ? event.getSequence() : 0);
+            buffer.putShort(at + 22, (short) deviceId.length);
+            buffer.put(at + 24, deviceId);
+            int messageAt = at + 24 + deviceId.length;
+            buffer.putInt(messageAt, message != null ? message.length : -1);
+            if (message != null) {
+                buffer.put(messageAt + 4, message);
+            }
+        }
+        buffer.putInt(start + 4, checksum(at, length));
+        buffer.putInt(start, length);
+        position = at + length;
+        return index(start, type, id, time, flags);
+    }
+
+    /**
+     * Decode the records of a block whose bits are set in the given bitmap.
+     *
+     * @return the events, in the order they were appended
+     */
+    List<Event> read(int block, long bitmap) {
+        List<Event> events = new ArrayList<>(Long.bitCount(bitmap));
+        int offset = blockOffset[block];
+        for (int bit = 0; bitmap != 0 && bit < BLOCK_SIZE; bit++) {
+            if ((bitmap & 1L) != 0) {
+                events.add(decode(offset));
+            }
+            bitmap >>>= 1;
+            offset += HEADER_SIZE + buffer.getInt(offset);
+        }
+        return events;
+    }
+
+    Event read(int record) {
+        return decode(offsetOf(record));
+    }
+
+    /**
+     * @return the index of the live record of the event with this id, or -1 if this segment has none
+     */
+    int find(int eventId) {
+        for (int block = getBlockCount() - 1; block >= 0; block--) {
+            if (eventId < minId[block] || eventId > maxId[block]) {
+                continue;
+            }
+            long live = candidates(block, EventQuery.Status.ANY);
+            int offset = blockOffset[block];
+            for (int bit = 0; live != 0 && bit < BLOCK_SIZE; bit++) {
+                if ((live & 1L) != 0 && buffer.getInt(offset + HEADER_SIZE + 1) == eventId) {
+                    return block * BLOCK_SIZE + bit;
+                }
+                live >>>= 1;
+                offset += HEADER_SIZE + buffer.getInt(offset);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Visit every record in the order it was appended, used to rebuild the log's state when it is opened.
+     */
+    void forEachRecord(RecordVisitor visitor) {
+        int offset = 0;
+        for (int record = 0; record < records; record++) {
+            int at = offset + HEADER_SIZE;
+            byte type = buffer.get(at);
+            visitor.visit(record, type, buffer.getInt(at + 1), type == EVENT ? readDeviceId(at) : null);
+            offset = at + buffer.getInt(offset);
+        }
+    }
+
+    void force() {
+        buffer.force(0, position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static long toNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private void recover() {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            int at = offset + HEADER_SIZE;
+            if (length <= 0 || (long) at + length > buffer.capacity() || buffer.getInt(offset + 4) != checksum(at, length)) {
+                // a torn append is cleared so that later appends are not followed by what is left of it
+                int end = (int) Math.min(buffer.capacity(), Math.max(at, (long) at + Math.max(length, 0)));
+                for (int i = offset; i < end; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            byte type = buffer.get(at);
+            index(offset, type, buffer.getInt(at + 1), type == EVENT ? buffer.getLong(at + 5) : 0, type == EVENT ? buffer.get(at + 13) : 0);
+            offset = at + length;
+        }
+        position = offset;
+    }
+
+    private int index(int offset, byte type, int id, long time, byte flags) {
+        int record = records++;
+        int block = record / BLOCK_SIZE;
+        long bit = 1L << (record % BLOCK_SIZE);
+        if (record % BLOCK_SIZE == 0) {
+            if (block == blockOffset.length) {
+                grow();
+            }
+            blockOffset[block] = offset;
+            minTime[block] = Long.MAX_VALUE;
+            maxTime[block] = Long.MIN_VALUE;
+            minId[block] = Integer.MAX_VALUE;
+            maxId[block] = Integer.MIN_VALUE;
+        }
+        if (type != EVENT) {
+            dead[block] |= bit;
+            return record;
+        }
+        minTime[block] = Math.min(minTime[block], time);
+        maxTime[block] = Math.max(maxTime[block], time);
+        minId[block] = Math.min(minId[block], id);
+        maxId[block] = Math.max(maxId[block], id);
+        if ((flags & WIFI) == 0) {
+            wifiDown[block] |= bit;
+        }
+        if ((flags & INTERNET) == 0) {
+            internetDown[block] |= bit;
+        }
+        return record;
+    }
+
+    private void grow() {
+        int size = blockOffset.length * 2;
+        blockOffset = Arrays.copyOf(blockOffset, size);
+        minTime = Arrays.copyOf(minTime, size);
+        maxTime = Arrays.copyOf(maxTime, size);
+        minId = Arrays.copyOf(minId, size);
+        maxId = Arrays.copyOf(maxId, size);
+        wifiDown = Arrays.copyOf(wifiDown, size);
+        internetDown = Arrays.copyOf(internetDown, size);
+        dead = Arrays.copyOf(dead, size);
+    }
+
+    private int offsetOf(int record) {
+        int offset = blockOffset[record / BLOCK_SIZE];
+        for (int i = 0; i < record % BLOCK_SIZE; i++) {
+            offset += HEADER_SIZE + buffer.getInt(offset);
+        }
+        return offset;
+    }
+
+    private Event decode(int offset) {
+        int at = offset + HEADER_SIZE;
+        long nanos = buffer.getLong(at + 5);
+        byte flags = buffer.get(at + 13);
+        String deviceId = readDeviceId(at);
+        int messageAt = at + 24 + buffer.getShort(at + 22);
+        int messageLength = buffer.getInt(messageAt);
+        String message = null;
+        if (messageLength >= 0) {
+            byte[] bytes = new byte[messageLength];
+            buffer.get(messageAt + 4, bytes);
+            message = new String(bytes, StandardCharsets.UTF_8);
+        }
+        LocalDateTime eventTime = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+        Event event = new Event(buffer.getInt(at + 1), deviceId, eventTime, (flags & WIFI) != 0, (flags & INTERNET) != 0, message);
+        if ((flags & HAS_SEQUENCE) != 0) {
+            event.setSequence(buffer.getLong(at + 14));
+        }
+        return event;
+    }
+
+    private String readDeviceId(int at) {
+        byte[] bytes = new byte[buffer.getShort(at + 22)];
+        buffer.get(at + 24, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checksum(int at, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(at, length));
+        return (int) crc.getValue();
+    }
+
+    interface RecordVisitor {
+        void visit(int record, byte type, int eventId, String deviceId);
+    }
+}
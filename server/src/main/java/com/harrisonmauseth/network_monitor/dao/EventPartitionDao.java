@@ -0,0 +1,36 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface EventPartitionDao {
+
+    /**
+     * Get the months that currently have their own partition of the events table, oldest first.
+     *
+     * @return a list of partitioned months
+     */
+    List<YearMonth> getPartitionMonths();
+
+    /**
+     * Get the months that have rows sitting in the default partition, e.g. after a backfill or migration.
+     *
+     * @return a list of months found in the default partition, oldest first
+     */
+    List<YearMonth> getMonthsInDefaultPartition();
+
+    /**
+     * Create the partition for a month, moving any rows for that month out of the default partition.
+     *
+     * @param month the month the partition should hold
+     */
+    void createPartition(YearMonth month);
+
+    /**
+     * Detach the partition for a month from the events table, optionally dropping it as well.
+     *
+     * @param month the month of the partition to detach
+     * @param drop  true to drop the detached table, false to keep it around for archiving
+     */
+    void detachPartition(YearMonth month, boolean drop);
+}
@@ -0,0 +1,36 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import com.harrisonmauseth.network_monitor.model.EventImportResult;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Bulk copies of the events table in and out of the database, for backfills and for moving a log between servers.
+ */
+public interface EventTransferDao {
+
+    /**
+     * Add events in a single transaction, reading them from the iterator as they are written. Events whose device,
+     * sequence and eventTime are already stored, in the
+     * table or the archive, are skipped. If the iterator throws, nothing is added.
+     *
+     * @param events the events to add, which are given new ids
+     * @return how many events were read and how many of them were added
+     */
+    EventImportResult importEvents(Iterator<Event> events);
+
+    /**
+     * Write the events matching the query's device and time range to a stream, oldest first. Only the events table is
+     * exported: events moved to the archive stay in its files, which can be copied as they are.
+     *
+     * @param query  the deviceId, from and to of the events to export; status, limit and cursor are ignored
+     * @param format the format to write them in
+     * @param out    the stream to write to, which is left open
+     * @return the number of events written
+     */
+    long exportEvents(EventQuery query, EventFormat format, OutputStream out);
+}
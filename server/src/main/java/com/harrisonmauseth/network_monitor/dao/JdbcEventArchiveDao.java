@@ -0,0 +1,59 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class JdbcEventArchiveDao implements EventArchiveDao {
+    private final JdbcTemplate jdbcTemplate;
+    private final ColdEventStore coldEventStore;
+    private final JobQueue queue;
+
+    public JdbcEventArchiveDao(JdbcTemplate jdbcTemplate, ColdEventStore coldEventStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coldEventStore = coldEventStore;
+        this.queue = new JobQueue(jdbcTemplate);
+    }
+
+    @Override
+    public LocalDate getOldestDayToArchive(LocalDateTime cutoff) {
+        String sql = "SELECT MIN(eventTime) FROM events WHERE eventTime < ? AND " + JobQueue.PROCESSED_BY_JOBS + ";";
+        try {
+            LocalDateTime oldest = jdbcTemplate.queryForObject(sql, LocalDateTime.class, cutoff);
+            return oldest != null ? oldest.toLocalDate() : null;
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int archiveDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        String sql = "SELECT " + JdbcEventDao.EVENT_COLUMNS + " FROM events WHERE eventTime >= ? AND eventTime < ? AND " +
+                JobQueue.PROCESSED_BY_JOBS + " ORDER BY eventTime DESC, eventId DESC FOR UPDATE;";
+        try {
+            List<Event> events = jdbcTemplate.query(sql, JdbcEventDao.EVENT_ROW_MAPPER, from, to);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            coldEventStore.archive(day, events);
+            // the bounds on eventTime keep the delete to the day's partition
+            Integer[] eventIds = events.stream().map(Event::getEventId).toArray(Integer[]::new);
+            return queue.retire("DELETE FROM events WHERE eventTime >= ? AND eventTime < ? AND eventId = ANY(?);", from, to, eventIds);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+    }
+}
@@ -2,153 +2,258 @@ package com.harrisonmauseth.network_monitor.dao;
 
 import com.harrisonmauseth.network_monitor.exception.DaoException;
 import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-@Component
+@Component("eventStore")
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
 public class JdbcEventDao implements EventDao {
+    private static final Logger log = LoggerFactory.getLogger(JdbcEventDao.class);
+    public static final int DEFAULT_INSERT_CHUNK_SIZE = 500;
+    // PostgreSQL caps a single statement at 65535 bind parameters, and each event uses up to seven of them
+    private static final int MAX_INSERT_CHUNK_SIZE = 65535 / 7;
+    private static final int STREAM_FETCH_SIZE = 500;
+    // every read selects these columns in this order, so rows are mapped by position
+    static final String EVENT_COLUMNS = "eventId, deviceId, eventTime, isConnectedToWifi, isConnectedToInternet, message, sequence";
+    static final RowMapper<Event> EVENT_ROW_MAPPER = JdbcEventDao::mapRowToEvent;
+    private static final Comparator<Event> NEWEST_FIRST = Comparator.comparing(Event::getEventTime)
+            .thenComparingInt(Event::getEventId).reversed();
     private final JdbcTemplate jdbcTemplate;
+    private final int insertChunkSize;
+    private final ColdEventStore coldEventStore;
+    private final ReadReplica readReplica;
 
     public JdbcEventDao(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_INSERT_CHUNK_SIZE);
+    }
+
+    public JdbcEventDao(JdbcTemplate jdbcTemplate, int insertChunkSize) {
+        this(jdbcTemplate, insertChunkSize, null, null);
+    }
+
+    /**
+     * @param coldEventStore the archived events to read along with the events table, or null to read the table alone
+     * @param readReplica    the replica to send reads to, or null to read from the primary
+     */
+    @Autowired
+    public JdbcEventDao(JdbcTemplate jdbcTemplate, @Value("${events.insert.chunk-size:" + DEFAULT_INSERT_CHUNK_SIZE + "}") int insertChunkSize,
+                        ColdEventStore coldEventStore, @Nullable ReadReplica readReplica) {
         this.jdbcTemplate = jdbcTemplate;
+        this.insertChunkSize = Math.max(1, Math.min(insertChunkSize, MAX_INSERT_CHUNK_SIZE));
+        this.coldEventStore = coldEventStore;
+        this.readReplica = readReplica;
     }
 
     @Override
     public List<Event> getAllEvents() {
-        List<Event> events = new ArrayList<>();
-        String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events ORDER BY eventTime DESC;";
+        return getEvents(new EventQuery());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllEvents(Consumer<Event> eventConsumer) {
+        streamEvents(new EventQuery(), eventConsumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamEvents(EventQuery query, Consumer<Event> eventConsumer) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildEventQuery(query, params);
+        ArchiveMerge archiveMerge = coldEventStore != null && coldEventStore.mayContain(query)
+                ? new ArchiveMerge(coldEventStore.read(query), query.getLimit(), eventConsumer) : null;
+        Consumer<Event> rowConsumer = archiveMerge != null ? archiveMerge : eventConsumer;
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        };
+        RowCallbackHandler rowHandler = resultSet -> rowConsumer.accept(EVENT_ROW_MAPPER.mapRow(resultSet, resultSet.getRow()));
         try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-            while (results.next()) {
-                events.add(mapRowToEvent(results));
+            // PostgreSQL only honours the fetch size inside a transaction, otherwise the driver reads every row up front
+            if (!streamFromReplica(query, statementCreator, rowHandler)) {
+                jdbcTemplate.query(statementCreator, rowHandler);
             }
         } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
+            throw new DaoException("Unable to connect to database.", e);
+        }
+        if (archiveMerge != null) {
+            archiveMerge.finish();
         }
-        return events;
     }
 
     @Override
     public List<Event> getAllEventsLimited(int limit) {
-        List<Event> events = new ArrayList<>();
-        if (limit <= 0) {
-            return getAllEvents();
-        }
-        String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events ORDER BY eventTime DESC LIMIT ?;";
-        try {
-            SqlRowSet results = jdbcTemplate.queryForRowSet(sql, limit);
-            while (results.next()) {
-                events.add(mapRowToEvent(results));
-            }
-        } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
-        }
-        return events;
+        return getEvents(new EventQuery(EventQuery.Status.ANY, limit));
     }
 
     @Override
     public List<Event> getAllDisconnectedEvents(int limit) {
-        List<Event> events = new ArrayList<>();
-        if (limit <= 0) {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToWifi = false OR isConnectedToInternet = false ORDER BY eventTime DESC;";
-            try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
-            } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to database.");
-            }
-        } else {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToWifi = false OR isConnectedToInternet = false ORDER BY eventTime DESC LIMIT ?;";
-            try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql, limit);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
-            } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to database.");
-            }
-        }
-        return events;
+        return getEvents(new EventQuery(EventQuery.Status.DISCONNECTED, limit));
     }
 
     @Override
     public List<Event> getDisconnectedWifiEvents(int limit) {
-        List<Event> events = new ArrayList<>();
-        if (limit <= 0) {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToWifi = false ORDER BY eventTime DESC;";
-            try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
-            } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to the database.");
-            }
-        } else {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToWifi = false ORDER BY eventTime DESC LIMIT ?;";
-            try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql, limit);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
-            } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to the database.");
-            }
-        }
-        return events;
+        return getEvents(new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, limit));
     }
 
     @Override
     public List<Event> getDisconnectedInternetEvents(int limit) {
-        List<Event> events = new ArrayList<>();
-        if (limit <= 0) {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToInternet = false ORDER BY eventTime DESC;";
-            try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
-            } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to the database.");
-            }
-        } else {
-            String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE isConnectedToInternet = false ORDER BY eventTime DESC LIMIT ?;";
+        return getEvents(new EventQuery(EventQuery.Status.INTERNET_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getEvents(EventQuery query) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildEventQuery(query, params);
+        List<Event> events;
+        try {
+            events = read(onReplica(query), template -> template.query(sql, EVENT_ROW_MAPPER, params.toArray()));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+        if (!readsArchive(query, events)) {
+            return events;
+        }
+        List<Event> merged = new ArrayList<>();
+        ArchiveMerge archiveMerge = new ArchiveMerge(coldEventStore.read(query), query.getLimit(), merged::add);
+        events.forEach(archiveMerge);
+        archiveMerge.finish();
+        return merged;
+    }
+
+    /**
+     * A query needs the archive when it can match archived events and the rows from the table do not already fill its
+     * limit with events newer than anything archived, which keeps the usual newest pages to a single query.
+     */
+    private boolean readsArchive(EventQuery query, List<Event> events) {
+        if (coldEventStore == null || !coldEventStore.mayContain(query)) {
+            return false;
+        }
+        if (query.getLimit() > 0 && events.size() >= query.getLimit()) {
+            LocalDateTime newestArchived = coldEventStore.getNewestEventTime();
+            return newestArchived == null || !events.get(events.size() - 1).getEventTime().isAfter(newestArchived);
+        }
+        return true;
+    }
+
+    /**
+     * @return whether there is a replica and it cannot miss a recent write the query has to see
+     */
+    private boolean onReplica(EventQuery query) {
+        if (readReplica == null) {
+            return false;
+        }
+        return query.isConsistent() ? readReplica.isCaughtUp() : readReplica.canRead(query.getDeviceId());
+    }
+
+    /**
+     * Run a read on the replica when it can serve it, otherwise on the primary. A replica that cannot be reached is
+     * skipped rather than failing the read.
+     */
+    private <T> T read(boolean onReplica, Function<JdbcTemplate, T> query) {
+        if (onReplica) {
             try {
-                SqlRowSet results = jdbcTemplate.queryForRowSet(sql, limit);
-                while (results.next()) {
-                    events.add(mapRowToEvent(results));
-                }
+                return query.apply(readReplica.getJdbcTemplate());
             } catch (CannotGetJdbcConnectionException e) {
-                throw new DaoException("Unable to connect to the database.");
+                log.debug("Reading from the primary, the read replica is unavailable: {}", e.getMessage());
             }
         }
-        return events;
+        return query.apply(jdbcTemplate);
+    }
+
+    /**
+     * Stream a read from the replica inside a read-only transaction of its own, like {@link #read(boolean, Function)}.
+     *
+     * @return false if the read is left to the primary
+     */
+    private boolean streamFromReplica(EventQuery query, PreparedStatementCreator statementCreator, RowCallbackHandler rowHandler) {
+        if (!onReplica(query)) {
+            return false;
+        }
+        try {
+            readReplica.getReadOnlyTransaction().executeWithoutResult(status -> readReplica.getJdbcTemplate().query(statementCreator, rowHandler));
+            return true;
+        } catch (CannotCreateTransactionException e) {
+            log.debug("Reading from the primary, the read replica is unavailable: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<String> getDeviceIds() {
+        // walks the (deviceId, eventTime, eventId) index one device at a time instead of scanning every event,
+        // so listing the fleet costs one index probe per device
+        String sql = "WITH RECURSIVE devices AS (" +
+                "SELECT MIN(deviceId) AS deviceId FROM events " +
+                "UNION ALL " +
+                "SELECT (SELECT MIN(e.deviceId) FROM events e WHERE e.deviceId > d.deviceId) FROM devices d WHERE d.deviceId IS NOT NULL" +
+                ") SELECT deviceId FROM devices WHERE deviceId IS NOT NULL ORDER BY deviceId;";
+        List<String> deviceIds;
+        try {
+            // a new device appears with its first event, and the list is tagged with the events version
+            deviceIds = read(readReplica != null && readReplica.isCaughtUp(), template -> template.queryForList(sql, String.class));
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+        if (coldEventStore != null && !coldEventStore.isEmpty()) {
+            Set<String> withArchived = new TreeSet<>(deviceIds);
+            withArchived.addAll(coldEventStore.getDeviceIds());
+            return new ArrayList<>(withArchived);
+        }
+        return deviceIds;
     }
 
     @Override
     public Event getEventById(int id) {
-        Event event = null;
-        String sql = "SELECT eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events WHERE eventId = ?;";
+        String sql = "SELECT " + EVENT_COLUMNS + " FROM events WHERE eventId = ?;";
         try {
-            SqlRowSet result = jdbcTemplate.queryForRowSet(sql, id);
-            if (result.next()) {
-                event = mapRowToEvent(result);
+            List<Event> events = read(readReplica != null && readReplica.canRead(null), template -> template.query(sql, EVENT_ROW_MAPPER, id));
+            if (events.isEmpty() && readReplica != null) {
+                // an event logged moments ago may not have reached the replica yet
+                events = jdbcTemplate.query(sql, EVENT_ROW_MAPPER, id);
+            }
+            if (!events.isEmpty()) {
+                return events.get(0);
             }
         } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
+            throw new DaoException("Unable to connect to database.", e);
         }
-        return event;
+        return coldEventStore != null ? coldEventStore.getEventById(id) : null;
     }
 
     @Override
@@ -157,58 +262,170 @@ public class JdbcEventDao implements EventDao {
         if (eventToCreate.getEventTime() == null) {
             eventToCreate.setEventTime(LocalDateTime.now(ZoneId.of("UTC")));
         }
-        String sql = "INSERT INTO events (eventTime, isConnectedToWifi, isConnectedToInternet, message) VALUES (?, ?, ?, ?) RETURNING eventId;";
+        // the inserted row comes back from the INSERT itself, so logging an event is a single round trip
+        String sql = "INSERT INTO events (deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) VALUES (?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT DO NOTHING RETURNING " + EVENT_COLUMNS + ";";
         try {
-            Integer eventId = jdbcTemplate.queryForObject(
+            List<Event> events = jdbcTemplate.query(
                     sql,
-                    int.class,
+                    EVENT_ROW_MAPPER,
+                    deviceIdOf(eventToCreate),
+                    eventToCreate.getSequence(),
                     eventToCreate.getEventTime(),
                     eventToCreate.isConnectedToWifi(),
                     eventToCreate.isConnectedToInternet(),
                     eventToCreate.getMessage()
             );
-            if (eventId != null) {
-                event = getEventById(eventId);
+            if (!events.isEmpty()) {
+                event = events.get(0);
+            } else if (eventToCreate.getSequence() != null) {
+                // already logged by an earlier attempt
+                return null;
             } else {
                 throw new DaoException("Unexpected error occurred while trying to create.");
             }
         } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
+            throw new DaoException("Unable to connect to database.", e);
         } catch (DataIntegrityViolationException e) {
-            throw new DaoException("Data integrity violation");
+            throw new DaoException("Data integrity violation", e);
         }
+        noteCreated(List.of(event));
         return event;
     }
 
     @Override
+    public Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        String sql = "SELECT " + EVENT_COLUMNS + " FROM events WHERE deviceId = ? AND sequence = ? AND eventTime = ?;";
+        try {
+            List<Event> events = jdbcTemplate.query(sql, EVENT_ROW_MAPPER, deviceId, sequence, eventTime);
+            return events.isEmpty() ? null : events.get(0);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+    }
+
+    @Override
+    @Transactional
     public List<Event> createMultipleEvents(Event[] events) {
-        List<Event> createdEvents = new ArrayList<>();
-        for (Event event : events) {
-            createdEvents.add(createEvent(event));
+        List<Event> createdEvents = new ArrayList<>(events.length);
+        try {
+            for (int start = 0; start < events.length; start += insertChunkSize) {
+                int end = Math.min(start + insertChunkSize, events.length);
+                createdEvents.addAll(insertChunk(Arrays.asList(events).subList(start, end), false));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
         }
+        noteCreated(createdEvents);
         return createdEvents;
     }
 
+    /**
+     * Keep the reads that could see newly logged events on the primary until the replica has caught up with them.
+     */
+    private void noteCreated(List<Event> createdEvents) {
+        if (readReplica != null) {
+            for (Event event : createdEvents) {
+                readReplica.created(event.getDeviceId());
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> reserveEventIds(int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT nextval(pg_get_serial_sequence('events', 'eventid')) AS eventId FROM generate_series(1, ?) ORDER BY 1;";
+        try {
+            return jdbcTemplate.queryForList(sql, Integer.class, count);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<Event> createEventsWithIds(List<Event> events) {
+        List<Event> createdEvents = new ArrayList<>(events.size());
+        try {
+            for (int start = 0; start < events.size(); start += insertChunkSize) {
+                int end = Math.min(start + insertChunkSize, events.size());
+                createdEvents.addAll(insertChunk(events.subList(start, end), true));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+        noteCreated(createdEvents);
+        return createdEvents;
+    }
+
+    /**
+     * Insert a chunk of events with a single multi-row INSERT and map the rows it returns,
+     * so a chunk costs one round trip instead of an INSERT and a SELECT per event. When withIds is set the
+     * events keep the ids they carry. Rows that already exist, by id or by device, sequence and eventTime, are
+     * skipped in the same statement and left out of the result, so a resent batch only inserts what is new.
+     */
+    private List<Event> insertChunk(List<Event> events, boolean withIds) {
+        int columns = withIds ? 7 : 6;
+        StringBuilder sql = new StringBuilder(withIds
+                ? "INSERT INTO events (eventId, deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) VALUES "
+                : "INSERT INTO events (deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) VALUES ");
+        String row = withIds ? "(?, ?, ?, ?, ?, ?, ?)" : "(?, ?, ?, ?, ?, ?)";
+        Object[] params = new Object[events.size() * columns];
+        int p = 0;
+        for (Event event : events) {
+            if (event.getEventTime() == null) {
+                event.setEventTime(LocalDateTime.now(ZoneId.of("UTC")));
+            }
+            sql.append(p == 0 ? row : ", " + row);
+            if (withIds) {
+                params[p++] = event.getEventId();
+            }
+            params[p++] = deviceIdOf(event);
+            params[p++] = event.getSequence();
+            params[p++] = event.getEventTime();
+            params[p++] = event.isConnectedToWifi();
+            params[p++] = event.isConnectedToInternet();
+            params[p++] = event.getMessage();
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING ").append(EVENT_COLUMNS).append(';');
+        return jdbcTemplate.query(sql.toString(), EVENT_ROW_MAPPER, params);
+    }
+
     @Override
     public Event updateEvent(Event eventToUpdate) {
         Event updatedEvent;
-        String sql = "UPDATE events SET eventTime = ?, isConnectedToWifi = ?, isConnectedToInternet = ?, message = ? WHERE eventId = ?;";
+        // an update without a deviceId keeps the device the event was logged by. The updated row is returned by the
+        // UPDATE itself, from the primary, so it is never read back from a replica that has not caught up
+        String sql = "UPDATE events SET deviceId = COALESCE(?, deviceId), eventTime = ?, isConnectedToWifi = ?, isConnectedToInternet = ?, message = ? " +
+                "WHERE eventId = ? RETURNING " + EVENT_COLUMNS + ";";
         try {
-            int numberOfRowsUpdated = jdbcTemplate.update(
+            List<Event> events = jdbcTemplate.query(
                     sql,
+                    EVENT_ROW_MAPPER,
+                    eventToUpdate.getDeviceId(),
                     eventToUpdate.getEventTime(),
                     eventToUpdate.isConnectedToWifi(),
                     eventToUpdate.isConnectedToInternet(),
                     eventToUpdate.getMessage(),
                     eventToUpdate.getEventId()
             );
-            if (numberOfRowsUpdated == 0) {
+            if (events.isEmpty()) {
                 throw new DaoException("Zero rows affected, expected at least one.");
-            } else updatedEvent = getEventById(eventToUpdate.getEventId());
+            }
+            updatedEvent = events.get(0);
         } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
+            throw new DaoException("Unable to connect to database.", e);
         } catch (DataIntegrityViolationException e) {
-            throw new DaoException("Data integrity violation");
+            throw new DaoException("Data integrity violation", e);
+        }
+        if (readReplica != null) {
+            readReplica.changed();
         }
         return updatedEvent;
     }
@@ -220,24 +437,144 @@ public class JdbcEventDao implements EventDao {
         try {
             numberOfRowsDeleted = jdbcTemplate.update(sql, eventId);
         } catch (CannotGetJdbcConnectionException e) {
-            throw new DaoException("Unable to connect to database.");
+            throw new DaoException("Unable to connect to database.", e);
         } catch (DataIntegrityViolationException e) {
-            throw new DaoException("Data integrity violation");
+            throw new DaoException("Data integrity violation", e);
+        }
+        if (readReplica != null && numberOfRowsDeleted > 0) {
+            readReplica.changed();
         }
         return numberOfRowsDeleted;
     }
 
-    private Event mapRowToEvent(SqlRowSet rowSet) {
+    /**
+     * Build the SELECT for a query, adding its bind values to params. Every event listing goes through here, and
+     * the SQL only varies with which filters are set, so each shape is parsed once per connection and then reused
+     * as a server-side prepared statement. Filtering on a device lets the planner use
+     * the indexes that lead with deviceId, so one device's events are read without walking the rest of the fleet's.
+     * A time range narrows the same index scans to the requested window.
+     */
+    private String buildEventQuery(EventQuery query, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT " + EVENT_COLUMNS + " FROM events WHERE ");
+        sql.append(statusCondition(query.getStatus()));
+        if (query.getDeviceId() != null) {
+            sql.append(" AND deviceId = ?");
+            params.add(query.getDeviceId());
+        }
+        // plain bounds on eventTime are range conditions on the leading column of the event indexes, and let the
+        // planner skip partitions outside the range
+        if (query.getFrom() != null) {
+            sql.append(" AND eventTime >= ?");
+            params.add(query.getFrom());
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND eventTime < ?");
+            params.add(query.getTo());
+        }
+        EventCursor after = query.getAfter();
+        if (after != null) {
+            // row comparison lets the (eventTime DESC, eventId DESC) index seek straight to the cursor, and the
+            // redundant eventTime bound lets the planner prune partitions newer than the cursor
+            sql.append(" AND (eventTime, eventId) < (?, ?) AND eventTime <= ?");
+            params.add(after.getEventTime());
+            params.add(after.getEventId());
+            params.add(after.getEventTime());
+        }
+        sql.append(" ORDER BY eventTime DESC, eventId DESC");
+        if (query.getLimit() > 0) {
+            sql.append(" LIMIT ?");
+            params.add(query.getLimit());
+        }
+        sql.append(';');
+        return sql.toString();
+    }
+
+    private static String deviceIdOf(Event event) {
+        return event.getDeviceId() != null ? event.getDeviceId() : Event.DEFAULT_DEVICE_ID;
+    }
+
+    private String statusCondition(EventQuery.Status status) {
+        switch (status) {
+            case DISCONNECTED:
+                return "(isConnectedToWifi = false OR isConnectedToInternet = false)";
+            case WIFI_DISCONNECTED:
+                return "isConnectedToWifi = false";
+            case INTERNET_DISCONNECTED:
+                return "isConnectedToInternet = false";
+            default:
+                return "true";
+        }
+    }
+
+    /**
+     * Maps the columns of {@link #EVENT_COLUMNS} by position, reading each column once. Package-private so the
+     * benchmarks module can measure it on its own.
+     */
+    static Event mapRowToEvent(ResultSet resultSet, int rowNumber) throws SQLException {
         Event event = new Event();
-        event.setEventId(rowSet.getInt("eventId"));
-        if (rowSet.getTimestamp("eventTime") != null) {
-            event.setEventTime(Objects.requireNonNull(rowSet.getTimestamp("eventTime")).toLocalDateTime());
+        event.setEventId(resultSet.getInt(1));
+        event.setDeviceId(resultSet.getString(2));
+        Timestamp eventTime = resultSet.getTimestamp(3);
+        if (eventTime != null) {
+            event.setEventTime(eventTime.toLocalDateTime());
         }
-        event.setConnectedToWifi(rowSet.getBoolean("isConnectedToWifi"));
-        event.setConnectedToInternet(rowSet.getBoolean("isConnectedToInternet"));
-        if (rowSet.getString("message") != null) {
-            event.setMessage(rowSet.getString("message"));
+        event.setConnectedToWifi(resultSet.getBoolean(4));
+        event.setConnectedToInternet(resultSet.getBoolean(5));
+        event.setMessage(resultSet.getString(6));
+        long sequence = resultSet.getLong(7);
+        if (!resultSet.wasNull()) {
+            event.setSequence(sequence);
         }
         return event;
     }
+
+    /**
+     * Interleaves archived events with the rows read from the table, both newest first, until the query's limit is
+     * reached. Rows are pushed in as they are read and archived events are pulled as needed, so streaming stays
+     * streaming. An event found in both, archived by a run that failed before deleting its rows, is passed on once.
+     */
+    private static final class ArchiveMerge implements Consumer<Event> {
+        private final Iterator<Event> archived;
+        private final Consumer<Event> eventConsumer;
+        private int remaining;
+        private Event nextArchived;
+
+        ArchiveMerge(Iterator<Event> archived, int limit, Consumer<Event> eventConsumer) {
+            this.archived = archived;
+            this.eventConsumer = eventConsumer;
+            this.remaining = limit > 0 ? limit : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void accept(Event row) {
+            while (remaining > 0 && peekArchived() != null && NEWEST_FIRST.compare(nextArchived, row) <= 0) {
+                if (nextArchived.getEventId() != row.getEventId()) {
+                    emit(nextArchived);
+                }
+                nextArchived = null;
+            }
+            emit(row);
+        }
+
+        void finish() {
+            while (remaining > 0 && peekArchived() != null) {
+                emit(nextArchived);
+                nextArchived = null;
+            }
+        }
+
+        private Event peekArchived() {
+            if (nextArchived == null && archived.hasNext()) {
+                nextArchived = archived.next();
+            }
+            return nextArchived;
+        }
+
+        private void emit(Event event) {
+            if (remaining > 0) {
+                remaining--;
+                eventConsumer.accept(event);
+            }
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class JdbcEventPartitionDao implements EventPartitionDao {
+    private static final Pattern PARTITION_NAME = Pattern.compile("events_p(\\d{4})_(\\d{2})");
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcEventPartitionDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<YearMonth> getPartitionMonths() {
+        List<YearMonth> months = new ArrayList<>();
+        String sql = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'events'::regclass ORDER BY c.relname;";
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
+            while (results.next()) {
+                Matcher matcher = PARTITION_NAME.matcher(Objects.requireNonNull(results.getString("relname")));
+                if (matcher.matches()) {
+                    months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                }
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+        return months;
+    }
+
+    @Override
+    public List<YearMonth> getMonthsInDefaultPartition() {
+        List<YearMonth> months = new ArrayList<>();
+        String sql = "SELECT DISTINCT date_trunc('month', eventTime) AS month FROM events_default ORDER BY month;";
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql);
+            while (results.next()) {
+                months.add(YearMonth.from(Objects.requireNonNull(results.getTimestamp("month")).toLocalDateTime()));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+        return months;
+    }
+
+    @Override
+    @Transactional
+    public void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        String bounds = String.format("FOR VALUES FROM ('%s') TO ('%s')", from, to);
+        try {
+            // block writes to the default partition so no row for this month can slip in between the move and the attach
+            jdbcTemplate.execute("LOCK TABLE events_default IN EXCLUSIVE MODE;");
+            Boolean hasDefaultRows = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM events_default WHERE eventTime >= ? AND eventTime < ?);", Boolean.class, from, to);
+            if (Boolean.TRUE.equals(hasDefaultRows)) {
+                jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE events INCLUDING DEFAULTS INCLUDING CONSTRAINTS);");
+                jdbcTemplate.update("INSERT INTO " + partition + " SELECT * FROM events_default WHERE eventTime >= ? AND eventTime < ?;", from, to);
+                jdbcTemplate.update("DELETE FROM events_default WHERE eventTime >= ? AND eventTime < ?;", from, to);
+                jdbcTemplate.execute("ALTER TABLE events ATTACH PARTITION " + partition + " " + bounds + ";");
+            } else {
+                jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF events " + bounds + ";");
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void detachPartition(YearMonth month, boolean drop) {
+        String partition = partitionName(month);
+        try {
+            jdbcTemplate.execute("ALTER TABLE events DETACH PARTITION " + partition + ";");
+            if (drop) {
+                jdbcTemplate.execute("DROP TABLE " + partition + ";");
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+    }
+
+    private String partitionName(YearMonth month) {
+        return String.format("events_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,241 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import com.harrisonmauseth.network_monitor.model.EventImportResult;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Copies events with PostgreSQL's COPY, which streams rows over the connection without a statement per row.
+ * <p>
+ * Imports are copied into a temporary table and inserted from there in one statement, so events already stored are
+ * skipped by the same unique index as when they are logged, and the events table sees a single insert whatever the
+ * size of the import. Events already moved to the {@link ColdEventStore} are out of the index's reach, so the archived
+ * days an import touches are copied in beside it and its copies of them dropped first. The connection is held for as
+ * long as the import takes to upload.
+ * <p>
+ * Exports are copied straight from the server to the caller's stream, from the replica when there is one.
+ */
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class JdbcEventTransferDao implements EventTransferDao {
+    // events are written to COPY in chunks of this many bytes
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String EXPORT_COLUMNS = "eventId AS \"eventId\", deviceId AS \"deviceId\", sequence, %s AS \"eventTime\", " +
+            "isConnectedToWifi%s AS \"isConnectedToWifi\", isConnectedToInternet%s AS \"isConnectedToInternet\", message";
+    private final JdbcTemplate jdbcTemplate;
+    private final ColdEventStore coldEventStore;
+    private final ReadReplica readReplica;
+
+    /**
+     * @param coldEventStore the archived events imports are checked against, or null to check the table alone
+     */
+    public JdbcEventTransferDao(JdbcTemplate jdbcTemplate, ColdEventStore coldEventStore, @Nullable ReadReplica readReplica) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coldEventStore = coldEventStore;
+        this.readReplica = readReplica;
+    }
+
+    @Override
+    @Transactional
+    public EventImportResult importEvents(Iterator<Event> events) {
+        try {
+            int received = copyToTemporaryTable("events_import", events);
+            skipArchivedEvents();
+            int imported = jdbcTemplate.update("INSERT INTO events (deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) " +
+                    "SELECT deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message FROM events_import " +
+                    "ON CONFLICT DO NOTHING;");
+            // dropped now as well as on commit, for callers that run more than one import in a transaction
+            jdbcTemplate.execute("DROP TABLE events_import;");
+            if (readReplica != null && imported > 0) {
+                readReplica.changed();
+            }
+            return new EventImportResult(received, imported);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new DaoException("Data integrity violation", e);
+        }
+    }
+
+    @Override
+    public long exportEvents(EventQuery query, EventFormat format, OutputStream out) {
+        String sql = format == EventFormat.CSV
+                ? "COPY (" + exportQuery(query, "replace(eventTime::text, ' ', 'T')", "::text") + ") TO STDOUT (FORMAT csv, HEADER);"
+                // one JSON object per row. CSV quoting and delimiters are set to control characters, which JSON always
+                // escapes, so the objects are written exactly as PostgreSQL renders them
+                : "COPY (SELECT row_to_json(e) FROM (" + exportQuery(query, "eventTime", "") + ") e) " +
+                "TO STDOUT (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02');";
+        ConnectionCallback<Long> copyOut = connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            if (readReplica != null && readReplica.canRead(query.getDeviceId())) {
+                try {
+                    return readReplica.getJdbcTemplate().execute(copyOut);
+                } catch (CannotGetJdbcConnectionException e) {
+                    // nothing has been written yet, so the primary can take the export
+                }
+            }
+            return jdbcTemplate.execute(copyOut);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.", e);
+        }
+    }
+
+    /**
+     * Create a temporary table with the columns of an import, dropped on commit, and copy the events into it.
+     *
+     * @return the number of events copied
+     */
+    private int copyToTemporaryTable(String table, Iterator<Event> events) {
+        jdbcTemplate.execute("CREATE TEMP TABLE " + table + " (deviceId VARCHAR(64) NOT NULL, sequence BIGINT, " +
+                "eventTime TIMESTAMP NOT NULL, isConnectedToWifi BOOLEAN NOT NULL, isConnectedToInternet BOOLEAN NOT NULL, " +
+                "message TEXT) ON COMMIT DROP;");
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY " + table + " (deviceId, sequence, eventTime, isConnectedToWifi, isConnectedToInternet, message) " +
+                            "FROM STDIN (FORMAT csv);");
+            return copyIn(copyIn, events);
+        });
+    }
+
+    /**
+     * Drop the imported events the archive already holds, matched on the same columns as the unique index. Only the
+     * archived days with sequenced events in the import are read.
+     */
+    private void skipArchivedEvents() {
+        if (coldEventStore == null || coldEventStore.isEmpty()) {
+            return;
+        }
+        List<LocalDate> days = jdbcTemplate.queryForList("SELECT DISTINCT CAST(eventTime AS date) FROM events_import " +
+                "WHERE sequence IS NOT NULL;", LocalDate.class);
+        List<Event> archived = new ArrayList<>();
+        for (LocalDate day : days) {
+            if (coldEventStore.isArchived(day)) {
+                EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+                query.setFrom(day.atStartOfDay());
+                query.setTo(day.plusDays(1).atStartOfDay());
+                coldEventStore.read(query).forEachRemaining(event -> {
+                    if (event.getSequence() != null) {
+                        archived.add(event);
+                    }
+                });
+            }
+        }
+        if (archived.isEmpty()) {
+            return;
+        }
+        copyToTemporaryTable("events_archived", archived.iterator());
+        jdbcTemplate.update("DELETE FROM events_import i USING events_archived a " +
+                "WHERE i.deviceId = a.deviceId AND i.sequence = a.sequence AND i.eventTime = a.eventTime;");
+        jdbcTemplate.execute("DROP TABLE events_archived;");
+    }
+
+    /**
+     * Write events to COPY as CSV rows, until the iterator runs out. The copy is cancelled if the iterator or the
+     * write fails, so the rows copied so far are discarded.
+     */
+    private static int copyIn(CopyIn copyIn, Iterator<Event> events) {
+        PGCopyOutputStream copy = new PGCopyOutputStream(copyIn, COPY_BUFFER_SIZE);
+        Writer writer = new OutputStreamWriter(copy, StandardCharsets.UTF_8);
+        int received = 0;
+        try {
+            while (events.hasNext()) {
+                writeRow(writer, events.next());
+                received++;
+            }
+            // flushes the last rows and ends the copy
+            writer.close();
+            return received;
+        } catch (IOException | RuntimeException e) {
+            if (copy.isActive()) {
+                try {
+                    copyIn.cancelCopy();
+                } catch (SQLException cancelFailed) {
+                    e.addSuppressed(cancelFailed);
+                }
+            }
+            if (e instanceof IOException) {
+                throw new DaoException("Unable to copy events to the database.", e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    private static void writeRow(Writer writer, Event event) throws IOException {
+        writer.write(quote(event.getDeviceId() != null ? event.getDeviceId() : Event.DEFAULT_DEVICE_ID));
+        writer.write(',');
+        if (event.getSequence() != null) {
+            writer.write(event.getSequence().toString());
+        }
+        writer.write(',');
+        writer.write(event.getEventTime().toString());
+        writer.write(',');
+        writer.write(event.isConnectedToWifi() ? "t" : "f");
+        writer.write(',');
+        writer.write(event.isConnectedToInternet() ? "t" : "f");
+        writer.write(',');
+        // left empty and unquoted, a field is read as null
+        if (event.getMessage() != null) {
+            writer.write(quote(event.getMessage()));
+        }
+        writer.write('\n');
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * COPY takes no bind parameters, so the filters are written into the query as literals, which are safe to quote
+     * by doubling single quotes with standard_conforming_strings on, as it is by default.
+     */
+    private static String exportQuery(EventQuery query, String eventTime, String booleanCast) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.format(EXPORT_COLUMNS, eventTime, booleanCast, booleanCast))
+                .append(" FROM events WHERE true");
+        if (query.getDeviceId() != null) {
+            sql.append(" AND deviceId = ").append(literal(query.getDeviceId()));
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND eventTime >= ").append(literal(query.getFrom().toString())).append("::timestamp");
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND eventTime < ").append(literal(query.getTo().toString())).append("::timestamp");
+        }
+        return sql.append(" ORDER BY events.eventTime, events.eventId").toString();
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,207 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Outage;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class JdbcOutageDao implements OutageDao {
+    public static final String OUTAGE_JOB = "outages";
+    public static final int DEFAULT_MAX_SAMPLE_GAP_SECONDS = 90;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobQueue queue;
+    private final int maxSampleGapSeconds;
+
+    public JdbcOutageDao(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_MAX_SAMPLE_GAP_SECONDS);
+    }
+
+    /**
+     * @param maxSampleGapSeconds how long a sample covers when the next one is late, the same cap the rollups put on
+     *                            a down sample's downtime
+     */
+    @Autowired
+    public JdbcOutageDao(JdbcTemplate jdbcTemplate,
+                         @Value("${events.rollup.max-sample-gap-seconds:" + DEFAULT_MAX_SAMPLE_GAP_SECONDS + "}") int maxSampleGapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new JobQueue(jdbcTemplate);
+        this.maxSampleGapSeconds = maxSampleGapSeconds;
+    }
+
+    @Override
+    public List<Outage> getOutages(String deviceId, OutageType type, LocalDateTime from, LocalDateTime to) {
+        List<Outage> outages = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT outageId, deviceId, outageType, startTime, endTime FROM outages WHERE true");
+        if (deviceId != null) {
+            sql.append(" AND deviceId = ?");
+            params.add(deviceId);
+        }
+        if (type != null) {
+            sql.append(" AND outageType = ?");
+            params.add(type.getCode());
+        }
+        if (from != null) {
+            sql.append(" AND (endTime IS NULL OR endTime > ?)");
+            params.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND startTime < ?");
+            params.add(to);
+        }
+        sql.append(" ORDER BY startTime DESC, outageId DESC;");
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql.toString(), params.toArray());
+            while (results.next()) {
+                outages.add(mapRowToOutage(results));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+        return outages;
+    }
+
+    @Override
+    @Transactional
+    public int refreshOutages() {
+        try {
+            // each device's samples form their own timeline, so outages are rebuilt device by device
+            int count = 0;
+            for (JobQueue.QueuedEvents events : queue.take(OUTAGE_JOB)) {
+                for (OutageType type : OutageType.values()) {
+                    rebuildOutages(events.deviceId, type, events.firstTime, events.lastTime);
+                }
+                extendCoverage(events.deviceId, events.firstTime, events.lastTime);
+                count += events.count;
+            }
+            return count;
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+    }
+
+    /**
+     * Rebuild one device's outages of one type around its new events between firstTime and lastTime. The rebuilt stretch
+     * runs from the last connected sample before the new events to the first connected sample after them
+     * (or to the ends of the stored events), which are the furthest an outage touched by the new events can reach.
+     * Outages that started before the device's earliest stored event were built from events since pruned or archived,
+     * so they are kept, and one still running at that event ends at the first connected sample instead.
+     */
+    private void rebuildOutages(String deviceId, OutageType type, LocalDateTime firstTime, LocalDateTime lastTime) {
+        String column = type.getEventColumn();
+        LocalDateTime lowerBound = jdbcTemplate.queryForObject(
+                "SELECT MAX(eventTime) FROM events WHERE deviceId = ? AND eventTime < ? AND " + column + " = true;",
+                LocalDateTime.class, deviceId, firstTime);
+        LocalDateTime upperBound = jdbcTemplate.queryForObject(
+                "SELECT MIN(eventTime) FROM events WHERE deviceId = ? AND eventTime > ? AND " + column + " = true;",
+                LocalDateTime.class, deviceId, lastTime);
+
+        LocalDateTime earliest = null;
+        boolean carried = false;
+        if (lowerBound == null) {
+            earliest = jdbcTemplate.queryForObject("SELECT MIN(eventTime) FROM events WHERE deviceId = ?;", LocalDateTime.class, deviceId);
+            if (earliest == null) {
+                return;
+            }
+            // every sample after its start is down until the first connected one stored, so that is where it ends
+            carried = jdbcTemplate.update("UPDATE outages SET endTime = (SELECT MIN(eventTime) FROM events WHERE deviceId = ? AND " +
+                    column + " = true) WHERE deviceId = ? AND outageType = ? AND startTime < ? AND (endTime IS NULL OR endTime > ?);",
+                    deviceId, deviceId, type.getCode(), earliest, earliest) > 0;
+        }
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder delete = new StringBuilder("DELETE FROM outages WHERE deviceId = ? AND outageType = ?");
+        params.add(deviceId);
+        params.add(type.getCode());
+        if (lowerBound != null) {
+            delete.append(" AND (endTime IS NULL OR endTime > ?)");
+            params.add(lowerBound);
+        } else {
+            delete.append(" AND startTime >= ?");
+            params.add(earliest);
+        }
+        if (upperBound != null) {
+            delete.append(" AND startTime < ?");
+            params.add(upperBound);
+        }
+        jdbcTemplate.update(delete.append(';').toString(), params.toArray());
+
+        // gaps and islands: every connected sample starts a new group, the disconnected samples that follow it are
+        // one outage, and that outage ends where the next group (the next connected sample) begins
+        params.clear();
+        params.add(deviceId);
+        params.add(type.getCode());
+        params.add(deviceId);
+        StringBuilder window = new StringBuilder("SELECT eventTime, eventId, NOT " + column + " AS down FROM events WHERE deviceId = ?");
+        if (lowerBound != null) {
+            window.append(" AND eventTime >= ?");
+            params.add(lowerBound);
+        }
+        if (upperBound != null) {
+            window.append(" AND eventTime <= ?");
+            params.add(upperBound);
+        }
+        String insert = "INSERT INTO outages (deviceId, outageType, startTime, endTime) " +
+                "SELECT ?, ?, startTime, endTime FROM (" +
+                "SELECT MIN(eventTime) FILTER (WHERE down) AS startTime, LEAD(MIN(eventTime)) OVER (ORDER BY grp) AS endTime " +
+                "FROM (SELECT eventTime, down, SUM(CASE WHEN down THEN 0 ELSE 1 END) OVER (ORDER BY eventTime, eventId) AS grp " +
+                "FROM (" + window + ") samples) grouped GROUP BY grp) islands " +
+                "WHERE startTime IS NOT NULL";
+        if (carried) {
+            // the down samples at the start of the stored events belong to the outage that was kept
+            insert += " AND startTime > ?";
+            params.add(earliest);
+        }
+        jdbcTemplate.update(insert + ";", params.toArray());
+    }
+
+    /**
+     * Add the time one device's new events between firstTime and lastTime cover to its coverage. Each sample covers
+     * the time until the next one, up to maxSampleGap, so the samples read are the new ones and their neighbours. New
+     * samples only ever add coverage, so it is merged with the stored spans it touches rather than rebuilt, and spans
+     * whose raw events have been pruned or archived are kept.
+     */
+    private void extendCoverage(String deviceId, LocalDateTime firstTime, LocalDateTime lastTime) {
+        String sql = "WITH samples AS (SELECT eventTime, eventId FROM events WHERE deviceId = ? " +
+                "AND eventTime >= COALESCE((SELECT MAX(eventTime) FROM events WHERE deviceId = ? AND eventTime < ?), ?) " +
+                "AND eventTime <= COALESCE((SELECT MIN(eventTime) FROM events WHERE deviceId = ? AND eventTime > ?), ?)), " +
+                "added AS (SELECT startTime, startTime + LEAST(nextTime - startTime, ? * interval '1 second') AS endTime " +
+                "FROM (SELECT eventTime AS startTime, LEAD(eventTime) OVER (ORDER BY eventTime, eventId) AS nextTime FROM samples) steps " +
+                "WHERE nextTime > startTime), " +
+                "touched AS (DELETE FROM device_coverage WHERE deviceId = ? AND startTime <= (SELECT MAX(endTime) FROM added) " +
+                "AND endTime >= (SELECT MIN(startTime) FROM added) RETURNING startTime, endTime), " +
+                "spans AS (SELECT startTime, endTime FROM added UNION ALL SELECT startTime, endTime FROM touched) " +
+                // spans that overlap or meet are merged: a new group starts where a span begins after every earlier one ended
+                "INSERT INTO device_coverage (deviceId, startTime, endTime) SELECT ?, MIN(startTime), MAX(endTime) FROM (" +
+                "SELECT startTime, endTime, SUM(CASE WHEN startTime <= previousEnd THEN 0 ELSE 1 END) OVER (ORDER BY startTime, endTime) AS grp " +
+                "FROM (SELECT startTime, endTime, MAX(endTime) OVER (ORDER BY startTime, endTime ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING) AS previousEnd " +
+                "FROM spans) ordered) grouped GROUP BY grp;";
+        jdbcTemplate.update(sql, deviceId, deviceId, firstTime, firstTime, deviceId, lastTime, lastTime, maxSampleGapSeconds, deviceId, deviceId);
+    }
+
+    private Outage mapRowToOutage(SqlRowSet rowSet) {
+        Outage outage = new Outage();
+        outage.setOutageId(rowSet.getInt("outageId"));
+        outage.setDeviceId(rowSet.getString("deviceId"));
+        outage.setType(OutageType.fromCode(rowSet.getString("outageType")));
+        outage.setStartTime(Objects.requireNonNull(rowSet.getTimestamp("startTime")).toLocalDateTime());
+        if (rowSet.getTimestamp("endTime") != null) {
+            outage.setEndTime(Objects.requireNonNull(rowSet.getTimestamp("endTime")).toLocalDateTime());
+        }
+        return outage;
+    }
+}
@@ -0,0 +1,258 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Availability;
+import com.harrisonmauseth.network_monitor.model.EventSummary;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import com.harrisonmauseth.network_monitor.model.SummaryResolution;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "postgresql", matchIfMissing = true)
+public class JdbcStatsDao implements StatsDao {
+    public static final String ROLLUP_JOB = "event_rollups";
+    private static final String SUMMARY_COLUMNS = "bucketStart, samples, connectedSamples, wifiDownSamples, internetDownSamples, downtimeSeconds";
+    /**
+     * Takes the rollup's queued events and rebuilds the minutes they fall in, in one statement. A new sample changes
+     * the downtime of the previous sample from the same device, so that sample's minute is rebuilt as well. Each
+     * device's samples are a timeline of their own: a down sample's downtime runs until the next sample from the same
+     * device, up to maxGap, and a device's latest sample has none yet.
+     *
+     * A minute is rebuilt from raw events only when all of the samples it already summarized, less the ones edited or
+     * deleted out of it, are still there. Once some have been pruned or archived, the new samples are added to the
+     * stored summary and the removed ones taken off instead (a removed sample's downtime is not known by then, so it
+     * stays). The hours and days above the rebuilt minutes are moved by the difference, so they never depend on raw
+     * events that are gone.
+     */
+    private static final String ROLL_UP_QUEUED_EVENTS = "WITH taken AS (DELETE FROM job_queue WHERE jobName = ? " +
+            "RETURNING deviceId, bucketStart, eventIds, firstTime, removedSamples, removedConnectedSamples, removedWifiDownSamples, removedInternetDownSamples), " +
+            "added AS (SELECT DISTINCT unnest(eventIds) AS eventId FROM taken), " +
+            "removed AS (SELECT bucketStart, SUM(removedSamples) AS samples, SUM(removedConnectedSamples) AS connectedSamples, " +
+            "SUM(removedWifiDownSamples) AS wifiDownSamples, SUM(removedInternetDownSamples) AS internetDownSamples " +
+            "FROM taken GROUP BY bucketStart), " +
+            "minutes AS (SELECT bucketStart FROM taken UNION " +
+            "SELECT date_trunc('minute', previous.eventTime) FROM taken CROSS JOIN LATERAL " +
+            "(SELECT MAX(eventTime) AS eventTime FROM events WHERE deviceId = taken.deviceId AND eventTime < taken.firstTime) previous " +
+            "WHERE previous.eventTime IS NOT NULL), " +
+            "samples AS (SELECT m.bucketStart, e.eventId, e.eventId IN (SELECT eventId FROM added) AS isNew, " +
+            "e.isConnectedToWifi AND e.isConnectedToInternet AS connected, " +
+            "NOT e.isConnectedToWifi AS wifiDown, NOT e.isConnectedToInternet AS internetDown, " +
+            "LEAST(COALESCE(EXTRACT(EPOCH FROM next.eventTime - e.eventTime), 0), ?) AS downtime " +
+            "FROM minutes m LEFT JOIN events e ON e.eventTime >= m.bucketStart AND e.eventTime < m.bucketStart + interval '1 minute' " +
+            "LEFT JOIN LATERAL (SELECT n.eventTime FROM events n WHERE NOT (e.isConnectedToWifi AND e.isConnectedToInternet) " +
+            "AND n.deviceId = e.deviceId AND n.eventTime >= e.eventTime AND (n.eventTime, n.eventId) > (e.eventTime, e.eventId) " +
+            "ORDER BY n.eventTime, n.eventId LIMIT 1) next ON true), " +
+            "rebuilt AS (SELECT bucketStart, COUNT(eventId) AS samples, COUNT(*) FILTER (WHERE connected) AS connectedSamples, " +
+            "COUNT(*) FILTER (WHERE wifiDown) AS wifiDownSamples, COUNT(*) FILTER (WHERE internetDown) AS internetDownSamples, " +
+            "COALESCE(SUM(downtime), 0) AS downtimeSeconds, " +
+            "COUNT(*) FILTER (WHERE isNew) AS newSamples, COUNT(*) FILTER (WHERE isNew AND connected) AS newConnectedSamples, " +
+            "COUNT(*) FILTER (WHERE isNew AND wifiDown) AS newWifiDownSamples, COUNT(*) FILTER (WHERE isNew AND internetDown) AS newInternetDownSamples, " +
+            "COALESCE(SUM(downtime) FILTER (WHERE isNew), 0) AS newDowntimeSeconds FROM samples GROUP BY bucketStart), " +
+            "compared AS (SELECT r.*, r.samples + COALESCE(x.samples, 0) >= COALESCE(o.samples, 0) + r.newSamples AS complete, " +
+            "COALESCE(o.samples, 0) AS oldSamples, COALESCE(o.connectedSamples, 0) AS oldConnectedSamples, " +
+            "COALESCE(o.wifiDownSamples, 0) AS oldWifiDownSamples, COALESCE(o.internetDownSamples, 0) AS oldInternetDownSamples, " +
+            "COALESCE(o.downtimeSeconds, 0) AS oldDowntimeSeconds, COALESCE(x.samples, 0) AS removedSamples, " +
+            "COALESCE(x.connectedSamples, 0) AS removedConnectedSamples, COALESCE(x.wifiDownSamples, 0) AS removedWifiDownSamples, " +
+            "COALESCE(x.internetDownSamples, 0) AS removedInternetDownSamples " +
+            "FROM rebuilt r LEFT JOIN event_rollups_minute o ON o.bucketStart = r.bucketStart LEFT JOIN removed x ON x.bucketStart = r.bucketStart), " +
+            "merged AS (SELECT bucketStart, " +
+            "CASE WHEN complete THEN samples ELSE oldSamples + newSamples - removedSamples END AS samples, " +
+            "CASE WHEN complete THEN connectedSamples ELSE oldConnectedSamples + newConnectedSamples - removedConnectedSamples END AS connectedSamples, " +
+            "CASE WHEN complete THEN wifiDownSamples ELSE oldWifiDownSamples + newWifiDownSamples - removedWifiDownSamples END AS wifiDownSamples, " +
+            "CASE WHEN complete THEN internetDownSamples ELSE oldInternetDownSamples + newInternetDownSamples - removedInternetDownSamples END AS internetDownSamples, " +
+            "CASE WHEN complete THEN downtimeSeconds ELSE oldDowntimeSeconds + newDowntimeSeconds END AS downtimeSeconds, " +
+            "oldSamples, oldConnectedSamples, oldWifiDownSamples, oldInternetDownSamples, oldDowntimeSeconds FROM compared), " +
+            // a minute left without samples keeps its row, emptied, so the hours and days above it are moved down too
+            "minute AS (INSERT INTO event_rollups_minute (" + SUMMARY_COLUMNS + ") SELECT " + SUMMARY_COLUMNS + " FROM merged WHERE samples > 0 OR oldSamples > 0 " +
+            "ON CONFLICT (bucketStart) DO UPDATE SET samples = EXCLUDED.samples, connectedSamples = EXCLUDED.connectedSamples, " +
+            "wifiDownSamples = EXCLUDED.wifiDownSamples, internetDownSamples = EXCLUDED.internetDownSamples, downtimeSeconds = EXCLUDED.downtimeSeconds), " +
+            "hour AS (" + addDifference("event_rollups_hour", "hour") + "), " +
+            "day AS (" + addDifference("event_rollups_day", "day") + ") " +
+            "SELECT COUNT(*) FROM added;";
+    private final JdbcTemplate jdbcTemplate;
+    private final JobQueue queue;
+
+    public JdbcStatsDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new JobQueue(jdbcTemplate);
+    }
+
+    @Override
+    public List<EventSummary> getSummaries(SummaryResolution resolution, LocalDateTime from, LocalDateTime to) {
+        List<EventSummary> summaries = new ArrayList<>();
+        String sql;
+        if (resolution == SummaryResolution.WEEK) {
+            // weeks are few enough to add up from the day buckets on every read
+            sql = "SELECT * FROM (SELECT date_trunc('week', bucketStart) AS bucketStart, SUM(samples) AS samples, " +
+                    "SUM(connectedSamples) AS connectedSamples, SUM(wifiDownSamples) AS wifiDownSamples, " +
+                    "SUM(internetDownSamples) AS internetDownSamples, SUM(downtimeSeconds) AS downtimeSeconds " +
+                    "FROM event_rollups_day WHERE bucketStart >= ? AND bucketStart < CAST(? AS timestamp) + interval '1 week' GROUP BY 1) weeks " +
+                    "WHERE bucketStart >= ? AND bucketStart < ? AND samples > 0 ORDER BY bucketStart;";
+        } else {
+            sql = "SELECT bucketStart, samples, connectedSamples, wifiDownSamples, internetDownSamples, downtimeSeconds FROM " +
+                    rollupTable(resolution) + " WHERE bucketStart >= ? AND bucketStart < ? AND samples > 0 ORDER BY bucketStart;";
+        }
+        try {
+            SqlRowSet results = resolution == SummaryResolution.WEEK
+                    ? jdbcTemplate.queryForRowSet(sql, from, to, from, to)
+                    : jdbcTemplate.queryForRowSet(sql, from, to);
+            while (results.next()) {
+                summaries.add(mapRowToSummary(results));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+        return summaries;
+    }
+
+    @Override
+    public List<Availability> getAvailability(SummaryResolution resolution, OutageType type, String deviceId, LocalDateTime from, LocalDateTime to) {
+        List<Availability> series = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        // the stretches each monitor was reporting, kept by the outage job as events arrive, so time before a
+        // monitor's first sample, after its last and in its silent gaps is not counted, even once the events are gone
+        StringBuilder sql = new StringBuilder("WITH coverage AS (SELECT deviceId, startTime, endTime FROM device_coverage " +
+                "WHERE startTime < ? AND endTime > ?");
+        params.add(to);
+        params.add(from);
+        if (deviceId != null) {
+            sql.append(" AND deviceId = ?");
+            params.add(deviceId);
+        }
+        // each bucket is clipped to the requested range and to the present
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        sql.append("), buckets AS (SELECT bucketStart, GREATEST(bucketStart, ?) AS periodStart, " +
+                "LEAST(bucketStart + CAST(? AS interval), ?, ?) AS periodEnd " +
+                "FROM generate_series(date_trunc(?, CAST(? AS timestamp)), CAST(? AS timestamp), CAST(? AS interval)) bucketStart " +
+                "WHERE bucketStart < ?), ");
+        String step = "1 " + resolution.getUnit();
+        params.addAll(List.of(from, step, to, now, resolution.getUnit(), from, to, step, to));
+        // outages already hold each device's down stretches, so the series is built from them rather than from raw
+        // events; an ongoing outage counts as down until now, or until its monitor stopped reporting
+        sql.append("spans AS (SELECT deviceId, startTime, COALESCE(endTime, ?) AS endTime, endTime IS NOT NULL AS ended " +
+                "FROM outages WHERE outageType = ?");
+        params.add(now);
+        params.add(type.getCode());
+        if (deviceId != null) {
+            sql.append(" AND deviceId = ?");
+            params.add(deviceId);
+        }
+        sql.append(" AND startTime < ? AND (endTime IS NULL OR endTime > ?)) ");
+        params.add(to);
+        params.add(from);
+        // downtime is the part of each outage its monitor was observed for
+        sql.append("SELECT bucketStart, observedSeconds, downtimeSeconds, " +
+                "100 * (observedSeconds - downtimeSeconds) / observedSeconds AS uptimePercent, outages, " +
+                "CASE WHEN outages > 0 THEN (observedSeconds - downtimeSeconds) / outages END AS mtbfSeconds, mttrSeconds " +
+                "FROM (SELECT b.bucketStart, " +
+                "(SELECT COALESCE(SUM(EXTRACT(EPOCH FROM LEAST(c.endTime, b.periodEnd) - GREATEST(c.startTime, b.periodStart))), 0) " +
+                "FROM coverage c WHERE c.startTime < b.periodEnd AND c.endTime > b.periodStart) AS observedSeconds, " +
+                "(SELECT COALESCE(SUM(EXTRACT(EPOCH FROM LEAST(s.endTime, c.endTime, b.periodEnd) - GREATEST(s.startTime, c.startTime, b.periodStart))), 0) " +
+                "FROM spans s JOIN coverage c ON c.deviceId = s.deviceId AND c.startTime < s.endTime AND c.endTime > s.startTime " +
+                "WHERE s.startTime < b.periodEnd AND s.endTime > b.periodStart AND c.startTime < b.periodEnd AND c.endTime > b.periodStart) AS downtimeSeconds, " +
+                "(SELECT COUNT(*) FROM spans s WHERE s.startTime >= b.periodStart AND s.startTime < b.periodEnd) AS outages, " +
+                "(SELECT AVG(EXTRACT(EPOCH FROM s.endTime - s.startTime)) FROM spans s " +
+                "WHERE s.ended AND s.endTime > b.periodStart AND s.endTime <= b.periodEnd) AS mttrSeconds " +
+                "FROM buckets b WHERE b.periodEnd > b.periodStart) totals WHERE observedSeconds > 0 ORDER BY bucketStart;");
+        try {
+            SqlRowSet results = jdbcTemplate.queryForRowSet(sql.toString(), params.toArray());
+            while (results.next()) {
+                series.add(mapRowToAvailability(results));
+            }
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+        return series;
+    }
+
+    @Override
+    @Transactional
+    public int rollUpNewEvents(int maxSampleGapSeconds) {
+        try {
+            queue.register(ROLLUP_JOB);
+            Integer count = jdbcTemplate.queryForObject(ROLL_UP_QUEUED_EVENTS, Integer.class, ROLLUP_JOB, maxSampleGapSeconds);
+            return count != null ? count : 0;
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+    }
+
+    @Override
+    @Transactional
+    public int pruneRolledUpEvents(LocalDateTime cutoff) {
+        // events still queued for any job, including those that committed after later ones were processed, are kept
+        String sql = "DELETE FROM events WHERE eventTime < ? AND " + JobQueue.PROCESSED_BY_JOBS + ";";
+        try {
+            if (!queue.isRegistered(ROLLUP_JOB)) {
+                return 0;
+            }
+            return queue.retire(sql, cutoff);
+        } catch (CannotGetJdbcConnectionException e) {
+            throw new DaoException("Unable to connect to database.");
+        }
+    }
+
+    /**
+     * Add the change in each rebuilt minute to the coarser bucket above it.
+     */
+    private static String addDifference(String table, String unit) {
+        return "INSERT INTO " + table + " (" + SUMMARY_COLUMNS + ") SELECT date_trunc('" + unit + "', bucketStart), " +
+                "SUM(samples - oldSamples), SUM(connectedSamples - oldConnectedSamples), SUM(wifiDownSamples - oldWifiDownSamples), " +
+                "SUM(internetDownSamples - oldInternetDownSamples), SUM(downtimeSeconds - oldDowntimeSeconds) FROM merged " +
+                "WHERE samples > 0 OR oldSamples > 0 GROUP BY 1 " +
+                "ON CONFLICT (bucketStart) DO UPDATE SET samples = " + table + ".samples + EXCLUDED.samples, " +
+                "connectedSamples = " + table + ".connectedSamples + EXCLUDED.connectedSamples, " +
+                "wifiDownSamples = " + table + ".wifiDownSamples + EXCLUDED.wifiDownSamples, " +
+                "internetDownSamples = " + table + ".internetDownSamples + EXCLUDED.internetDownSamples, " +
+                "downtimeSeconds = " + table + ".downtimeSeconds + EXCLUDED.downtimeSeconds";
+    }
+
+    private String rollupTable(SummaryResolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return "event_rollups_minute";
+            case HOUR:
+                return "event_rollups_hour";
+            default:
+                return "event_rollups_day";
+        }
+    }
+
+    private Availability mapRowToAvailability(SqlRowSet rowSet) {
+        Availability availability = new Availability();
+        availability.setBucketStart(Objects.requireNonNull(rowSet.getTimestamp("bucketStart")).toLocalDateTime());
+        availability.setObservedSeconds(rowSet.getDouble("observedSeconds"));
+        availability.setDowntimeSeconds(rowSet.getDouble("downtimeSeconds"));
+        availability.setUptimePercent(rowSet.getDouble("uptimePercent"));
+        availability.setOutages(rowSet.getInt("outages"));
+        if (rowSet.getObject("mtbfSeconds") != null) {
+            availability.setMtbfSeconds(rowSet.getDouble("mtbfSeconds"));
+        }
+        if (rowSet.getObject("mttrSeconds") != null) {
+            availability.setMttrSeconds(rowSet.getDouble("mttrSeconds"));
+        }
+        return availability;
+    }
+
+    private EventSummary mapRowToSummary(SqlRowSet rowSet) {
+        EventSummary summary = new EventSummary();
+        summary.setBucketStart(Objects.requireNonNull(rowSet.getTimestamp("bucketStart")).toLocalDateTime());
+        summary.setSamples(rowSet.getInt("samples"));
+        summary.setConnectedSamples(rowSet.getInt("connectedSamples"));
+        summary.setWifiDownSamples(rowSet.getInt("wifiDownSamples"));
+        summary.setInternetDownSamples(rowSet.getInt("internetDownSamples"));
+        summary.setDowntimeSeconds(rowSet.getDouble("downtimeSeconds"));
+        return summary;
+    }
+}
@@ -0,0 +1,97 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The events a background job has yet to process. A trigger on events queues every inserted event for each
+ * registered job in the transaction that inserts it, so a job sees an event exactly when it commits, in whatever
+ * order the eventIds were handed out. Updates and deletes are queued the same way, with the minutes the old rows left
+ * and the samples removed from them, except the deletes that retire processed events. Callers are expected to be inside a transaction: the events they take are back
+ * in the queue if it rolls back.
+ */
+class JobQueue {
+    /**
+     * A condition on events that holds once no job still has the event queued, so jobs that read raw events see it
+     * before it is pruned or archived.
+     */
+    static final String PROCESSED_BY_JOBS = "eventId NOT IN (SELECT unnest(eventIds) FROM job_queue)";
+    private final JdbcTemplate jdbcTemplate;
+
+    JobQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add a job on its first run, with every event already stored queued for it. Inserts wait for the backfill, so
+     * each event is either in it or queued by the trigger.
+     */
+    void register(String jobName) {
+        if (isRegistered(jobName)) {
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE events IN SHARE MODE;");
+        if (jdbcTemplate.update("INSERT INTO jobs (jobName) VALUES (?) ON CONFLICT DO NOTHING;", jobName) > 0) {
+            jdbcTemplate.update("INSERT INTO job_queue (jobName, deviceId, bucketStart, eventIds, firstTime, lastTime) " +
+                    "SELECT ?, deviceId, date_trunc('minute', eventTime), array_agg(eventId), MIN(eventTime), MAX(eventTime) " +
+                    "FROM events GROUP BY deviceId, date_trunc('minute', eventTime);", jobName);
+        }
+    }
+
+    /**
+     * Delete events every job has already processed without queueing them as edits, so the summaries and outages
+     * built from them are kept.
+     */
+    int retire(String deleteSql, Object... args) {
+        // a transaction-local setting the delete trigger checks; a rollback resets it along with the delete
+        jdbcTemplate.queryForObject("SELECT set_config('network_monitor.retiring_events', 'on', true);", String.class);
+        int retired = jdbcTemplate.update(deleteSql, args);
+        jdbcTemplate.queryForObject("SELECT set_config('network_monitor.retiring_events', 'off', true);", String.class);
+        return retired;
+    }
+
+    boolean isRegistered(String jobName) {
+        Integer registered = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM jobs WHERE jobName = ?;", Integer.class, jobName);
+        return registered != null && registered > 0;
+    }
+
+    /**
+     * Take the job's queued events off the queue, summarized per device.
+     */
+    List<QueuedEvents> take(String jobName) {
+        register(jobName);
+        SqlRowSet results = jdbcTemplate.queryForRowSet("WITH taken AS (DELETE FROM job_queue WHERE jobName = ? " +
+                "RETURNING deviceId, eventIds, firstTime, lastTime) " +
+                "SELECT deviceId, SUM(cardinality(eventIds)) AS count, MIN(firstTime) AS firstTime, MAX(lastTime) AS lastTime " +
+                "FROM taken GROUP BY deviceId;", jobName);
+        List<QueuedEvents> queued = new ArrayList<>();
+        while (results.next()) {
+            queued.add(new QueuedEvents(results.getString("deviceId"), results.getInt("count"),
+                    Objects.requireNonNull(results.getTimestamp("firstTime")).toLocalDateTime(),
+                    Objects.requireNonNull(results.getTimestamp("lastTime")).toLocalDateTime()));
+        }
+        return queued;
+    }
+
+    /**
+     * One device's queued events: how many there are and the time they span.
+     */
+    static class QueuedEvents {
+        final String deviceId;
+        final int count;
+        final LocalDateTime firstTime;
+        final LocalDateTime lastTime;
+
+        QueuedEvents(String deviceId, int count, LocalDateTime firstTime, LocalDateTime lastTime) {
+            this.deviceId = deviceId;
+            this.count = count;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+    }
+}
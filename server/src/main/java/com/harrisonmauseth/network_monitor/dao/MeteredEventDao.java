@@ -0,0 +1,199 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Records Micrometer metrics for every call to the event store it wraps, {@link JdbcEventDao} or
+ * {@link SegmentLogEventDao}, so the latency and failures seen here are the storage's and not the cache's.
+ * <ul>
+ *     <li>{@code events.dao} times each call, tagged with the method, its outcome and the exception it failed with.
+ *     For a {@link DaoException} the exception is the storage error behind it, like
+ *     {@code CannotGetJdbcConnectionException}.</li>
+ *     <li>{@code events.dao.errors} counts failed calls by method and exception.</li>
+ *     <li>{@code events.ingest.batch.size} is the distribution of batch sizes passed to the multi-event writes.</li>
+ *     <li>{@code events.ingest.rows} counts the rows written, and {@code events.ingest.duplicates} the events
+ *     skipped because they were already logged. The rate of the first is the rows written per second.</li>
+ * </ul>
+ */
+public class MeteredEventDao implements EventDao, Closeable {
+    private final EventDao delegate;
+    private final MeterRegistry registry;
+    private final DistributionSummary batchSize;
+
+    public MeteredEventDao(EventDao delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.batchSize = DistributionSummary.builder("events.ingest.batch.size")
+                .description("Events passed to a single multi-event write")
+                .baseUnit("events")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public List<Event> getAllEvents() {
+        return time("getAllEvents", delegate::getAllEvents);
+    }
+
+    @Override
+    public void streamAllEvents(Consumer<Event> eventConsumer) {
+        time("streamAllEvents", () -> {
+            delegate.streamAllEvents(eventConsumer);
+            return null;
+        });
+    }
+
+    @Override
+    public void streamEvents(EventQuery query, Consumer<Event> eventConsumer) {
+        time("streamEvents", () -> {
+            delegate.streamEvents(query, eventConsumer);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Event> getAllEventsLimited(int limit) {
+        return time("getAllEventsLimited", () -> delegate.getAllEventsLimited(limit));
+    }
+
+    @Override
+    public List<Event> getAllDisconnectedEvents(int limit) {
+        return time("getAllDisconnectedEvents", () -> delegate.getAllDisconnectedEvents(limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedWifiEvents(int limit) {
+        return time("getDisconnectedWifiEvents", () -> delegate.getDisconnectedWifiEvents(limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedInternetEvents(int limit) {
+        return time("getDisconnectedInternetEvents", () -> delegate.getDisconnectedInternetEvents(limit));
+    }
+
+    @Override
+    public List<Event> getEvents(EventQuery query) {
+        return time("getEvents", () -> delegate.getEvents(query));
+    }
+
+    @Override
+    public List<String> getDeviceIds() {
+        return time("getDeviceIds", delegate::getDeviceIds);
+    }
+
+    @Override
+    public Event getEventById(int id) {
+        return time("getEventById", () -> delegate.getEventById(id));
+    }
+
+    @Override
+    public Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        return time("getEventBySequence", () -> delegate.getEventBySequence(deviceId, sequence, eventTime));
+    }
+
+    @Override
+    public Event createEvent(Event eventToCreate) {
+        Event createdEvent = time("createEvent", () -> delegate.createEvent(eventToCreate));
+        countRows("createEvent", 1, createdEvent != null ? 1 : 0);
+        return createdEvent;
+    }
+
+    @Override
+    public List<Event> createMultipleEvents(Event[] events) {
+        batchSize.record(events.length);
+        List<Event> createdEvents = time("createMultipleEvents", () -> delegate.createMultipleEvents(events));
+        countRows("createMultipleEvents", events.length, createdEvents.size());
+        return createdEvents;
+    }
+
+    @Override
+    public List<Integer> reserveEventIds(int count) {
+        return time("reserveEventIds", () -> delegate.reserveEventIds(count));
+    }
+
+    @Override
+    public List<Event> createEventsWithIds(List<Event> events) {
+        batchSize.record(events.size());
+        List<Event> createdEvents = time("createEventsWithIds", () -> delegate.createEventsWithIds(events));
+        countRows("createEventsWithIds", events.size(), createdEvents.size());
+        return createdEvents;
+    }
+
+    @Override
+    public Event updateEvent(Event eventToUpdate) {
+        return time("updateEvent", () -> delegate.updateEvent(eventToUpdate));
+    }
+
+    @Override
+    public int deleteEvent(int eventId) {
+        return time("deleteEvent", () -> delegate.deleteEvent(eventId));
+    }
+
+    /**
+     * Spring only sees this wrapper when the context shuts down, so a store that holds files open is closed through it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private <T> T time(String method, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            T result = call.get();
+            sample.stop(timer(method, "success", "none"));
+            return result;
+        } catch (RuntimeException e) {
+            String exception = exceptionName(e);
+            sample.stop(timer(method, "error", exception));
+            Counter.builder("events.dao.errors")
+                    .description("Failed event DAO calls")
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    private Timer timer(String method, String outcome, String exception) {
+        return Timer.builder("events.dao")
+                .description("Event DAO calls against the event store")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void countRows(String method, int given, int written) {
+        registry.counter("events.ingest.rows", "method", method).increment(written);
+        if (given > written) {
+            registry.counter("events.ingest.duplicates", "method", method).increment(given - written);
+        }
+    }
+
+    /**
+     * A DaoException only says which kind of call failed, so its cause is used to tell connection failures apart
+     * from integrity violations and the rest.
+     */
+    private static String exceptionName(RuntimeException e) {
+        Throwable reported = e instanceof DaoException && e.getCause() != null ? e.getCause() : e;
+        return reported.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,32 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Outage;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutageDao {
+
+    /**
+     * Get the outages that overlap the given range, sorted with the most recent start time first.
+     *
+     * @param deviceId the device whose outages to return, or null for every device
+     * @param type     the type of outage to return, or null for both
+     * @param from     the start of the range, or null for no lower bound
+     * @param to       the end of the range, or null for no upper bound
+     * @return a list of outages
+     */
+    List<Outage> getOutages(String deviceId, OutageType type, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Bring the outages up to date with every event inserted since the last refresh. Outages are tracked per
+     * device, and only the stretch of each device's history between the connected samples surrounding its new
+     * events is rebuilt, so late arrivals that
+     * split, extend or merge existing outages cost no more than the outages they touch. The time each device was
+     * reporting, which availability is measured against, is extended with the new events as well.
+     *
+     * @return the number of new events that were processed
+     */
+    int refreshOutages();
+}
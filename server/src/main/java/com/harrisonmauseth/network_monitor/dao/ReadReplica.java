@@ -0,0 +1,104 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A PostgreSQL replica that {@link JdbcEventDao} sends its reads to, so dashboard listings do not compete with
+ * monitor ingest for the primary. Writes always go to the primary, and a replica can lag behind it, so for a while
+ * after a write the reads that could see it are kept on the primary:
+ * <ul>
+ *     <li>after a device logs events, reads of that device's events, which is how a monitor reads its own log;</li>
+ *     <li>after an update or delete, every read, since those come from whoever is looking at the listings.</li>
+ * </ul>
+ * Other fleet-wide reads are not held back by new events, so steady ingest does not pin them to the primary. Reads
+ * that have to see every write, like listings tagged with the events version, are only served by the replica once no
+ * write at all is within the window. The window should be longer than the replica usually lags.
+ */
+public class ReadReplica implements Closeable {
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long readYourWritesNanos;
+    private final Map<String, Long> lastCreatedByDevice = new ConcurrentHashMap<>();
+    private volatile long lastChanged;
+    private volatile boolean changed;
+    private volatile long lastWritten;
+    private volatile boolean written;
+
+    public ReadReplica(DataSource dataSource, Duration readYourWrites) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readYourWritesNanos = readYourWrites.toNanos();
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * @return a read-only transaction on the replica, for reads that stream through a cursor
+     */
+    public TransactionTemplate getReadOnlyTransaction() {
+        return readOnlyTransaction;
+    }
+
+    /**
+     * Note that a device logged events on the primary.
+     */
+    public void created(String deviceId) {
+        long now = System.nanoTime();
+        lastCreatedByDevice.put(deviceId, now);
+        lastWritten = now;
+        written = true;
+    }
+
+    /**
+     * Note that events were updated or deleted on the primary.
+     */
+    public void changed() {
+        long now = System.nanoTime();
+        lastChanged = now;
+        changed = true;
+        lastWritten = now;
+        written = true;
+    }
+
+    /**
+     * @param deviceId the device whose events are read, or null for a read across devices
+     * @return whether the replica can serve the read without missing a recent write
+     */
+    public boolean canRead(String deviceId) {
+        long now = System.nanoTime();
+        if (changed && now - lastChanged < readYourWritesNanos) {
+            return false;
+        }
+        Long lastCreated = deviceId != null ? lastCreatedByDevice.get(deviceId) : null;
+        return lastCreated == null || now - lastCreated >= readYourWritesNanos;
+    }
+
+    /**
+     * @return whether every write has had the window to reach the replica, so it can serve a read that has to see all
+     * of them
+     */
+    public boolean isCaughtUp() {
+        return !written || System.nanoTime() - lastWritten >= readYourWritesNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+}
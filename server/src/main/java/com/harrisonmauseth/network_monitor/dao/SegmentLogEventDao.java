@@ -0,0 +1,509 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores events in an append-only log of memory-mapped segment files instead of PostgreSQL, for small sites where
+ * running a database server next to the application costs more than the events are worth. Enabled with
+ * {@code events.storage.engine=segment-log}.
+ * <p>
+ * Events are appended to the newest segment and a new one is started when it is full. Each segment keeps a sparse
+ * time index and failure bitmaps per block of records (see {@link EventLogSegment}), and reads walk the blocks that
+ * overlap the query newest first, merging their events so that they come out in the same
+ * {@code eventTime DESC, eventId DESC} order as the database returns them. A limited read stops as soon as no
+ * remaining block can hold a newer event than the ones it has, so the newest page of a long log only touches its
+ * last few blocks. Updates and deletes append a new record for the event and mark the old one dead.
+ * <p>
+ * Nothing but the block summaries is kept in memory, the records are read from the mapped files as needed. Dead
+ * records are never reclaimed, which suits a log of heartbeats that are rarely edited.
+ */
+@Component("eventStore")
+@ConditionalOnProperty(name = "events.storage.engine", havingValue = "segment-log")
+public class SegmentLogEventDao implements EventDao, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SegmentLogEventDao.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("events-(\\d{12})\\.log");
+    private static final Comparator<Event> NEWEST_FIRST = Comparator.comparing(Event::getEventTime)
+            .thenComparingInt(Event::getEventId).reversed();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<EventLogSegment> segments = new ArrayList<>();
+    private final Map<String, Integer> liveEventsByDevice = new TreeMap<>();
+    private int nextEventId = 1;
+
+    public SegmentLogEventDao(@Value("${events.storage.directory:event-log}") Path directory,
+                              @Value("${events.storage.segment-size:16MB}") DataSize segmentSize,
+                              @Value("${events.storage.fsync:true}") boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, Math.max(segmentSize.toBytes(), 4096));
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(EventLogSegment.open(file, Long.parseLong(matcher.group(1)), this.segmentSize));
+                }
+            }
+        }
+        replay();
+        if (segments.isEmpty()) {
+            startSegment();
+        }
+        log.info("Opened the event log in {} with {} events in {} segments", directory.toAbsolutePath(),
+                liveEventsByDevice.values().stream().mapToInt(Integer::intValue).sum(), segments.size());
+    }
+
+    @Override
+    public List<Event> getAllEvents() {
+        return getEvents(new EventQuery());
+    }
+
+    @Override
+    public void streamAllEvents(Consumer<Event> eventConsumer) {
+        streamEvents(new EventQuery(), eventConsumer);
+    }
+
+    @Override
+    public void streamEvents(EventQuery query, Consumer<Event> eventConsumer) {
+        scan(query, event -> {
+            eventConsumer.accept(event);
+            return true;
+        });
+    }
+
+    @Override
+    public List<Event> getAllEventsLimited(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.ANY, limit));
+    }
+
+    @Override
+    public List<Event> getAllDisconnectedEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedWifiEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getDisconnectedInternetEvents(int limit) {
+        return getEvents(new EventQuery(EventQuery.Status.INTERNET_DISCONNECTED, limit));
+    }
+
+    @Override
+    public List<Event> getEvents(EventQuery query) {
+        List<Event> events = new ArrayList<>();
+        scan(query, event -> {
+            events.add(event);
+            return query.getLimit() <= 0 || events.size() < query.getLimit();
+        });
+        return events;
+    }
+
+    @Override
+    public List<String> getDeviceIds() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(liveEventsByDevice.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Event getEventById(int id) {
+        lock.readLock().lock();
+        try {
+            Location location = find(id);
+            return location != null ? location.segment.read(location.record) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Event getEventBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        lock.readLock().lock();
+        try {
+            return findBySequence(deviceId, sequence, eventTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Event createEvent(Event eventToCreate) {
+        lock.writeLock().lock();
+        try {
+            Event event = create(eventToCreate, nextEventId);
+            if (event != null) {
+                flush();
+            }
+            return event;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Events are appended one after another, so unlike the database a failure part way through a batch keeps the
+     * events appended before it.
+     */
+    @Override
+    public List<Event> createMultipleEvents(Event[] events) {
+        List<Event> createdEvents = new ArrayList<>(events.length);
+        lock.writeLock().lock();
+        try {
+            for (Event eventToCreate : events) {
+                Event event = create(eventToCreate, nextEventId);
+                if (event != null) {
+                    createdEvents.add(event);
+                }
+            }
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return createdEvents;
+    }
+
+    @Override
+    public List<Integer> reserveEventIds(int count) {
+        List<Integer> ids = new ArrayList<>();
+        if (count <= 0) {
+            return ids;
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                ids.add(nextEventId + i);
+            }
+            nextEventId += count;
+            // the reservation is logged so the ids are not handed out again after a restart
+            append(EventLogSegment.RESERVE, nextEventId - 1, null);
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Event> createEventsWithIds(List<Event> events) {
+        List<Event> createdEvents = new ArrayList<>(events.size());
+        lock.writeLock().lock();
+        try {
+            for (Event eventToCreate : events) {
+                if (find(eventToCreate.getEventId()) != null) {
+                    continue;
+                }
+                Event event = create(eventToCreate, eventToCreate.getEventId());
+                if (event != null) {
+                    createdEvents.add(event);
+                }
+            }
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return createdEvents;
+    }
+
+    @Override
+    public Event updateEvent(Event eventToUpdate) {
+        if (eventToUpdate.getEventTime() == null) {
+            throw new DaoException("Data integrity violation");
+        }
+        lock.writeLock().lock();
+        try {
+            Location location = find(eventToUpdate.getEventId());
+            if (location == null) {
+                throw new DaoException("Zero rows affected, expected at least one.");
+            }
+            Event existing = location.segment.read(location.record);
+            // an update without a deviceId keeps the device the event was logged by, and the sequence is kept as is
+            Event updated = new Event(existing.getEventId(),
+                    eventToUpdate.getDeviceId() != null ? eventToUpdate.getDeviceId() : existing.getDeviceId(),
+                    eventToUpdate.getEventTime(), eventToUpdate.isConnectedToWifi(), eventToUpdate.isConnectedToInternet(),
+                    eventToUpdate.getMessage());
+            updated.setSequence(existing.getSequence());
+            append(EventLogSegment.EVENT, updated.getEventId(), updated);
+            location.segment.markDead(location.record);
+            countEvent(existing.getDeviceId(), -1);
+            countEvent(updated.getDeviceId(), 1);
+            flush();
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteEvent(int eventId) {
+        lock.writeLock().lock();
+        try {
+            Location location = find(eventId);
+            if (location == null) {
+                return 0;
+            }
+            Event existing = location.segment.read(location.record);
+            append(EventLogSegment.DELETE, eventId, null);
+            location.segment.markDead(location.record);
+            countEvent(existing.getDeviceId(), -1);
+            flush();
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (EventLogSegment segment : segments) {
+                segment.force();
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pick the blocks that can hold matching events and hand their events to the sink newest first, until the sink
+     * returns false. Blocks are visited by their newest event time, and an event is only handed over once no block
+     * left to visit can hold a newer one. The lock is held while choosing and decoding blocks but not while the sink
+     * runs, so a slow consumer of a stream does not hold up writes.
+     */
+    private void scan(EventQuery query, Predicate<Event> sink) {
+        long from = query.getFrom() != null ? EventLogSegment.toNanos(query.getFrom()) : Long.MIN_VALUE;
+        long to = query.getTo() != null ? EventLogSegment.toNanos(query.getTo()) - 1 : Long.MAX_VALUE;
+        EventCursor after = query.getAfter();
+        if (after != null) {
+            to = Math.min(to, EventLogSegment.toNanos(after.getEventTime()));
+        }
+        List<BlockRef> blocks = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (EventLogSegment segment : segments) {
+                for (int block = 0; block < segment.getBlockCount(); block++) {
+                    if (segment.getMaxTime(block) >= from && segment.getMinTime(block) <= to
+                            && segment.candidates(block, query.getStatus()) != 0) {
+                        blocks.add(new BlockRef(segment, block, segment.getMaxTime(block)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        blocks.sort(Comparator.comparingLong((BlockRef ref) -> ref.maxTime).reversed());
+
+        PriorityQueue<Event> pending = new PriorityQueue<>(NEWEST_FIRST);
+        for (BlockRef ref : blocks) {
+            while (!pending.isEmpty() && EventLogSegment.toNanos(pending.peek().getEventTime()) > ref.maxTime) {
+                if (!sink.test(pending.poll())) {
+                    return;
+                }
+            }
+            List<Event> events;
+            lock.readLock().lock();
+            try {
+                events = ref.segment.read(ref.block, ref.segment.candidates(ref.block, query.getStatus()));
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (Event event : events) {
+                if (query.matches(event) && isAfter(event, after)) {
+                    pending.add(event);
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            if (!sink.test(pending.poll())) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isAfter(Event event, EventCursor cursor) {
+        if (cursor == null) {
+            return true;
+        }
+        int compared = event.getEventTime().compareTo(cursor.getEventTime());
+        return compared < 0 || (compared == 0 && event.getEventId() < cursor.getEventId());
+    }
+
+    /**
+     * Append an event under the given id, unless its device already logged its sequence at the same time.
+     * Callers hold the write lock.
+     *
+     * @return the appended event, or null if it was already logged
+     */
+    private Event create(Event eventToCreate, int eventId) {
+        if (eventToCreate.getEventTime() == null) {
+            eventToCreate.setEventTime(LocalDateTime.now(ZoneId.of("UTC")));
+        }
+        String deviceId = deviceIdOf(eventToCreate);
+        if (eventToCreate.getSequence() != null
+                && findBySequence(deviceId, eventToCreate.getSequence(), eventToCreate.getEventTime()) != null) {
+            return null;
+        }
+        Event event = new Event(eventId, deviceId, eventToCreate.getEventTime(), eventToCreate.isConnectedToWifi(),
+                eventToCreate.isConnectedToInternet(), eventToCreate.getMessage());
+        event.setSequence(eventToCreate.getSequence());
+        append(EventLogSegment.EVENT, eventId, event);
+        nextEventId = Math.max(nextEventId, eventId + 1);
+        countEvent(deviceId, 1);
+        return event;
+    }
+
+    private static String deviceIdOf(Event event) {
+        return event.getDeviceId() != null ? event.getDeviceId() : Event.DEFAULT_DEVICE_ID;
+    }
+
+    private Event findBySequence(String deviceId, long sequence, LocalDateTime eventTime) {
+        long time = EventLogSegment.toNanos(eventTime);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            EventLogSegment segment = segments.get(i);
+            for (int block = segment.getBlockCount() - 1; block >= 0; block--) {
+                if (time < segment.getMinTime(block) || time > segment.getMaxTime(block)) {
+                    continue;
+                }
+                for (Event event : segment.read(block, segment.candidates(block, EventQuery.Status.ANY))) {
+                    if (event.getSequence() != null && event.getSequence() == sequence
+                            && event.getDeviceId().equals(deviceId) && event.getEventTime().equals(eventTime)) {
+                        return event;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Location find(int eventId) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            int record = segments.get(i).find(eventId);
+            if (record >= 0) {
+                return new Location(segments.get(i), record);
+            }
+        }
+        return null;
+    }
+
+    private void append(byte type, int eventId, Event event) {
+        try {
+            EventLogSegment active = segments.get(segments.size() - 1);
+            if (active.append(type, eventId, event) < 0) {
+                active.force();
+                if (startSegment().append(type, eventId, event) < 0) {
+                    throw new DaoException("Event is too large for a log segment.");
+                }
+            }
+        } catch (IOException e) {
+            throw new DaoException("Unable to write the event log.", e);
+        }
+    }
+
+    private void flush() {
+        if (fsync) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    private EventLogSegment startSegment() throws IOException {
+        long number = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getNumber() + 1;
+        EventLogSegment segment = EventLogSegment.open(directory.resolve(String.format("events-%012d.log", number)), number, segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void countEvent(String deviceId, int change) {
+        liveEventsByDevice.merge(deviceId, change, (count, delta) -> count + delta == 0 ? null : count + delta);
+    }
+
+    /**
+     * Rebuild what the records imply but the segments do not track on their own: which records were superseded or
+     * deleted by later ones, the live events per device and the next free id.
+     */
+    private void replay() {
+        Map<Integer, Location> live = new HashMap<>();
+        Map<Integer, String> deviceIds = new HashMap<>();
+        for (EventLogSegment segment : segments) {
+            segment.forEachRecord((record, type, eventId, deviceId) -> {
+                nextEventId = Math.max(nextEventId, eventId + 1);
+                if (type == EventLogSegment.RESERVE) {
+                    return;
+                }
+                Location previous = type == EventLogSegment.EVENT
+                        ? live.put(eventId, new Location(segment, record))
+                        : live.remove(eventId);
+                if (previous != null) {
+                    previous.segment.markDead(previous.record);
+                    countEvent(deviceIds.remove(eventId), -1);
+                }
+                if (type == EventLogSegment.EVENT) {
+                    deviceIds.put(eventId, deviceId);
+                    countEvent(deviceId, 1);
+                }
+            });
+        }
+    }
+
+    private static final class Location {
+        private final EventLogSegment segment;
+        private final int record;
+
+        private Location(EventLogSegment segment, int record) {
+            this.segment = segment;
+            this.record = record;
+        }
+    }
+
+    private static final class BlockRef {
+        private final EventLogSegment segment;
+        private final int block;
+        private final long maxTime;
+
+        private BlockRef(EventLogSegment segment, int block, long maxTime) {
+            this.segment = segment;
+            this.block = block;
+            this.maxTime = maxTime;
+        }
+    }
+}
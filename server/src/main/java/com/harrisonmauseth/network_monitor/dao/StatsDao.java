@@ -0,0 +1,61 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Availability;
+import com.harrisonmauseth.network_monitor.model.EventSummary;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import com.harrisonmauseth.network_monitor.model.SummaryResolution;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StatsDao {
+
+    /**
+     * Get the rolled up summaries whose bucket starts within the given range, oldest first.
+     *
+     * @param resolution the bucket size to read
+     * @param from       the inclusive start of the range
+     * @param to         the exclusive end of the range
+     * @return a list of summaries, one per bucket that has samples
+     */
+    List<EventSummary> getSummaries(SummaryResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Get the availability of one connection for every bucket in the given range, oldest first. The series is built
+     * from the outages and device coverage tables, so it costs as much as the outages and reporting stretches in the
+     * range rather than the events, and still covers events that were pruned or archived. A bucket's observed time is
+     * the time each monitor measured was reporting in it, clipped to the range and the present, and its downtime the
+     * observed part of the outages; MTBF is its uptime divided by the outages that started in it and MTTR the average
+     * length of the outages that ended in it.
+     *
+     * @param resolution the bucket size
+     * @param type       the connection to measure
+     * @param deviceId   the monitor to measure, or null for every monitor
+     * @param from       the inclusive start of the range
+     * @param to         the exclusive end of the range
+     * @return a list with one entry per bucket in which a monitor was observed
+     */
+    List<Availability> getAvailability(SummaryResolution resolution, OutageType type, String deviceId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Roll up every event inserted, updated or deleted since the last run into the minute, hour and day summaries.
+     * Only the minutes that gained or lost events, and the minutes of the samples just before them, are recomputed, so
+     * late arrivals from buffered flushes are folded into the right buckets and edits replace what they changed. A
+     * minute whose raw events have been pruned or archived keeps its summary, with the new samples added to it and the
+     * removed ones taken off. Pruning and archiving themselves never change the summaries. A down sample counts as
+     * downtime until the next sample, but never for longer than maxSampleGapSeconds.
+     *
+     * @param maxSampleGapSeconds the longest gap between samples that still counts as downtime
+     * @return the number of new or updated events that were rolled up
+     */
+    int rollUpNewEvents(int maxSampleGapSeconds);
+
+    /**
+     * Delete raw events older than the cutoff, as long as they have already been rolled up and no other job still
+     * has them queued.
+     *
+     * @param cutoff events before this time are deleted
+     * @return the number of events that were deleted
+     */
+    int pruneRolledUpEvents(LocalDateTime cutoff);
+}
@@ -0,0 +1,12 @@
+package com.harrisonmauseth.network_monitor.exception;
+
+/**
+ * Thrown when the asynchronous ingest queue has no room for the events being logged. The events were not
+ * accepted, so the caller should keep them and try again later.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
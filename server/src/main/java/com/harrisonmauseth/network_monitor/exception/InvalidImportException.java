@@ -0,0 +1,12 @@
+package com.harrisonmauseth.network_monitor.exception;
+
+/**
+ * Thrown when a line of an event import cannot be read as an event. The message names the line, and nothing from
+ * the import is stored.
+ */
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(long line, String message) {
+        super("Line " + line + ": " + message);
+    }
+}
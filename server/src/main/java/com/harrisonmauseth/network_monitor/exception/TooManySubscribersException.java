@@ -0,0 +1,11 @@
+package com.harrisonmauseth.network_monitor.exception;
+
+/**
+ * Thrown when the live event feed already has as many subscribers as it is configured to serve.
+ */
+public class TooManySubscribersException extends RuntimeException {
+
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,104 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * How available one connection was during one bucket. Observed and down time are device-seconds, so a bucket
+ * covering several monitors adds up the time of each. MTBF and MTTR are null when the bucket has no failures
+ * or no recoveries to average over.
+ */
+@JsonPropertyOrder({"bucketStart", "observedSeconds", "downtimeSeconds", "uptimePercent", "outages", "mtbfSeconds", "mttrSeconds"})
+public class Availability {
+    private LocalDateTime bucketStart;
+    private double observedSeconds;
+    private double downtimeSeconds;
+    private double uptimePercent;
+    private int outages;
+    private Double mtbfSeconds;
+    private Double mttrSeconds;
+
+    public Availability() {
+    }
+
+    public Availability(LocalDateTime bucketStart, double observedSeconds, double downtimeSeconds, double uptimePercent,
+                        int outages, Double mtbfSeconds, Double mttrSeconds) {
+        this.bucketStart = bucketStart;
+        this.observedSeconds = observedSeconds;
+        this.downtimeSeconds = downtimeSeconds;
+        this.uptimePercent = uptimePercent;
+        this.outages = outages;
+        this.mtbfSeconds = mtbfSeconds;
+        this.mttrSeconds = mttrSeconds;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public double getObservedSeconds() {
+        return observedSeconds;
+    }
+
+    public void setObservedSeconds(double observedSeconds) {
+        this.observedSeconds = observedSeconds;
+    }
+
+    public double getDowntimeSeconds() {
+        return downtimeSeconds;
+    }
+
+    public void setDowntimeSeconds(double downtimeSeconds) {
+        this.downtimeSeconds = downtimeSeconds;
+    }
+
+    public double getUptimePercent() {
+        return uptimePercent;
+    }
+
+    public void setUptimePercent(double uptimePercent) {
+        this.uptimePercent = uptimePercent;
+    }
+
+    public int getOutages() {
+        return outages;
+    }
+
+    public void setOutages(int outages) {
+        this.outages = outages;
+    }
+
+    public Double getMtbfSeconds() {
+        return mtbfSeconds;
+    }
+
+    public void setMtbfSeconds(Double mtbfSeconds) {
+        this.mtbfSeconds = mtbfSeconds;
+    }
+
+    public Double getMttrSeconds() {
+        return mttrSeconds;
+    }
+
+    public void setMttrSeconds(Double mttrSeconds) {
+        this.mttrSeconds = mttrSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "Availability{" +
+                "bucketStart=" + bucketStart +
+                ", observedSeconds=" + observedSeconds +
+                ", downtimeSeconds=" + downtimeSeconds +
+                ", uptimePercent=" + uptimePercent +
+                ", outages=" + outages +
+                ", mtbfSeconds=" + mtbfSeconds +
+                ", mttrSeconds=" + mttrSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"capacity", "size", "hits", "misses", "hitRatio"})
+public class CacheStats {
+    private final int capacity;
+    private final int size;
+    private final long hits;
+    private final long misses;
+
+    public CacheStats(int capacity, int size, long hits, long misses) {
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the share of reads served from the cache, or zero before the first read
+     */
+    public double getHitRatio() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "capacity=" + capacity +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+}
@@ -3,12 +3,23 @@ package com.harrisonmauseth.network_monitor.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import java.time.LocalDateTime;
 
-@JsonPropertyOrder({"eventId", "eventTime", "isConnectedToWifi", "isConnectedToInternet", "message"})
+@JsonPropertyOrder({"eventId", "deviceId", "sequence", "eventTime", "isConnectedToWifi", "isConnectedToInternet", "message"})
 public class Event {
+    /**
+     * The device events are assigned to when the monitor that logged them did not send a deviceId.
+     */
+    public static final String DEFAULT_DEVICE_ID = "default";
+
     private int eventId;
+    @Pattern(regexp = "[A-Za-z0-9:._-]{1,64}", message = "'deviceId' must be 1-64 letters, digits, ':', '.', '_' or '-'")
+    private String deviceId;
+    @PositiveOrZero(message = "'sequence' must not be negative")
+    private Long sequence;
     private LocalDateTime eventTime;
     @JsonProperty("isConnectedToWifi")
     @NotNull(message = "'connected' must be a boolean")
@@ -28,6 +39,11 @@ public class Event {
         this.message = message;
     }
 
+    public Event(int eventId, String deviceId, LocalDateTime eventTime, boolean isConnectedToWifi, boolean isConnectedToInternet, String message) {
+        this(eventId, eventTime, isConnectedToWifi, isConnectedToInternet, message);
+        this.deviceId = deviceId;
+    }
+
     public int getEventId() {
         return eventId;
     }
@@ -36,6 +52,29 @@ public class Event {
         this.eventId = eventId;
     }
 
+    /**
+     * @return the monitor that logged this event, or null if it has not been stored yet and none was given
+     */
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * @return the number the monitor gave this event, unique per device and eventTime, or null if it sent none.
+     * An event whose device, sequence and eventTime are already stored is skipped when logged again.
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
     public LocalDateTime getEventTime() {
         return eventTime;
     }
@@ -76,6 +115,8 @@ public class Event {
     public String toString() {
         return "Event{" +
                 "eventId=" + eventId +
+                ", deviceId='" + deviceId + '\'' +
+                ", sequence=" + sequence +
                 ", eventTime=" + eventTime +
                 ", isConnectedToWifi=" + isConnectedToWifi +
                 ", isConnectedToInternet=" + isConnectedToInternet +
@@ -0,0 +1,67 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * A position in the event listing, ordered by eventTime and then eventId (both descending).
+ * Clients only ever see the encoded form, which should be treated as an opaque token.
+ */
+public class EventCursor {
+    private final LocalDateTime eventTime;
+    private final int eventId;
+
+    public EventCursor(LocalDateTime eventTime, int eventId) {
+        this.eventTime = eventTime;
+        this.eventId = eventId;
+    }
+
+    /**
+     * Create a cursor that points just past the given event.
+     *
+     * @param event the last event of the current page
+     * @return a cursor for the next page
+     */
+    public static EventCursor after(Event event) {
+        return new EventCursor(event.getEventTime(), event.getEventId());
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode()}.
+     *
+     * @param token the encoded cursor
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static EventCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(',');
+            return new EventCursor(LocalDateTime.parse(decoded.substring(0, separator)), Integer.parseInt(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = eventTime + "," + eventId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getEventTime() {
+        return eventTime;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    @Override
+    public String toString() {
+        return "EventCursor{" +
+                "eventTime=" + eventTime +
+                ", eventId=" + eventId +
+                '}';
+    }
+}
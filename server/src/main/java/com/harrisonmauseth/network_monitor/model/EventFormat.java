@@ -0,0 +1,36 @@
+package com.harrisonmauseth.network_monitor.model;
+
+/**
+ * The formats events are imported and exported in by /api/events/import and /api/events/export.
+ * <ul>
+ *     <li>CSV has a header row naming the columns, which are the event's JSON properties;</li>
+ *     <li>NDJSON has one event per line, as the JSON the rest of the API uses.</li>
+ * </ul>
+ */
+public enum EventFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    EventFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param code csv or ndjson, in any case
+     * @throws IllegalArgumentException if the code is not a known format
+     */
+    public static EventFormat fromCode(String code) {
+        for (EventFormat format : values()) {
+            if (format.name().equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + code);
+    }
+}
@@ -0,0 +1,29 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"received", "imported", "skipped"})
+public class EventImportResult {
+    private final int received;
+    private final int imported;
+
+    public EventImportResult(int received, int imported) {
+        this.received = received;
+        this.imported = imported;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return the events that were already stored, by device, sequence and eventTime, and were not imported again
+     */
+    public int getSkipped() {
+        return received - imported;
+    }
+}
@@ -0,0 +1,146 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Describes a page of events to read: which connection failures to include, how many rows to return
+ * and, optionally, the device to read from, the time range to read and the cursor the page should start after.
+ */
+public class EventQuery {
+
+    public enum Status {
+        ANY,
+        DISCONNECTED,
+        WIFI_DISCONNECTED,
+        INTERNET_DISCONNECTED
+    }
+
+    private Status status = Status.ANY;
+    private int limit;
+    private EventCursor after;
+    private String deviceId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private boolean consistent;
+
+    public EventQuery() {
+    }
+
+    public EventQuery(Status status, int limit) {
+        this.status = status;
+        this.limit = limit;
+    }
+
+    public EventQuery(Status status, int limit, EventCursor after) {
+        this.status = status;
+        this.limit = limit;
+        this.after = after;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the maximum number of events to return, where zero or less means no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public EventCursor getAfter() {
+        return after;
+    }
+
+    public void setAfter(EventCursor after) {
+        this.after = after;
+    }
+
+    /**
+     * @return the device whose events to read, or null to read every device's events
+     */
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * @return the inclusive start of the time range to read, or null for no lower bound
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    /**
+     * @return the exclusive end of the time range to read, or null for no upper bound
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    /**
+     * @return whether the read has to see every write made so far, so a read replica only serves it once every write
+     * has had time to reach it
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public void setConsistent(boolean consistent) {
+        this.consistent = consistent;
+    }
+
+    /**
+     * @return whether the event passes this query's connection, device and time filters; the limit and cursor are ignored
+     */
+    public boolean matches(Event event) {
+        if (deviceId != null && !deviceId.equals(event.getDeviceId())) {
+            return false;
+        }
+        if ((from != null && event.getEventTime().isBefore(from)) || (to != null && !event.getEventTime().isBefore(to))) {
+            return false;
+        }
+        switch (status) {
+            case DISCONNECTED:
+                return !event.isConnectedToWifi() || !event.isConnectedToInternet();
+            case WIFI_DISCONNECTED:
+                return !event.isConnectedToWifi();
+            case INTERNET_DISCONNECTED:
+                return !event.isConnectedToInternet();
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EventQuery{" +
+                "status=" + status +
+                ", limit=" + limit +
+                ", after=" + after +
+                ", deviceId='" + deviceId + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                ", consistent=" + consistent +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"bucketStart", "samples", "connectedSamples", "wifiDownSamples", "internetDownSamples", "downtimeSeconds"})
+public class EventSummary {
+    private LocalDateTime bucketStart;
+    private int samples;
+    private int connectedSamples;
+    private int wifiDownSamples;
+    private int internetDownSamples;
+    private double downtimeSeconds;
+
+    public EventSummary() {
+    }
+
+    public EventSummary(LocalDateTime bucketStart, int samples, int connectedSamples, int wifiDownSamples, int internetDownSamples, double downtimeSeconds) {
+        this.bucketStart = bucketStart;
+        this.samples = samples;
+        this.connectedSamples = connectedSamples;
+        this.wifiDownSamples = wifiDownSamples;
+        this.internetDownSamples = internetDownSamples;
+        this.downtimeSeconds = downtimeSeconds;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    public int getConnectedSamples() {
+        return connectedSamples;
+    }
+
+    public void setConnectedSamples(int connectedSamples) {
+        this.connectedSamples = connectedSamples;
+    }
+
+    public int getWifiDownSamples() {
+        return wifiDownSamples;
+    }
+
+    public void setWifiDownSamples(int wifiDownSamples) {
+        this.wifiDownSamples = wifiDownSamples;
+    }
+
+    public int getInternetDownSamples() {
+        return internetDownSamples;
+    }
+
+    public void setInternetDownSamples(int internetDownSamples) {
+        this.internetDownSamples = internetDownSamples;
+    }
+
+    public double getDowntimeSeconds() {
+        return downtimeSeconds;
+    }
+
+    public void setDowntimeSeconds(double downtimeSeconds) {
+        this.downtimeSeconds = downtimeSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSummary{" +
+                "bucketStart=" + bucketStart +
+                ", samples=" + samples +
+                ", connectedSamples=" + connectedSamples +
+                ", wifiDownSamples=" + wifiDownSamples +
+                ", internetDownSamples=" + internetDownSamples +
+                ", downtimeSeconds=" + downtimeSeconds +
+                '}';
+    }
+}
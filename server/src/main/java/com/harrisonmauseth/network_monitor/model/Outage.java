@@ -0,0 +1,94 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"outageId", "deviceId", "type", "startTime", "endTime", "durationSeconds"})
+public class Outage {
+    private int outageId;
+    private String deviceId;
+    private OutageType type;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    public Outage() {
+    }
+
+    public Outage(int outageId, OutageType type, LocalDateTime startTime, LocalDateTime endTime) {
+        this.outageId = outageId;
+        this.type = type;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public Outage(int outageId, String deviceId, OutageType type, LocalDateTime startTime, LocalDateTime endTime) {
+        this(outageId, type, startTime, endTime);
+        this.deviceId = deviceId;
+    }
+
+    public int getOutageId() {
+        return outageId;
+    }
+
+    public void setOutageId(int outageId) {
+        this.outageId = outageId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public OutageType getType() {
+        return type;
+    }
+
+    public void setType(OutageType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * @return the time of the first connected event after the outage, or null if it is still ongoing
+     */
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    /**
+     * @return how long the outage lasted, or null if it is still ongoing
+     */
+    public Long getDurationSeconds() {
+        if (startTime == null || endTime == null) {
+            return null;
+        }
+        return Duration.between(startTime, endTime).getSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return "Outage{" +
+                "outageId=" + outageId +
+                ", deviceId='" + deviceId + '\'' +
+                ", type=" + type +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package com.harrisonmauseth.network_monitor.model;
+
+/**
+ * The connection an outage was lost on, along with the events column that tracks it.
+ */
+public enum OutageType {
+    WIFI("wifi", "isConnectedToWifi"),
+    INTERNET("internet", "isConnectedToInternet");
+
+    private final String code;
+    private final String eventColumn;
+
+    OutageType(String code, String eventColumn) {
+        this.code = code;
+        this.eventColumn = eventColumn;
+    }
+
+    public static OutageType fromCode(String code) {
+        for (OutageType type : values()) {
+            if (type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown outage type: " + code);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getEventColumn() {
+        return eventColumn;
+    }
+}
@@ -0,0 +1,29 @@
+package com.harrisonmauseth.network_monitor.model;
+
+import java.time.Duration;
+
+/**
+ * The bucket sizes events are rolled up into, along with the matching date_trunc field.
+ */
+public enum SummaryResolution {
+    MINUTE(Duration.ofMinutes(1), "minute"),
+    HOUR(Duration.ofHours(1), "hour"),
+    DAY(Duration.ofDays(1), "day"),
+    WEEK(Duration.ofDays(7), "week");
+
+    private final Duration bucketSize;
+    private final String unit;
+
+    SummaryResolution(Duration bucketSize, String unit) {
+        this.bucketSize = bucketSize;
+        this.unit = unit;
+    }
+
+    public Duration getBucketSize() {
+        return bucketSize;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+}
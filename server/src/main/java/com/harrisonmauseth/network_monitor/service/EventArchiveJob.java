@@ -0,0 +1,51 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.harrisonmauseth.network_monitor.dao.EventArchiveDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Moves events older than the configured number of days out of the events table into the columnar files of the
+ * cold event store, one day at a time, oldest first. The event listings read both, so archiving changes where events
+ * are kept but not what the API returns.
+ */
+@Component
+@ConditionalOnProperty(name = "events.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class EventArchiveJob {
+    private static final Logger log = LoggerFactory.getLogger(EventArchiveJob.class);
+    private final EventArchiveDao archiveDao;
+    private final int afterDays;
+
+    public EventArchiveJob(EventArchiveDao archiveDao, @Value("${events.archive.after-days:0}") int afterDays) {
+        this.archiveDao = archiveDao;
+        this.afterDays = afterDays;
+    }
+
+    @Scheduled(cron = "${events.archive.cron:0 30 3 * * *}", zone = "UTC")
+    public void archive() {
+        if (afterDays <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(afterDays).atStartOfDay();
+        try {
+            LocalDate day;
+            while ((day = archiveDao.getOldestDayToArchive(cutoff)) != null) {
+                int archived = archiveDao.archiveDay(day);
+                if (archived == 0) {
+                    break;
+                }
+                log.info("Archived {} events from {}", archived, day);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Event archiving failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.exception.TooManySubscribersException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes newly logged events to live subscribers as Server-Sent Events.
+ * <p>
+ * A subscriber is an open async response and a filter; it holds no thread while it waits, so idle subscribers
+ * cost only their connection. Each new event is serialized once and the same bytes are queued to every subscriber
+ * it matches. Each subscriber has a bounded buffer drained by a small pool of sender threads, so a slow client
+ * never holds up logging or the other subscribers. A client that falls a full buffer behind is disconnected rather
+ * than silently skipped, and can reconnect and catch up from /api/events.
+ */
+@Component
+public class EventBroadcaster {
+    private static final Logger log = LoggerFactory.getLogger(EventBroadcaster.class);
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    public EventBroadcaster(ObjectMapper objectMapper,
+                            @Value("${events.stream.max-subscribers:5000}") int maxSubscribers,
+                            @Value("${events.stream.buffer-size:100}") int bufferSize,
+                            @Value("${events.stream.timeout:PT1H}") Duration timeout,
+                            @Value("${events.stream.sender-threads:2}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeout = timeout;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "event-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open a feed of the events matching the filter that are logged from now on.
+     *
+     * @param filter the connection and device filters; its limit and cursor are ignored
+     * @return the emitter to return from the request
+     */
+    public SseEmitter subscribe(EventQuery filter) {
+        return subscribe(filter, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(EventQuery filter, SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManySubscribersException("The live feed already has " + maxSubscribers + " subscribers.");
+        }
+        Subscriber subscriber = new Subscriber(filter, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onEventsChanged(EventsChangedEvent change) {
+        if (change.getChange() != EventsChangedEvent.Change.CREATED || subscribers.isEmpty()) {
+            return;
+        }
+        for (Event event : change.getEvents()) {
+            Set<ResponseBodyEmitter.DataWithMediaType> message = null;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.filter.matches(event)) {
+                    if (message == null) {
+                        message = toMessage(event);
+                        if (message == null) {
+                            break;
+                        }
+                    }
+                    subscriber.offer(message);
+                }
+            }
+        }
+    }
+
+    /**
+     * A comment line every so often lets proxies know the connection is in use and finds clients that went away
+     * without closing it.
+     */
+    @Scheduled(fixedDelayString = "${events.stream.heartbeat:PT30S}", initialDelayString = "${events.stream.heartbeat:PT30S}")
+    public void sendHeartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(heartbeat);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        sender.shutdownNow();
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toMessage(Event event) {
+        try {
+            return SseEmitter.event()
+                    .id(String.valueOf(event.getEventId()))
+                    .name("event")
+                    .data(objectMapper.writeValueAsString(event))
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to send event {} to the live feed: {}", event.getEventId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private final class Subscriber {
+        private final EventQuery filter;
+        private final SseEmitter emitter;
+        // guarded by this
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> buffer = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+
+        private Subscriber(EventQuery filter, SseEmitter emitter) {
+            this.filter = filter;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+            boolean overflow;
+            boolean startSending = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = buffer.size() >= bufferSize;
+                if (!overflow) {
+                    buffer.add(message);
+                    startSending = !sending;
+                    sending = true;
+                }
+            }
+            if (overflow) {
+                log.debug("Disconnecting a live feed subscriber that fell {} messages behind", bufferSize);
+                close();
+            } else if (startSending) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    synchronized (this) {
+                        sending = false;
+                    }
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Sends buffered messages until the buffer is empty. Only this loop writes to the emitter, so when the
+         * subscriber is closed while a send is in progress, the loop completes the emitter once the send returns.
+         */
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> message;
+                synchronized (this) {
+                    message = closed ? null : buffer.poll();
+                    if (message == null) {
+                        sending = false;
+                        if (!closed) {
+                            return;
+                        }
+                    }
+                }
+                if (message == null) {
+                    emitter.complete();
+                    return;
+                }
+                try {
+                    emitter.send(message);
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                }
+            }
+        }
+
+        private void close() {
+            boolean completeNow;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+                completeNow = !sending;
+            }
+            subscribers.remove(this);
+            if (completeNow) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.harrisonmauseth.network_monitor.exception.InvalidImportException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads the events of an import one at a time as they are iterated, so an upload of any size goes from the request
+ * to the database without being held in memory. Every event is checked with the same constraints as one logged
+ * through POST /api/events, and must have an eventTime; eventId is ignored, since imported events get new ids.
+ * <p>
+ * CSV starts with a header naming the columns in any order. eventTime, isConnectedToWifi and isConnectedToInternet
+ * are required; deviceId, sequence, message and eventId are optional. Fields follow RFC 4180, and an empty field
+ * that is not quoted is null. Times are ISO local date-times, with a 'T' or a space before the time, and booleans
+ * are true/false, t/f or 1/0, which covers what /api/events/export and PostgreSQL write.
+ * <p>
+ * A line that cannot be read stops the import with an {@link InvalidImportException} naming it.
+ */
+public class EventImportReader implements Iterator<Event> {
+    private static final List<String> COLUMNS = List.of("eventId", "deviceId", "sequence", "eventTime",
+            "isConnectedToWifi", "isConnectedToInternet", "message");
+    private static final List<String> REQUIRED_COLUMNS = List.of("eventTime", "isConnectedToWifi", "isConnectedToInternet");
+
+    private final BufferedReader reader;
+    private final EventFormat format;
+    private final ObjectReader eventReader;
+    private final Validator validator;
+    // for CSV, the column each field of a record holds, from the header
+    private String[] columns;
+    private long line;
+    private long recordLine;
+    private Event next;
+    private boolean done;
+
+    public EventImportReader(BufferedReader reader, EventFormat format, ObjectReader eventReader, Validator validator) {
+        this.reader = reader;
+        this.format = format;
+        this.eventReader = eventReader.forType(Event.class);
+        this.validator = validator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = format == EventFormat.CSV ? readCsvEvent() : readJsonEvent();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Event next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Event event = next;
+        next = null;
+        return event;
+    }
+
+    private Event readJsonEvent() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        Event event;
+        try {
+            event = eventReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportException(line, e.getOriginalMessage());
+        }
+        return validate(event, line);
+    }
+
+    private Event readCsvEvent() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = readHeader(header);
+        }
+        List<String> fields = readRecord();
+        if (fields == null) {
+            return null;
+        }
+        if (fields.size() != columns.length) {
+            throw new InvalidImportException(recordLine, "expected " + columns.length + " fields, found " + fields.size() + ".");
+        }
+        Event event = new Event();
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i];
+            String value = fields.get(i);
+            if (value == null) {
+                if (REQUIRED_COLUMNS.contains(column)) {
+                    throw new InvalidImportException(recordLine, "'" + column + "' is required.");
+                }
+                continue;
+            }
+            switch (column) {
+                case "deviceId" -> event.setDeviceId(value);
+                case "sequence" -> event.setSequence(parseSequence(value));
+                case "eventTime" -> event.setEventTime(parseTime(value));
+                case "isConnectedToWifi" -> event.setConnectedToWifi(parseBoolean(column, value));
+                case "isConnectedToInternet" -> event.setConnectedToInternet(parseBoolean(column, value));
+                case "message" -> event.setMessage(value);
+                default -> {
+                    // eventId: imported events are given new ids
+                }
+            }
+        }
+        return validate(event, recordLine);
+    }
+
+    private String[] readHeader(List<String> header) {
+        String[] names = new String[header.size()];
+        for (int i = 0; i < names.length; i++) {
+            String name = header.get(i) == null ? "" : header.get(i).trim();
+            names[i] = COLUMNS.stream().filter(column -> column.equalsIgnoreCase(name)).findFirst()
+                    .orElseThrow(() -> new InvalidImportException(recordLine, "unknown column '" + name + "'."));
+            for (int j = 0; j < i; j++) {
+                if (names[j].equals(names[i])) {
+                    throw new InvalidImportException(recordLine, "column '" + names[i] + "' appears twice.");
+                }
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!List.of(names).contains(column)) {
+                throw new InvalidImportException(recordLine, "the header has no '" + column + "' column.");
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Read the fields of the next CSV record, which spans more than one line when a quoted field holds a line break.
+     *
+     * @return the fields, null for an empty one that was not quoted, or null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isEmpty());
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!inQuotes) {
+                    break;
+                }
+                text = reader.readLine();
+                if (text == null) {
+                    throw new InvalidImportException(recordLine, "a quoted field is not closed.");
+                }
+                line++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == ',') {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else if (quoted) {
+                throw new InvalidImportException(recordLine, "unexpected text after a quoted field.");
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(quoted || field.length() > 0 ? field.toString() : null);
+        return fields;
+    }
+
+    private Event validate(Event event, long line) {
+        if (event.getEventTime() == null) {
+            throw new InvalidImportException(line, "'eventTime' is required.");
+        }
+        Set<ConstraintViolation<Event>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            throw new InvalidImportException(line, violations.iterator().next().getMessage());
+        }
+        if (event.getDeviceId() == null) {
+            event.setDeviceId(Event.DEFAULT_DEVICE_ID);
+        }
+        return event;
+    }
+
+    private long parseSequence(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidImportException(recordLine, "'sequence' must be a whole number.");
+        }
+    }
+
+    private LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new InvalidImportException(recordLine, "'eventTime' must be a date-time like 2000-01-01T01:00:00.");
+        }
+    }
+
+    private boolean parseBoolean(String column, String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "t", "1":
+                return true;
+            case "false", "f", "0":
+                return false;
+            default:
+                throw new InvalidImportException(recordLine, "'" + column + "' must be true or false.");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.dao.EventDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.exception.IngestQueueFullException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Accepts events for logging without waiting on the database. Accepted events are given their final id up front,
+ * appended to the {@link IngestJournal} and queued; a background writer inserts them in batches once the queue
+ * holds a full batch or the flush interval passes. The queue is bounded, and events that do not fit are rejected
+ * so the device keeps them and retries. Segments left in the journal by a crash are written before anything else
+ * when the server starts again.
+ */
+@Component
+@ConditionalOnProperty(name = "events.ingest.async", havingValue = "true")
+public class EventIngestQueue {
+    private static final Logger log = LoggerFactory.getLogger(EventIngestQueue.class);
+    private final EventDao eventDao;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestJournal journal;
+    private final int batchSize;
+    private final int idBlockSize;
+    private final Duration flushInterval;
+    private final Semaphore capacity;
+    private final Object lock = new Object();
+    // guarded by lock
+    private final Deque<Event> queue = new ArrayDeque<>();
+    private final Deque<Integer> reservedIds = new ArrayDeque<>();
+    private boolean closed;
+    // only modified by the writer
+    private final Deque<Batch> unwritten = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-ingest-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EventIngestQueue(EventDao eventDao,
+                            ApplicationEventPublisher eventPublisher,
+                            ObjectMapper objectMapper,
+                            @Value("${events.ingest.journal-dir:ingest-journal}") Path journalDirectory,
+                            @Value("${events.ingest.fsync:true}") boolean fsync,
+                            @Value("${events.ingest.queue-capacity:10000}") int queueCapacity,
+                            @Value("${events.ingest.batch-size:500}") int batchSize,
+                            @Value("${events.ingest.id-block-size:100}") int idBlockSize,
+                            @Value("${events.ingest.flush-interval:PT1S}") Duration flushInterval) throws IOException {
+        this.eventDao = eventDao;
+        this.eventPublisher = eventPublisher;
+        this.journal = new IngestJournal(journalDirectory, objectMapper, fsync);
+        this.capacity = new Semaphore(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.idBlockSize = Math.max(1, idBlockSize);
+        this.flushInterval = flushInterval;
+        for (Path segment : journal.getRecoveredSegments()) {
+            List<Event> events = journal.read(segment);
+            unwritten.add(new Batch(segment, events, 0));
+            log.info("Recovered {} unwritten events from {}", events.size(), segment.getFileName());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        writer.scheduleWithFixedDelay(this::flush, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Accept events for logging. Each event is given its id, and its time if it has none, before this returns.
+     *
+     * @param events the events to log
+     * @return the same events, with ids assigned
+     * @throws IngestQueueFullException if the queue does not have room for all the events
+     * @throws DaoException             if ids could not be reserved or the journal could not be written
+     */
+    public List<Event> accept(List<Event> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
+        if (!capacity.tryAcquire(events.size())) {
+            throw new IngestQueueFullException("Ingest queue is full.");
+        }
+        int queued;
+        try {
+            synchronized (lock) {
+                if (closed) {
+                    throw new IngestQueueFullException("Ingest queue is shutting down.");
+                }
+                // ids are handed out and queued under one lock, so the writer inserts them in ascending order.
+                // They still commit well after later ids reach the table through other paths, which is why the
+                // background jobs take new events from their queue rather than by eventId
+                if (reservedIds.size() < events.size()) {
+                    reservedIds.addAll(eventDao.reserveEventIds(Math.max(idBlockSize, events.size() - reservedIds.size())));
+                }
+                LocalDateTime now = LocalDateTime.now(ZoneId.of("UTC"));
+                for (Event event : events) {
+                    event.setEventId(reservedIds.removeFirst());
+                    if (event.getEventTime() == null) {
+                        event.setEventTime(now);
+                    }
+                }
+                journal.append(events);
+                queue.addAll(events);
+                queued = queue.size();
+            }
+        } catch (IOException e) {
+            capacity.release(events.size());
+            throw new DaoException("Unable to write the ingest journal.", e);
+        } catch (RuntimeException e) {
+            capacity.release(events.size());
+            throw e;
+        }
+        if (queued >= batchSize && flushPending.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushPending.set(false);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return the number of accepted events that have not been written to the database yet
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (Batch batch : unwritten) {
+            backlog += batch.events.size();
+        }
+        synchronized (lock) {
+            return backlog + queue.size();
+        }
+    }
+
+    /**
+     * Write everything accepted so far to the database. A batch that fails stays in the journal and is retried,
+     * ahead of anything newer, on the next flush.
+     */
+    public void flush() {
+        flushPending.set(false);
+        try {
+            synchronized (lock) {
+                Path segment = journal.rotate();
+                if (segment != null) {
+                    List<Event> events = new ArrayList<>(queue);
+                    queue.clear();
+                    unwritten.add(new Batch(segment, events, events.size()));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to rotate the ingest journal: {}", e.getMessage());
+        }
+        while (!unwritten.isEmpty()) {
+            Batch batch = unwritten.peekFirst();
+            try {
+                List<Event> written = new ArrayList<>(batch.events.size());
+                for (int start = 0; start < batch.events.size(); start += batchSize) {
+                    written.addAll(eventDao.createEventsWithIds(batch.events.subList(start, Math.min(start + batchSize, batch.events.size()))));
+                }
+                journal.delete(batch.segment);
+                unwritten.removeFirst();
+                capacity.release(batch.permits);
+                if (!written.isEmpty()) {
+                    eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, written));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to write {} queued events, will retry: {}", batch.events.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        synchronized (lock) {
+            closed = true;
+        }
+        writer.shutdown();
+        if (writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            flush();
+        }
+        synchronized (lock) {
+            journal.close();
+        }
+    }
+
+    /**
+     * A closed journal segment and the events in it. Permits is how much queue capacity the batch holds,
+     * which is zero for batches recovered at startup.
+     */
+    private static final class Batch {
+        private final Path segment;
+        private final List<Event> events;
+        private final int permits;
+
+        private Batch(Path segment, List<Event> events, int permits) {
+            this.segment = segment;
+            this.events = events;
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.harrisonmauseth.network_monitor.dao.EventPartitionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps the monthly partitions of the events table in shape: partitions for the coming months are created
+ * ahead of time, rows that landed in the default partition are moved into their own month, and partitions
+ * older than the retention period are detached (or dropped).
+ */
+@Component
+@ConditionalOnProperty(name = "events.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class EventPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(EventPartitionManager.class);
+    private final EventPartitionDao partitionDao;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventPartitionManager(EventPartitionDao partitionDao,
+                                 @Value("${events.partitions.months-ahead:3}") int monthsAhead,
+                                 @Value("${events.partitions.retention-months:0}") int retentionMonths,
+                                 @Value("${events.partitions.drop-expired:false}") boolean dropExpired,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.partitionDao = partitionDao;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.dropExpired = dropExpired;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${events.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        List<YearMonth> existing;
+        SortedSet<YearMonth> wanted = new TreeSet<>();
+        try {
+            existing = partitionDao.getPartitionMonths();
+            wanted.addAll(partitionDao.getMonthsInDefaultPartition());
+        } catch (RuntimeException e) {
+            log.warn("Skipping partition maintenance, unable to read partitions: {}", e.getMessage());
+            return;
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            wanted.add(currentMonth.plusMonths(i));
+        }
+        wanted.removeAll(existing);
+
+        SortedSet<YearMonth> partitions = new TreeSet<>(existing);
+        for (YearMonth month : wanted) {
+            try {
+                partitionDao.createPartition(month);
+                partitions.add(month);
+                log.info("Created events partition for {}", month);
+            } catch (RuntimeException e) {
+                log.warn("Unable to create events partition for {}: {}", month, e.getMessage());
+            }
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+        int detached = 0;
+        for (YearMonth month : partitions.headSet(oldestKept)) {
+            try {
+                partitionDao.detachPartition(month, dropExpired);
+                detached++;
+                log.info("{} events partition for {}", dropExpired ? "Dropped" : "Detached", month);
+            } catch (RuntimeException e) {
+                log.warn("Unable to detach events partition for {}: {}", month, e.getMessage());
+            }
+        }
+        if (detached > 0) {
+            eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.PRUNED, 0));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.harrisonmauseth.network_monitor.dao.StatsDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Periodically folds newly logged events into the minute/hour/day summaries read by /api/stats, then prunes
+ * raw events that are older than the retention period and have already been summarized.
+ */
+@Component
+@ConditionalOnProperty(name = "events.rollup.enabled", havingValue = "true", matchIfMissing = true)
+public class EventRollupJob {
+    private static final Logger log = LoggerFactory.getLogger(EventRollupJob.class);
+    private final StatsDao statsDao;
+    private final int maxSampleGapSeconds;
+    private final int retentionDays;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventRollupJob(StatsDao statsDao,
+                          @Value("${events.rollup.max-sample-gap-seconds:90}") int maxSampleGapSeconds,
+                          @Value("${events.rollup.raw-retention-days:0}") int retentionDays,
+                          ApplicationEventPublisher eventPublisher) {
+        this.statsDao = statsDao;
+        this.eventPublisher = eventPublisher;
+        this.maxSampleGapSeconds = maxSampleGapSeconds;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${events.rollup.interval:PT1M}", initialDelayString = "${events.rollup.interval:PT1M}")
+    public void rollUp() {
+        try {
+            int rolledUp = statsDao.rollUpNewEvents(maxSampleGapSeconds);
+            if (rolledUp > 0) {
+                log.debug("Rolled up {} new events", rolledUp);
+            }
+            if (retentionDays > 0) {
+                int pruned = statsDao.pruneRolledUpEvents(LocalDateTime.now(ZoneOffset.UTC).minusDays(retentionDays));
+                if (pruned > 0) {
+                    eventPublisher.publishEvent(new EventsChangedEvent(this, EventsChangedEvent.Change.PRUNED, pruned));
+                    log.info("Pruned {} raw events older than {} days", pruned, retentionDays);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Event rollup failed: {}", e.getMessage());
+        }
+    }
+}
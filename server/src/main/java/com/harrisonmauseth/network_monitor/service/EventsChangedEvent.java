@@ -0,0 +1,55 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published after events have been logged, updated or deleted, so anything derived from the events table can
+ * catch up without polling. PRUNED marks bulk removal of old events by retention, where the individual
+ * events are not known, and IMPORTED a bulk import, which can add events at any point in the past. Events logged
+ * through the API are carried along with CREATED, so they can be pushed to live subscribers without reading them back.
+ */
+public class EventsChangedEvent extends ApplicationEvent {
+
+    public enum Change {
+        CREATED, UPDATED, DELETED, PRUNED, IMPORTED
+    }
+
+    private final Change change;
+    private final int count;
+    private final List<Event> events;
+
+    public EventsChangedEvent(Object source, Change change, int count) {
+        super(source);
+        this.change = change;
+        this.count = count;
+        this.events = List.of();
+    }
+
+    public EventsChangedEvent(Object source, Change change, List<Event> events) {
+        super(source);
+        this.change = change;
+        this.count = events.size();
+        this.events = List.copyOf(events);
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    /**
+     * @return the number of events that changed, or zero when it is not known
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the events that changed, or an empty list when they are not known
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+}
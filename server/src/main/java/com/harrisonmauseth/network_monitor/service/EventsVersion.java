@@ -0,0 +1,33 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes to the events table, so read endpoints can tag their responses with a version and answer a
+ * client that already has the current one with 304 Not Modified, without querying or serializing anything.
+ * <p>
+ * The counter is bumped by every {@link EventsChangedEvent}, and the tag includes the time the server started,
+ * so tags handed out before a restart never match. Only changes made through this server are seen: with more
+ * than one server writing to the same database, clients may keep a stale page until this server's next change.
+ */
+@Component
+public class EventsVersion {
+    private final String startedAt = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    @EventListener
+    public void onEventsChanged(EventsChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return a weak ETag for the current version of the events. Read it before reading the events, so a change
+     * that lands while a response is being built gives the next request a new tag rather than a stale match.
+     */
+    public String getETag() {
+        return "W/\"" + startedAt + "-" + version.get() + "\"";
+    }
+}
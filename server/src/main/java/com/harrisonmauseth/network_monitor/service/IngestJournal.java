@@ -0,0 +1,143 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.harrisonmauseth.network_monitor.model.Event;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An append-only log of accepted events that have not been written to the database yet. Events are appended to
+ * the current segment, one JSON object per line. The writer rotates the segment before each flush and deletes the
+ * closed segment once its events are in the database, so whatever segments remain after a crash hold exactly the
+ * events that still need writing.
+ * <p>
+ * Not thread safe, callers are expected to synchronize.
+ */
+public class IngestJournal implements Closeable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{12})\\.jsonl");
+    private final Path directory;
+    private final ObjectWriter eventWriter;
+    private final ObjectReader eventReader;
+    private final boolean fsync;
+    private final List<Path> recoveredSegments = new ArrayList<>();
+    private long nextSegment;
+    private Path currentSegment;
+    private FileChannel currentChannel;
+    private boolean currentIsEmpty;
+
+    public IngestJournal(Path directory, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.eventWriter = objectMapper.writerFor(Event.class);
+        this.eventReader = objectMapper.readerFor(Event.class);
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(recoveredSegments::add);
+        }
+        for (Path segment : recoveredSegments) {
+            Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+            if (matcher.matches()) {
+                nextSegment = Math.max(nextSegment, Long.parseLong(matcher.group(1)) + 1);
+            }
+        }
+        openNextSegment();
+    }
+
+    /**
+     * @return the segments left behind by a previous run, oldest first
+     */
+    public List<Path> getRecoveredSegments() {
+        return new ArrayList<>(recoveredSegments);
+    }
+
+    /**
+     * Append events to the current segment. When fsync is enabled they are on disk once this returns.
+     */
+    public void append(List<Event> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Event event : events) {
+            lines.append(eventWriter.writeValueAsString(event)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            currentChannel.write(buffer);
+        }
+        if (fsync) {
+            currentChannel.force(false);
+        }
+        currentIsEmpty = currentIsEmpty && events.isEmpty();
+    }
+
+    /**
+     * Close the current segment and start a new one.
+     *
+     * @return the closed segment, or null if nothing was appended to it
+     */
+    public Path rotate() throws IOException {
+        if (currentIsEmpty) {
+            return null;
+        }
+        Path closed = currentSegment;
+        currentChannel.close();
+        openNextSegment();
+        return closed;
+    }
+
+    /**
+     * Read the events in a segment. A partial last line, left by a crash in the middle of an append, is ignored
+     * since the events on it were never acknowledged.
+     */
+    public List<Event> read(Path segment) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    events.add(eventReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    public void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+    }
+
+    @Override
+    public void close() throws IOException {
+        currentChannel.close();
+        if (currentIsEmpty) {
+            Files.deleteIfExists(currentSegment);
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        currentSegment = directory.resolve(String.format("segment-%012d.jsonl", nextSegment++));
+        currentChannel = FileChannel.open(currentSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        currentIsEmpty = true;
+    }
+}
@@ -0,0 +1,68 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.harrisonmauseth.network_monitor.dao.OutageDao;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the outages table current. A refresh is queued in the background whenever new events are logged or imported; bursts
+ * of inserts are coalesced into a single refresh, and a scheduled refresh picks up anything that was missed.
+ */
+@Component
+@ConditionalOnProperty(name = "events.outages.enabled", havingValue = "true", matchIfMissing = true)
+public class OutageTracker {
+    private static final Logger log = LoggerFactory.getLogger(OutageTracker.class);
+    private final OutageDao outageDao;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outage-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutageTracker(OutageDao outageDao) {
+        this.outageDao = outageDao;
+    }
+
+    @EventListener
+    public void onEventsChanged(EventsChangedEvent event) {
+        boolean added = event.getChange() == EventsChangedEvent.Change.CREATED || event.getChange() == EventsChangedEvent.Change.IMPORTED;
+        if (added && refreshPending.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    refreshPending.set(false);
+                    refresh();
+                });
+            } catch (RejectedExecutionException e) {
+                refreshPending.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.outages.interval:PT5M}", initialDelayString = "${events.outages.interval:PT5M}")
+    public void refresh() {
+        try {
+            int processed = outageDao.refreshOutages();
+            if (processed > 0) {
+                log.debug("Updated outages from {} new events", processed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outage refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,40 @@
+package com.harrisonmauseth.network_monitor.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+
+public class HighConcurrencyConfigTest {
+
+    @Test
+    public void hikariPoolSizer_sizes_pool_to_available_cores() {
+        MockEnvironment environment = new MockEnvironment().withProperty("events.datasource.connections-per-core", "3");
+        BeanPostProcessor sizer = HighConcurrencyConfig.hikariPoolSizer(environment);
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            sizer.postProcessBeforeInitialization(dataSource, "dataSource");
+            Assert.assertEquals("pool was not sized to the available cores",
+                    Runtime.getRuntime().availableProcessors() * 3 + 1, dataSource.getMaximumPoolSize());
+        }
+    }
+
+    @Test
+    public void hikariPoolSizer_keeps_explicit_pool_size() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.datasource.hikari.maximum-pool-size", "7");
+        BeanPostProcessor sizer = HighConcurrencyConfig.hikariPoolSizer(environment);
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(7);
+            sizer.postProcessBeforeInitialization(dataSource, "dataSource");
+            Assert.assertEquals("an explicitly configured pool size was overridden", 7, dataSource.getMaximumPoolSize());
+        }
+    }
+
+    @Test
+    public void poolSizeFor_never_returns_an_empty_pool() {
+        Assert.assertEquals(9, HighConcurrencyConfig.poolSizeFor(4, 2));
+        Assert.assertEquals(2, HighConcurrencyConfig.poolSizeFor(0, 0));
+    }
+}
@@ -0,0 +1,39 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.harrisonmauseth.network_monitor.dao.CachingEventDao;
+import com.harrisonmauseth.network_monitor.model.CacheStats;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(EventCacheController.class)
+public class EventCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private CachingEventDao cachingEventDao;
+
+    @Test
+    public void getStats_returns_cache_counters() throws Exception {
+        when(cachingEventDao.getStats()).thenReturn(new CacheStats(500, 120, 30, 10));
+
+        mockMvc.perform(get("/api/cache/events"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.capacity").value(500))
+                .andExpect(jsonPath("$.size").value(120))
+                .andExpect(jsonPath("$.hits").value(30))
+                .andExpect(jsonPath("$.misses").value(10))
+                .andExpect(jsonPath("$.hitRatio").value(0.75));
+    }
+}
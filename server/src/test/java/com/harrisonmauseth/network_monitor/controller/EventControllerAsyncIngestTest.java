@@ -0,0 +1,83 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.dao.EventDao;
+import com.harrisonmauseth.network_monitor.exception.IngestQueueFullException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.service.EventIngestQueue;
+import com.harrisonmauseth.network_monitor.service.EventBroadcaster;
+import com.harrisonmauseth.network_monitor.service.EventsVersion;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(EventController.class)
+@Import({EventsVersion.class, EventBroadcaster.class})
+public class EventControllerAsyncIngestTest {
+
+    private final String BASE_ENDPOINT = "/api/events";
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private EventDao eventDao;
+    @MockBean
+    private EventIngestQueue ingestQueue;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void log_returns_status_code_202_with_assigned_id() throws Exception {
+        Event event = new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "queued");
+        when(ingestQueue.accept(anyList())).thenReturn(List.of(new Event(42, event.getEventTime(), true, true, "queued")));
+
+        mockMvc.perform(post(BASE_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(event)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.eventId").value(42));
+        verify(eventDao, never()).createEvent(any(Event.class));
+    }
+
+    @Test
+    public void logMultiple_returns_status_code_202() throws Exception {
+        Event[] events = {new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "1"),
+                new Event(0, LocalDateTime.parse("2001-01-01T00:00:30"), true, false, "2")};
+        when(ingestQueue.accept(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(events)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.length()").value(2));
+        verify(eventDao, never()).createMultipleEvents(any());
+    }
+
+    @Test
+    public void logMultiple_returns_status_code_429_when_queue_is_full() throws Exception {
+        when(ingestQueue.accept(anyList())).thenThrow(new IngestQueueFullException("Ingest queue is full."));
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"isConnectedToWifi\":true,\"isConnectedToInternet\":true}]"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
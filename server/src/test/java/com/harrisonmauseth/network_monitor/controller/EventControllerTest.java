@@ -2,25 +2,43 @@ package com.harrisonmauseth.network_monitor.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.config.MessagePackConfig;
 import com.harrisonmauseth.network_monitor.dao.EventDao;
 import com.harrisonmauseth.network_monitor.exception.DaoException;
 import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventBroadcaster;
+import com.harrisonmauseth.network_monitor.service.EventsVersion;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -28,9 +46,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(EventController.class)
+@Import({EventsVersion.class, EventBroadcaster.class})
 public class EventControllerTest {
 
     public static final Event EVENT_1 = new Event(1, LocalDateTime.parse("2000-01-01T01:00:00"), false, false, "message 1");
@@ -44,12 +65,14 @@ public class EventControllerTest {
     private EventDao eventDao;
     @Autowired
     private ObjectMapper mapper;
+    @Autowired
+    private EventsVersion eventsVersion;
 
     @Test
     public void getEvents_returns_status_code_200_when_events_exist() throws Exception {
         List<Event> mockEvents = Arrays.asList(EVENT_4, EVENT_3, EVENT_2, EVENT_1);
 
-        when(eventDao.getAllEventsLimited(anyInt())).thenReturn(mockEvents);
+        when(eventDao.getEvents(queryFor(EventQuery.Status.ANY))).thenReturn(mockEvents);
 
         mockMvc.perform(get(BASE_ENDPOINT)
                         .param("limit", "10")
@@ -60,7 +83,7 @@ public class EventControllerTest {
 
     @Test
     public void getEvents_returns_empty_array_when_no_events_exist() throws Exception {
-        when(eventDao.getAllEventsLimited(anyInt())).thenReturn(Collections.emptyList());
+        when(eventDao.getEvents(queryFor(EventQuery.Status.ANY))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get(BASE_ENDPOINT)
                         .param("limit", "10")
@@ -69,11 +92,83 @@ public class EventControllerTest {
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    public void getEvents_streams_all_events_when_no_limit_is_given() throws Exception {
+        List<Event> mockEvents = Arrays.asList(EVENT_4, EVENT_3, EVENT_2, EVENT_1);
+
+        doAnswer(invocation -> {
+            Consumer<Event> eventConsumer = invocation.getArgument(1);
+            mockEvents.forEach(eventConsumer);
+            return null;
+        }).when(eventDao).streamEvents(queryFor(EventQuery.Status.ANY), any());
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(mockEvents)));
+    }
+
+    @Test
+    public void getEvents_returns_next_cursor_when_page_is_full() throws Exception {
+        List<Event> mockEvents = Arrays.asList(EVENT_4, EVENT_3);
+
+        when(eventDao.getEvents(queryFor(EventQuery.Status.ANY))).thenReturn(mockEvents);
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EventController.NEXT_CURSOR_HEADER, EventCursor.after(EVENT_3).encode()))
+                .andExpect(content().json(toJsonArray(mockEvents)));
+    }
+
+    @Test
+    public void getEvents_does_not_return_next_cursor_on_last_page() throws Exception {
+        List<Event> mockEvents = Arrays.asList(EVENT_2, EVENT_1);
+
+        when(eventDao.getEvents(queryFor(EventQuery.Status.ANY))).thenReturn(mockEvents);
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("limit", "3")
+                        .param("cursor", EventCursor.after(EVENT_3).encode())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(EventController.NEXT_CURSOR_HEADER))
+                .andExpect(content().json(toJsonArray(mockEvents)));
+    }
+
+    @Test
+    public void getAllDisconnectedEvents_passes_cursor_to_dao() throws Exception {
+        List<Event> mockEvents = Collections.singletonList(EVENT_1);
+
+        when(eventDao.getEvents(argThat(query -> query.getStatus() == EventQuery.Status.DISCONNECTED
+                && query.getAfter() != null
+                && query.getAfter().getEventId() == EVENT_2.getEventId()
+                && EVENT_2.getEventTime().equals(query.getAfter().getEventTime()))))
+                .thenReturn(mockEvents);
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/failed")
+                        .param("limit", "1")
+                        .param("cursor", EventCursor.after(EVENT_2).encode())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(mockEvents)));
+    }
+
+    @Test
+    public void getEvents_returns_status_code_400_when_cursor_is_invalid() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("limit", "10")
+                        .param("cursor", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getAllDisconnectedEvents_returns_status_code_200_when_events_exist() throws Exception {
         List<Event> mockEvents = Arrays.asList(EVENT_4, EVENT_2, EVENT_1);
 
-        when(eventDao.getAllDisconnectedEvents(anyInt())).thenReturn(mockEvents);
+        when(eventDao.getEvents(queryFor(EventQuery.Status.DISCONNECTED))).thenReturn(mockEvents);
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed")
                         .param("limit", "10")
@@ -84,7 +179,7 @@ public class EventControllerTest {
 
     @Test
     public void getAllDisconnectedEvents_returns_empty_array_when_no_events_exist() throws Exception {
-        when(eventDao.getAllDisconnectedEvents(anyInt())).thenReturn(Collections.emptyList());
+        when(eventDao.getEvents(queryFor(EventQuery.Status.DISCONNECTED))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed")
                         .param("limit", "10")
@@ -97,7 +192,7 @@ public class EventControllerTest {
     public void getDisconnectedWifiEvents_returns_status_code_200_when_events_exist() throws Exception {
         List<Event> mockEvents = Arrays.asList(EVENT_4, EVENT_1);
 
-        when(eventDao.getDisconnectedWifiEvents(anyInt())).thenReturn(mockEvents);
+        when(eventDao.getEvents(queryFor(EventQuery.Status.WIFI_DISCONNECTED))).thenReturn(mockEvents);
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed/wifi")
                         .param("limit", "10")
@@ -108,7 +203,7 @@ public class EventControllerTest {
 
     @Test
     public void getDisconnectedWifiEvents_returns_an_empty_array_when_no_events_exist() throws Exception {
-        when(eventDao.getDisconnectedWifiEvents(anyInt())).thenReturn(Collections.emptyList());
+        when(eventDao.getEvents(queryFor(EventQuery.Status.WIFI_DISCONNECTED))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed/wifi")
                         .param("limit", "10")
@@ -121,7 +216,7 @@ public class EventControllerTest {
     public void getDisconnectedInternetEvents_returns_status_code_200_when_events_exist() throws Exception {
         List<Event> mockEvents = Arrays.asList(EVENT_2, EVENT_1);
 
-        when(eventDao.getDisconnectedInternetEvents(anyInt())).thenReturn(mockEvents);
+        when(eventDao.getEvents(queryFor(EventQuery.Status.INTERNET_DISCONNECTED))).thenReturn(mockEvents);
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed/internet")
                         .param("limit", "10")
@@ -132,7 +227,7 @@ public class EventControllerTest {
 
     @Test
     public void getDisconnectedInternetEvents_returns_an_empty_array_when_no_events_exist() throws Exception {
-        when(eventDao.getDisconnectedInternetEvents(anyInt())).thenReturn(Collections.emptyList());
+        when(eventDao.getEvents(queryFor(EventQuery.Status.INTERNET_DISCONNECTED))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get(BASE_ENDPOINT + "/failed/internet")
                         .param("limit", "10")
@@ -141,6 +236,170 @@ public class EventControllerTest {
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    public void getAllDisconnectedEvents_passes_device_to_dao() throws Exception {
+        Event kitchenEvent = new Event(5, "kitchen", LocalDateTime.parse("2000-05-05T05:00:00"), false, false, "kitchen");
+
+        when(eventDao.getEvents(argThat(query -> query.getStatus() == EventQuery.Status.DISCONNECTED
+                && "kitchen".equals(query.getDeviceId()))))
+                .thenReturn(Collections.singletonList(kitchenEvent));
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/failed")
+                        .param("limit", "10")
+                        .param("deviceId", "kitchen")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(Collections.singletonList(kitchenEvent))));
+    }
+
+    @Test
+    public void getEvents_streams_one_device_when_device_is_given() throws Exception {
+        Event kitchenEvent = new Event(5, "kitchen", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "kitchen");
+
+        doAnswer(invocation -> {
+            Consumer<Event> eventConsumer = invocation.getArgument(1);
+            eventConsumer.accept(kitchenEvent);
+            return null;
+        }).when(eventDao).streamEvents(argThat(query -> "kitchen".equals(query.getDeviceId())), any());
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("deviceId", "kitchen")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(Collections.singletonList(kitchenEvent))));
+    }
+
+    @Test
+    public void getEvents_passes_time_range_to_dao() throws Exception {
+        when(eventDao.getEvents(argThat(query -> query.getStatus() == EventQuery.Status.WIFI_DISCONNECTED
+                && LocalDateTime.parse("2000-01-01T09:00:00").equals(query.getFrom())
+                && LocalDateTime.parse("2000-01-01T17:00:00").equals(query.getTo()))))
+                .thenReturn(Collections.singletonList(EVENT_4));
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/failed/wifi")
+                        .param("limit", "10")
+                        .param("from", "2000-01-01T09:00:00")
+                        .param("to", "2000-01-01T17:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(Collections.singletonList(EVENT_4))));
+    }
+
+    @Test
+    public void getEvents_streams_time_range_when_no_limit_is_given() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Event> eventConsumer = invocation.getArgument(1);
+            eventConsumer.accept(EVENT_2);
+            return null;
+        }).when(eventDao).streamEvents(argThat(query -> query.getDeviceId() == null
+                && LocalDateTime.parse("2000-01-01T00:00:00").equals(query.getFrom()) && query.getTo() == null), any());
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("from", "2000-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJsonArray(Collections.singletonList(EVENT_2))));
+        verify(eventDao, never()).streamAllEvents(any());
+    }
+
+    @Test
+    public void getEvents_returns_status_code_400_when_range_is_reversed() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT + "/failed")
+                        .param("from", "2000-01-02T00:00:00")
+                        .param("to", "2000-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(eventDao);
+    }
+
+    @Test
+    public void getDeviceIds_returns_every_device() throws Exception {
+        when(eventDao.getDeviceIds()).thenReturn(Arrays.asList("default", "kitchen"));
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/devices"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"default\", \"kitchen\"]"));
+    }
+
+    @Test
+    public void logEvent_returns_status_code_400_when_device_id_is_invalid() throws Exception {
+        Event invalidDevice = new Event(0, "not a device id", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "message");
+
+        mockMvc.perform(post(BASE_ENDPOINT)
+                        .content(toJson(invalidDevice))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void logEvent_returns_status_code_400_when_sequence_is_negative() throws Exception {
+        Event invalidSequence = new Event(0, "kitchen", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "message");
+        invalidSequence.setSequence(-1L);
+
+        mockMvc.perform(post(BASE_ENDPOINT)
+                        .content(toJson(invalidSequence))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(eventDao);
+    }
+
+    @Test
+    public void getEvents_returns_304_without_reading_events_when_unchanged() throws Exception {
+        when(eventDao.getEvents(queryFor(EventQuery.Status.DISCONNECTED))).thenReturn(Arrays.asList(EVENT_4, EVENT_2));
+
+        String eTag = mockMvc.perform(get(BASE_ENDPOINT + "/failed").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/failed").param("limit", "10").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(eventDao, times(1)).getEvents(any());
+    }
+
+    @Test
+    public void getEvents_returns_events_again_after_events_change() throws Exception {
+        when(eventDao.getEvents(queryFor(EventQuery.Status.ANY))).thenReturn(Arrays.asList(EVENT_4, EVENT_3));
+        when(eventDao.createEvent(any(Event.class))).thenReturn(EVENT_4);
+
+        String eTag = mockMvc.perform(get(BASE_ENDPOINT).param("limit", "2"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post(BASE_ENDPOINT)
+                        .content(toJson(EVENT_4))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get(BASE_ENDPOINT).param("limit", "2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(content().json(toJsonArray(Arrays.asList(EVENT_4, EVENT_3))));
+    }
+
+    @Test
+    public void streamNewEvents_pushes_matching_events_as_they_are_logged() throws Exception {
+        MvcResult result = mockMvc.perform(get(BASE_ENDPOINT + "/stream").param("status", "failed"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        when(eventDao.createMultipleEvents(any(Event[].class))).thenReturn(Arrays.asList(EVENT_3, EVENT_4));
+        mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                        .content(toJsonArray(Arrays.asList(EVENT_3, EVENT_4)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        String expected = "id:4\nevent:event\ndata:" + toJson(EVENT_4) + "\n\n";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("the feed did not carry exactly the failed event", expected, result.getResponse().getContentAsString());
+        Assert.assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, result.getResponse().getContentType());
+    }
+
+    @Test
+    public void streamNewEvents_returns_status_code_400_for_unknown_status() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT + "/stream").param("status", "sometimes"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void logEvent_returns_201_when_created() throws Exception {
         when(eventDao.createEvent(any(Event.class))).thenReturn(EVENT_1);
@@ -152,6 +411,24 @@ public class EventControllerTest {
                 .andExpect(content().json(toJson(EVENT_1)));
     }
 
+    @Test
+    public void logEvent_returns_200_without_a_change_when_the_event_was_already_logged() throws Exception {
+        Event resent = new Event(0, "kitchen", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "message");
+        resent.setSequence(7L);
+        Event stored = new Event(5, "kitchen", resent.getEventTime(), true, true, "message");
+        stored.setSequence(7L);
+        when(eventDao.createEvent(any(Event.class))).thenReturn(null);
+        when(eventDao.getEventBySequence("kitchen", 7, resent.getEventTime())).thenReturn(stored);
+        String eTag = eventsVersion.getETag();
+
+        mockMvc.perform(post(BASE_ENDPOINT)
+                        .content(toJson(resent))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJson(stored)));
+        Assert.assertEquals("a resend was published as a change", eTag, eventsVersion.getETag());
+    }
+
     @Test
     public void logEvent_returns_status_code_400_when_failing_to_create_event() throws Exception {
         when(eventDao.createEvent(any(Event.class))).thenReturn(null);
@@ -175,6 +452,43 @@ public class EventControllerTest {
                 .andExpect(content().json(toJsonArray(createdEvents)));
     }
 
+    @Test
+    public void logMultipleEvents_accepts_message_pack() throws Exception {
+        List<Event> eventsToCreate = Arrays.asList(EVENT_1, EVENT_2);
+        ObjectMapper messagePackMapper = mapper.copyWith(new MessagePackFactory());
+
+        when(eventDao.createMultipleEvents(argThat(events -> events.length == 2
+                && EVENT_2.getEventTime().equals(events[1].getEventTime())
+                && "message 2".equals(events[1].getMessage())
+                && !events[0].isConnectedToWifi()))).thenReturn(eventsToCreate);
+
+        byte[] response = mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                        .content(messagePackMapper.writeValueAsBytes(eventsToCreate))
+                        .contentType(MessagePackConfig.APPLICATION_MSGPACK)
+                        .accept(MessagePackConfig.APPLICATION_MSGPACK))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MessagePackConfig.APPLICATION_MSGPACK))
+                .andReturn().getResponse().getContentAsByteArray();
+        Event[] createdEvents = messagePackMapper.readValue(response, Event[].class);
+        Assert.assertEquals(2, createdEvents.length);
+        Assert.assertEquals(EVENT_1.getEventTime(), createdEvents[0].getEventTime());
+    }
+
+    @Test
+    public void logMultipleEvents_answers_json_unless_message_pack_is_requested() throws Exception {
+        List<Event> createdEvents = Collections.singletonList(EVENT_1);
+
+        when(eventDao.createMultipleEvents(any(Event[].class))).thenReturn(createdEvents);
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                        .content(mapper.copyWith(new MessagePackFactory()).writeValueAsBytes(createdEvents))
+                        .contentType(MessagePackConfig.APPLICATION_MSGPACK)
+                        .accept(MediaType.ALL))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(toJsonArray(createdEvents)));
+    }
+
     @Test
     public void logMultipleEvents_returns_status_code_400_when_creation_fails() throws Exception {
         List<Event> eventsToCreate = Arrays.asList(EVENT_4, EVENT_3, EVENT_2, EVENT_1);
@@ -187,6 +501,21 @@ public class EventControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void logMultipleEvents_returns_status_code_400_when_any_event_is_invalid() throws Exception {
+        Event invalidSequence = new Event(0, "kitchen", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "message");
+        invalidSequence.setSequence(-1L);
+        Event invalidDevice = new Event(0, "not a device id", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, "message");
+
+        for (Event invalid : Arrays.asList(invalidSequence, invalidDevice)) {
+            mockMvc.perform(post(BASE_ENDPOINT + "/multiple")
+                            .content(toJsonArray(Arrays.asList(EVENT_1, invalid)))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(eventDao);
+    }
+
     @Test
     public void updateEvent_returns_status_code_200_when_event_is_updated() throws Exception {
         when(eventDao.updateEvent(any(Event.class))).thenReturn(EVENT_1);
@@ -224,6 +553,11 @@ public class EventControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    private EventQuery queryFor(EventQuery.Status status) {
+        // every listing is tagged with the events version, so none may be served by a lagging replica
+        return argThat(query -> query != null && query.getStatus() == status && query.isConsistent());
+    }
+
     private String toJsonArray(List<Event> events) throws JsonProcessingException {
         return mapper.writeValueAsString(events);
     }
@@ -0,0 +1,158 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.harrisonmauseth.network_monitor.dao.EventTransferDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import com.harrisonmauseth.network_monitor.model.EventImportResult;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(EventTransferController.class)
+public class EventTransferControllerTest {
+    private final String BASE_ENDPOINT = "/api/events";
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private EventTransferDao transferDao;
+
+    @Test
+    public void importEvents_reads_csv_and_returns_counts() throws Exception {
+        List<Event> imported = new ArrayList<>();
+        when(transferDao.importEvents(any())).thenAnswer(invocation -> {
+            Iterator<Event> events = invocation.getArgument(0);
+            events.forEachRemaining(imported::add);
+            return new EventImportResult(imported.size(), 1);
+        });
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/import")
+                        .contentType("text/csv")
+                        .content("isConnectedToWifi,eventTime,deviceId,isConnectedToInternet,message\n" +
+                                "t,2000-01-01 01:00:00,attic,f,\"down, \"\"again\"\"\"\n" +
+                                "false,2000-01-01T01:00:30.5,,true,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.skipped").value(1));
+
+        Assert.assertEquals(2, imported.size());
+        Assert.assertEquals("attic", imported.get(0).getDeviceId());
+        Assert.assertEquals(LocalDateTime.parse("2000-01-01T01:00:00"), imported.get(0).getEventTime());
+        Assert.assertTrue(imported.get(0).isConnectedToWifi());
+        Assert.assertFalse(imported.get(0).isConnectedToInternet());
+        Assert.assertEquals("down, \"again\"", imported.get(0).getMessage());
+        Assert.assertEquals(Event.DEFAULT_DEVICE_ID, imported.get(1).getDeviceId());
+        Assert.assertEquals(LocalDateTime.parse("2000-01-01T01:00:30.5"), imported.get(1).getEventTime());
+        Assert.assertNull(imported.get(1).getMessage());
+    }
+
+    @Test
+    public void importEvents_returns_status_code_400_naming_the_invalid_line() throws Exception {
+        when(transferDao.importEvents(any())).thenAnswer(invocation -> {
+            Iterator<Event> events = invocation.getArgument(0);
+            events.forEachRemaining(event -> {
+            });
+            return new EventImportResult(0, 0);
+        });
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventTime\":\"2000-01-01T01:00:00\",\"isConnectedToWifi\":true,\"isConnectedToInternet\":true}\n" +
+                                "\n" +
+                                "{\"eventTime\":\"2000-01-01T01:00:30\",\"deviceId\":\"not a device\",\"isConnectedToWifi\":true}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Line 3: 'deviceId' must be 1-64 letters, digits, ':', '.', '_' or '-'"));
+    }
+
+    @Test
+    public void importEvents_returns_status_code_400_for_a_csv_without_required_columns() throws Exception {
+        when(transferDao.importEvents(any())).thenAnswer(invocation -> {
+            Iterator<Event> events = invocation.getArgument(0);
+            events.hasNext();
+            return new EventImportResult(0, 0);
+        });
+
+        mockMvc.perform(post(BASE_ENDPOINT + "/import")
+                        .contentType("text/csv")
+                        .content("eventTime,isConnectedToWifi\n2000-01-01T01:00:00,true\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Line 1: the header has no 'isConnectedToInternet' column."));
+    }
+
+    @Test
+    public void importEvents_returns_status_code_415_for_other_content_types() throws Exception {
+        mockMvc.perform(post(BASE_ENDPOINT + "/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(transferDao);
+    }
+
+    @Test
+    public void exportEvents_writes_the_requested_format_as_a_download() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("{\"eventId\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(transferDao).exportEvents(argThat(query -> "attic".equals(query.getDeviceId())
+                && LocalDateTime.parse("2000-01-01T00:00:00").equals(query.getFrom()) && query.getTo() == null), eq(EventFormat.NDJSON), any());
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/export")
+                        .param("format", "ndjson")
+                        .param("deviceId", "attic")
+                        .param("from", "2000-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events.ndjson\""))
+                .andExpect(content().string("{\"eventId\":1}\n"));
+    }
+
+    @Test
+    public void exportEvents_returns_status_code_400_for_unknown_format() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT + "/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transferDao);
+    }
+
+    @Test
+    public void exportEvents_returns_status_code_500_when_database_is_unavailable() throws Exception {
+        when(transferDao.exportEvents(any(EventQuery.class), eq(EventFormat.CSV), any()))
+                .thenThrow(new DaoException("Unable to connect to database."));
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/export"))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,98 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.dao.OutageDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Outage;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(OutageController.class)
+public class OutageControllerTest {
+
+    public static final Outage OUTAGE_1 = new Outage(1, OutageType.WIFI, LocalDateTime.parse("2000-01-01T01:00:00"), LocalDateTime.parse("2000-01-01T01:05:00"));
+    public static final Outage OUTAGE_2 = new Outage(2, OutageType.WIFI, LocalDateTime.parse("2000-01-02T01:00:00"), null);
+    private final String BASE_ENDPOINT = "/api/outages";
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private OutageDao outageDao;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void getOutages_returns_outages_for_requested_type_and_range() throws Exception {
+        List<Outage> outages = Arrays.asList(OUTAGE_2, OUTAGE_1);
+
+        when(outageDao.getOutages(null, OutageType.WIFI, LocalDateTime.parse("2000-01-01T00:00:00"), LocalDateTime.parse("2000-01-03T00:00:00")))
+                .thenReturn(outages);
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("type", "wifi")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2000-01-03T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(outages)))
+                .andExpect(jsonPath("$[1].durationSeconds").value(300));
+    }
+
+    @Test
+    public void getOutages_passes_device_to_dao() throws Exception {
+        when(outageDao.getOutages("kitchen", null, null, null)).thenReturn(List.of(OUTAGE_1));
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("deviceId", "kitchen"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(List.of(OUTAGE_1))));
+    }
+
+    @Test
+    public void getOutages_returns_every_outage_without_filters() throws Exception {
+        when(outageDao.getOutages(null, null, null, null)).thenReturn(List.of(OUTAGE_2));
+
+        mockMvc.perform(get(BASE_ENDPOINT))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(List.of(OUTAGE_2))));
+    }
+
+    @Test
+    public void getOutages_returns_status_code_400_for_unknown_type() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("type", "power"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getOutages_returns_status_code_400_when_range_is_reversed() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("from", "2000-01-02T00:00:00")
+                        .param("to", "2000-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getOutages_returns_status_code_500_when_database_is_unavailable() throws Exception {
+        when(outageDao.getOutages(any(), any(), any(), any())).thenThrow(new DaoException("Unable to connect to database."));
+
+        mockMvc.perform(get(BASE_ENDPOINT))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,127 @@
+package com.harrisonmauseth.network_monitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.dao.StatsDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Availability;
+import com.harrisonmauseth.network_monitor.model.EventSummary;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import com.harrisonmauseth.network_monitor.model.SummaryResolution;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(StatsController.class)
+public class StatsControllerTest {
+
+    public static final EventSummary SUMMARY_1 = new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 120, 118, 0, 2, 60);
+    public static final EventSummary SUMMARY_2 = new EventSummary(LocalDateTime.parse("2000-01-01T02:00:00"), 120, 120, 0, 0, 0);
+    private final String BASE_ENDPOINT = "/api/stats";
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private StatsDao statsDao;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    public void getSummaries_returns_summaries_for_requested_range() throws Exception {
+        List<EventSummary> summaries = Arrays.asList(SUMMARY_1, SUMMARY_2);
+
+        when(statsDao.getSummaries(SummaryResolution.HOUR, LocalDateTime.parse("2000-01-01T00:00:00"), LocalDateTime.parse("2000-01-02T00:00:00")))
+                .thenReturn(summaries);
+
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("resolution", "hour")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2000-01-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(summaries)));
+    }
+
+    @Test
+    public void getSummaries_defaults_to_recent_hours() throws Exception {
+        when(statsDao.getSummaries(eq(SummaryResolution.HOUR), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(SUMMARY_2));
+
+        mockMvc.perform(get(BASE_ENDPOINT))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(List.of(SUMMARY_2))));
+    }
+
+    @Test
+    public void getSummaries_returns_status_code_400_for_unknown_resolution() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("resolution", "fortnight"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getSummaries_returns_status_code_400_when_range_is_reversed() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT)
+                        .param("from", "2000-01-02T00:00:00")
+                        .param("to", "2000-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getSummaries_returns_status_code_500_when_database_is_unavailable() throws Exception {
+        when(statsDao.getSummaries(any(SummaryResolution.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenThrow(new DaoException("Unable to connect to database."));
+
+        mockMvc.perform(get(BASE_ENDPOINT))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    public void getAvailability_returns_series_for_requested_range() throws Exception {
+        List<Availability> series = List.of(new Availability(LocalDateTime.parse("2000-01-01T00:00:00"), 86400, 3600, 95.8333, 2, 41400.0, 1800.0));
+
+        when(statsDao.getAvailability(SummaryResolution.WEEK, OutageType.WIFI, "kitchen",
+                LocalDateTime.parse("2000-01-01T00:00:00"), LocalDateTime.parse("2000-02-01T00:00:00")))
+                .thenReturn(series);
+
+        mockMvc.perform(get(BASE_ENDPOINT + "/availability")
+                        .param("bucket", "week")
+                        .param("type", "wifi")
+                        .param("deviceId", "kitchen")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2000-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(series)));
+    }
+
+    @Test
+    public void getAvailability_returns_status_code_400_for_unknown_type() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT + "/availability")
+                        .param("type", "power"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAvailability_returns_status_code_400_when_range_has_too_many_buckets() throws Exception {
+        mockMvc.perform(get(BASE_ENDPOINT + "/availability")
+                        .param("bucket", "minute")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2000-02-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(statsDao);
+    }
+}
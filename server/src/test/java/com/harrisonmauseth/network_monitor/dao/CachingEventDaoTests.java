@@ -0,0 +1,145 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.CacheStats;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventsChangedEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CachingEventDaoTests extends BaseDaoTests {
+    private static final int CAPACITY = 3;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcEventDao jdbcEventDao;
+    private CachingEventDao dao;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcEventDao = new JdbcEventDao(jdbcTemplate);
+        dao = new CachingEventDao(jdbcEventDao, CAPACITY);
+        dao.warmUp();
+    }
+
+    @Test
+    public void limited_reads_within_cache_are_hits() {
+        assertEventIds(dao.getAllEventsLimited(2), 4, 3);
+        assertEventIds(dao.getDisconnectedWifiEvents(1), 4);
+        assertEventIds(dao.getEvents(new EventQuery(EventQuery.Status.ANY, 2, new EventCursor(LocalDateTime.parse("2000-04-04T04:00:00"), 4))), 3, 2);
+        assertStats(3, 0);
+    }
+
+    @Test
+    public void reads_beyond_cache_are_misses_served_by_database() {
+        assertEventIds(dao.getAllEventsLimited(10), 4, 3, 2, 1);
+        assertEventIds(dao.getDisconnectedInternetEvents(5), 2, 1);
+        assertEventIds(dao.getAllEventsLimited(0), 4, 3, 2, 1);
+        assertStats(0, 3);
+    }
+
+    @Test
+    public void device_reads_are_answered_from_cache_only_when_it_holds_enough_of_the_device() {
+        Event kitchen = dao.createEvent(new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "kitchen"));
+
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 1);
+        query.setDeviceId("kitchen");
+        assertEventIds(dao.getEvents(query), kitchen.getEventId());
+
+        query.setLimit(2);
+        assertEventIds(dao.getEvents(query), kitchen.getEventId());
+
+        query = new EventQuery(EventQuery.Status.ANY, 2);
+        query.setDeviceId(Event.DEFAULT_DEVICE_ID);
+        assertEventIds(dao.getEvents(query), 4, 3);
+        assertStats(2, 1);
+    }
+
+    @Test
+    public void time_range_reads_are_hits_when_cache_reaches_back_to_their_start() {
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setFrom(LocalDateTime.parse("2000-03-01T00:00:00"));
+        assertEventIds(dao.getEvents(query), 4, 3);
+
+        query = new EventQuery(EventQuery.Status.ANY, 1);
+        query.setTo(LocalDateTime.parse("2000-04-01T00:00:00"));
+        assertEventIds(dao.getEvents(query), 3);
+
+        // the oldest cached event is newer than from, so uncached events could still be in the range
+        query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setFrom(LocalDateTime.parse("2000-01-15T00:00:00"));
+        assertEventIds(dao.getEvents(query), 4, 3, 2);
+        assertStats(2, 1);
+    }
+
+    @Test
+    public void created_events_are_cached() {
+        Event created = dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), false, true, "new"));
+        jdbcTemplate.update("UPDATE events SET message = 'changed behind the cache' WHERE eventId = ?;", created.getEventId());
+
+        List<Event> events = dao.getAllEventsLimited(CAPACITY);
+        assertEventIds(events, created.getEventId(), 4, 3);
+        Assert.assertEquals("created event was not served from the cache", "new", events.get(0).getMessage());
+
+        dao.createMultipleEvents(new Event[]{new Event(0, LocalDateTime.parse("1999-01-01T00:00:00"), true, true, "old")});
+        assertEventIds(dao.getAllEventsLimited(CAPACITY), created.getEventId(), 4, 3);
+        assertStats(2, 0);
+    }
+
+    @Test
+    public void updated_and_deleted_events_leave_cache_consistent() {
+        Event event = jdbcEventDao.getEventById(4);
+        event.setEventTime(LocalDateTime.parse("1990-01-01T00:00:00"));
+        dao.updateEvent(event);
+        assertEventIds(dao.getAllEventsLimited(CAPACITY), 3, 2, 1);
+
+        dao.deleteEvent(2);
+        assertEventIds(dao.getAllEventsLimited(CAPACITY), 3, 1, 4);
+
+        event.setEventTime(LocalDateTime.parse("2002-01-01T00:00:00"));
+        dao.updateEvent(event);
+        assertEventIds(dao.getAllEventsLimited(CAPACITY), 4, 3, 1);
+        assertStats(3, 0);
+    }
+
+    @Test
+    public void pruned_events_invalidate_cache() {
+        dao.getAllEventsLimited(CAPACITY);
+        jdbcTemplate.update("DELETE FROM events WHERE eventId = 3;");
+        dao.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.PRUNED, 1));
+
+        assertEventIds(dao.getAllEventsLimited(CAPACITY), 4, 2, 1);
+    }
+
+    @Test
+    public void unlimited_reads_are_hits_when_whole_table_is_cached() {
+        dao = new CachingEventDao(jdbcEventDao, 10);
+        dao.warmUp();
+
+        assertEventIds(dao.getAllDisconnectedEvents(0), 4, 2, 1);
+        dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "new"));
+        Assert.assertEquals(5, dao.getAllEventsLimited(0).size());
+
+        CacheStats stats = dao.getStats();
+        Assert.assertEquals("cache size is wrong", 5, stats.getSize());
+        assertStats(2, 0);
+    }
+
+    private void assertEventIds(List<Event> events, int... expectedIds) {
+        Assert.assertEquals("wrong number of events: " + events, expectedIds.length, events.size());
+        for (int i = 0; i < expectedIds.length; i++) {
+            Assert.assertEquals("wrong event at position " + i, expectedIds[i], events.get(i).getEventId());
+        }
+    }
+
+    private void assertStats(long hits, long misses) {
+        CacheStats stats = dao.getStats();
+        Assert.assertEquals("wrong number of cache hits", hits, stats.getHits());
+        Assert.assertEquals("wrong number of cache misses", misses, stats.getMisses());
+    }
+}
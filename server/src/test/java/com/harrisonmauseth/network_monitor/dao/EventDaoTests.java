@@ -0,0 +1,446 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The behaviour every {@link EventDao} storage engine shares. Each engine's test class supplies a DAO holding
+ * EVENT_1 to EVENT_4, and adds tests for what is particular to it.
+ */
+public abstract class EventDaoTests {
+    public static final Event EVENT_1 = new Event(1, Event.DEFAULT_DEVICE_ID, LocalDateTime.parse("2000-01-01T01:00:00"), false, false, "message 1");
+    public static final Event EVENT_2 = new Event(2, Event.DEFAULT_DEVICE_ID, LocalDateTime.parse("2000-02-02T02:00:00"), true, false, "message 2");
+    public static final Event EVENT_3 = new Event(3, Event.DEFAULT_DEVICE_ID, LocalDateTime.parse("2000-03-03T03:00:00"), true, true, "message 3");
+    public static final Event EVENT_4 = new Event(4, Event.DEFAULT_DEVICE_ID, LocalDateTime.parse("2000-04-04T04:00:00"), false, true, "message 4");
+    protected List<Event> events = new ArrayList<>();
+    protected EventDao dao;
+
+    /**
+     * @return a DAO for a store that holds exactly EVENT_1 to EVENT_4, with ids 1 to 4
+     */
+    protected abstract EventDao createDao() throws Exception;
+
+    @Before
+    public void setupDao() throws Exception {
+        dao = createDao();
+    }
+
+    @Test
+    public void getAllEvents_returns_all_events_in_correct_order() {
+        events = dao.getAllEvents();
+        Assert.assertNotNull("getAllEvents() returned null instead of a list", events);
+        Assert.assertEquals("getAllEvents() did not return correct number of events", 4, events.size());
+        assertEventsMatch("getAllEvents() returned events in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("getAllEvents() returned events in incorrect order", EVENT_3, events.get(1));
+        assertEventsMatch("getAllEvents() returned events in incorrect order", EVENT_2, events.get(2));
+        assertEventsMatch("getAllEvents() returned events in incorrect order", EVENT_1, events.get(3));
+    }
+
+    @Test
+    public void streamAllEvents_streams_all_events_in_correct_order() {
+        dao.streamAllEvents(events::add);
+        Assert.assertEquals("streamAllEvents() did not stream the correct number of events", 4, events.size());
+        assertEventsMatch("streamAllEvents() streamed events in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("streamAllEvents() streamed events in incorrect order", EVENT_3, events.get(1));
+        assertEventsMatch("streamAllEvents() streamed events in incorrect order", EVENT_2, events.get(2));
+        assertEventsMatch("streamAllEvents() streamed events in incorrect order", EVENT_1, events.get(3));
+    }
+
+    @Test
+    public void getAllEventsLimited_returns_correct_number_of_events_in_correct_order() {
+        events = dao.getAllEventsLimited(2);
+        Assert.assertNotNull("getAllEventsLimited(2) returned null instead of a list", events);
+        Assert.assertEquals("getAllEventsLimited(2) did not return correct number of events", 2, events.size());
+        assertEventsMatch("getAllEventsLimited(2) returned events in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("getAllEventsLimited(2) returned events in incorrect order", EVENT_3, events.get(1));
+
+        events = dao.getAllEventsLimited(1);
+        Assert.assertNotNull("getAllEventsLimited(1) returned null instead of a list", events);
+        Assert.assertEquals("getAllEventsLimited(1) did not return correct number of events", 1, events.size());
+
+        events = dao.getAllEventsLimited(0);
+        Assert.assertNotNull("getAllEventsLimited(0) returned null instead of a list", events);
+        Assert.assertEquals("getAllEventsLimited(0) did not return all events", 4, events.size());
+
+        events = dao.getAllEventsLimited(-1);
+        Assert.assertNotNull("getAllEventsLimited(-1) returned null instead of a list", events);
+        Assert.assertEquals("getAllEventsLimited(-1) did not return all events", 4, events.size());
+    }
+
+    @Test
+    public void getAllDisconnectedEvents_returns_correct_number_of_events_in_correct_order() {
+        events = dao.getAllDisconnectedEvents(1);
+        Assert.assertNotNull("getAllDisconnectedEvents(1) returned null instead of a list", events);
+        Assert.assertEquals("getAllDisconnectedEvents(1) did not return correct number of results", 1, events.size());
+
+        events = dao.getAllDisconnectedEvents(0);
+        Assert.assertNotNull("getAllDisconnectedEvents(0) returned null instead of a list", events);
+        Assert.assertEquals("getAllDisconnectedEvents(0) should have returned all failed events", 3, events.size());
+        assertEventsMatch("getAllDisconnectedEvents(0) returned correct number but in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("getAllDisconnectedEvents(0) returned correct number but in incorrect order", EVENT_2, events.get(1));
+        assertEventsMatch("getAllDisconnectedEvents(0) returned correct number but in incorrect order", EVENT_1, events.get(2));
+
+        events = dao.getAllDisconnectedEvents(-1);
+        Assert.assertNotNull("getAllDisconnectedEvents(-1) returned null instead of a list", events);
+        Assert.assertEquals("getAllDisconnectedEvents(-1) should have returned all failed events when passed with a negative number", 3, events.size());
+    }
+
+    @Test
+    public void getDisconnectedWifiEvents_returns_correct_number_of_events_in_correct_order() {
+        events = dao.getDisconnectedWifiEvents(1);
+        Assert.assertNotNull("getDisconnectedWifiEvents(1) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedWifiEvents(1) did not return the correct number of results", 1, events.size());
+
+        events = dao.getDisconnectedWifiEvents(0);
+        Assert.assertNotNull("getDisconnectedWifiEvents(0) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedWifiEvents(0) should get all failed wifi events when a limit of 0 is passed into the method", 2, events.size());
+        assertEventsMatch("getDisconnectedWifiEvents(0) returned correct number of events but in the incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("getDisconnectedWifiEvents(0) returned correct number of events but in the incorrect order", EVENT_1, events.get(1));
+
+        events = dao.getDisconnectedWifiEvents(-1);
+        Assert.assertNotNull("getDisconnectedWifiEvents(0) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedWifiEvents(0) should get all failed wifi events when a limit with a negative number is passed into the method", 2, events.size());
+    }
+
+    @Test
+    public void getDisconnectedInternetEvents_returns_correct_number_of_events_in_correct_order() {
+        events = dao.getDisconnectedInternetEvents(1);
+        Assert.assertNotNull("getDisconnectedWifiEvents(1) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedWifiEvents(1) did not return the correct number of results", 1, events.size());
+
+        events = dao.getDisconnectedInternetEvents(0);
+        Assert.assertNotNull("getDisconnectedInternetEvents(0) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedInternetEvents(0) should get all failed wifi events when a limit of 0 is passed into the method", 2, events.size());
+        assertEventsMatch("getDisconnectedInternetEvents(0) returned correct number of events but in the incorrect order", EVENT_2, events.get(0));
+        assertEventsMatch("getDisconnectedInternetEvents(0) returned correct number of events but in the incorrect order", EVENT_1, events.get(1));
+
+        events = dao.getDisconnectedInternetEvents(-1);
+        Assert.assertNotNull("getDisconnectedInternetEvents(0) returned null instead of a list", events);
+        Assert.assertEquals("getDisconnectedInternetEvents(0) should get all failed wifi events when a limit with a negative number is passed into the method", 2, events.size());
+    }
+
+    @Test
+    public void getEvents_pages_through_all_events_with_cursor() {
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 3);
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not return a full first page", 3, events.size());
+        assertEventsMatch("getEvents() returned the first page in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("getEvents() returned the first page in incorrect order", EVENT_2, events.get(2));
+
+        query.setAfter(EventCursor.after(events.get(2)));
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not return the remaining event on the second page", 1, events.size());
+        assertEventsMatch("getEvents() returned the wrong event on the second page", EVENT_1, events.get(0));
+
+        query.setAfter(EventCursor.after(events.get(0)));
+        events = dao.getEvents(query);
+        Assert.assertTrue("getEvents() returned events past the end of the results", events.isEmpty());
+    }
+
+    @Test
+    public void getEvents_breaks_ties_on_event_time_with_event_id() {
+        Event sameTime1 = dao.createEvent(new Event(0, EVENT_4.getEventTime(), true, true, "same time 1"));
+        Event sameTime2 = dao.createEvent(new Event(0, EVENT_4.getEventTime(), true, true, "same time 2"));
+
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 1);
+        List<Event> pagedEvents = new ArrayList<>();
+        do {
+            events = dao.getEvents(query);
+            pagedEvents.addAll(events);
+            if (!events.isEmpty()) {
+                query.setAfter(EventCursor.after(events.get(0)));
+            }
+        } while (!events.isEmpty());
+
+        Assert.assertEquals("getEvents() skipped or repeated events while paging", 6, pagedEvents.size());
+        assertEventsMatch("getEvents() did not order events with equal times by eventId", sameTime2, pagedEvents.get(0));
+        assertEventsMatch("getEvents() did not order events with equal times by eventId", sameTime1, pagedEvents.get(1));
+        assertEventsMatch("getEvents() did not order events with equal times by eventId", EVENT_4, pagedEvents.get(2));
+    }
+
+    @Test
+    public void getEvents_filters_by_connection_status() {
+        events = dao.getEvents(new EventQuery(EventQuery.Status.DISCONNECTED, 0));
+        Assert.assertEquals("getEvents(DISCONNECTED) did not return all failed events", 3, events.size());
+
+        events = dao.getEvents(new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, 0, EventCursor.after(EVENT_4)));
+        Assert.assertEquals("getEvents(WIFI_DISCONNECTED) did not return failed Wi-Fi events after the cursor", 1, events.size());
+        assertEventsMatch("getEvents(WIFI_DISCONNECTED) returned the wrong event", EVENT_1, events.get(0));
+
+        events = dao.getEvents(new EventQuery(EventQuery.Status.INTERNET_DISCONNECTED, 1));
+        Assert.assertEquals("getEvents(INTERNET_DISCONNECTED) did not respect the limit", 1, events.size());
+        assertEventsMatch("getEvents(INTERNET_DISCONNECTED) returned the wrong event", EVENT_2, events.get(0));
+    }
+
+    @Test
+    public void getEvents_filters_by_device() {
+        Event kitchen1 = dao.createEvent(new Event(0, "kitchen", LocalDateTime.parse("2000-02-15T00:00:00"), false, false, "kitchen 1"));
+        Event kitchen2 = dao.createEvent(new Event(0, "kitchen", LocalDateTime.parse("2000-05-05T00:00:00"), true, true, "kitchen 2"));
+
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 1);
+        query.setDeviceId("kitchen");
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not respect the limit for a device", 1, events.size());
+        assertEventsMatch("getEvents() returned another device's event", kitchen2, events.get(0));
+
+        query.setAfter(EventCursor.after(events.get(0)));
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not page through a device's events", 1, events.size());
+        assertEventsMatch("getEvents() returned the wrong event on a device's second page", kitchen1, events.get(0));
+
+        query = new EventQuery(EventQuery.Status.DISCONNECTED, 0);
+        query.setDeviceId(Event.DEFAULT_DEVICE_ID);
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() mixed another device's failures into the default device's", 3, events.size());
+
+        Assert.assertEquals("getEvents() without a device did not return every device's events", 6,
+                dao.getEvents(new EventQuery(EventQuery.Status.ANY, 0)).size());
+    }
+
+    @Test
+    public void getEvents_filters_by_time_range() {
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setFrom(LocalDateTime.parse("2000-02-02T02:00:00"));
+        query.setTo(EVENT_4.getEventTime());
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not include from and exclude to", 2, events.size());
+        assertEventsMatch("getEvents() returned events in incorrect order", EVENT_3, events.get(0));
+        assertEventsMatch("getEvents() returned events in incorrect order", EVENT_2, events.get(1));
+
+        query.setStatus(EventQuery.Status.INTERNET_DISCONNECTED);
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not combine the range with the status filter", 1, events.size());
+        assertEventsMatch("getEvents() returned the wrong failure in the range", EVENT_2, events.get(0));
+
+        query = new EventQuery(EventQuery.Status.ANY, 1, EventCursor.after(EVENT_3));
+        query.setFrom(LocalDateTime.parse("2000-01-15T00:00:00"));
+        events = dao.getEvents(query);
+        Assert.assertEquals("getEvents() did not page within the range", 1, events.size());
+        assertEventsMatch("getEvents() returned the wrong event on the second page of the range", EVENT_2, events.get(0));
+        query.setAfter(EventCursor.after(EVENT_2));
+        Assert.assertTrue("getEvents() paged past the start of the range", dao.getEvents(query).isEmpty());
+
+        query = new EventQuery();
+        query.setTo(LocalDateTime.parse("2000-02-02T02:00:00"));
+        dao.streamEvents(query, event -> Assert.assertEquals("streamEvents() did not respect the range", 1, event.getEventId()));
+    }
+
+    @Test
+    public void streamEvents_streams_only_matching_events() {
+        dao.createEvent(new Event(0, "kitchen", LocalDateTime.parse("2000-02-15T00:00:00"), false, true, "kitchen 1"));
+        EventQuery query = new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, 0);
+        query.setDeviceId(Event.DEFAULT_DEVICE_ID);
+
+        dao.streamEvents(query, events::add);
+        Assert.assertEquals("streamEvents() did not filter by device and status", 2, events.size());
+        assertEventsMatch("streamEvents() streamed events in incorrect order", EVENT_4, events.get(0));
+        assertEventsMatch("streamEvents() streamed events in incorrect order", EVENT_1, events.get(1));
+    }
+
+    @Test
+    public void getDeviceIds_returns_each_device_once() {
+        dao.createMultipleEvents(new Event[]{
+                new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "kitchen"),
+                new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "attic"),
+                new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:30"), true, true, "kitchen")
+        });
+
+        Assert.assertEquals(List.of("attic", Event.DEFAULT_DEVICE_ID, "kitchen"), dao.getDeviceIds());
+    }
+
+    @Test
+    public void getEventById_returns_correct_event() {
+        Event event1 = dao.getEventById(EVENT_1.getEventId());
+        Assert.assertNotNull("getEventById() returned null instead of an event", event1);
+        assertEventsMatch("getEventById(1)", EVENT_1, event1);
+
+        Event event2 = dao.getEventById(EVENT_2.getEventId());
+        Assert.assertNotNull("getEventById() returned null instead of an event", event2);
+        assertEventsMatch("getEventById(2)", EVENT_2, event2);
+
+        Event event3 = dao.getEventById(EVENT_3.getEventId());
+        Assert.assertNotNull("getEventById() returned null instead of an event.", event3);
+        assertEventsMatch("getEventById(3)", EVENT_3, event3);
+    }
+
+    @Test
+    public void createEvent_createsEvent() {
+        Event eventToCreate = new Event(0, LocalDateTime.parse("2000-05-05T05:00:00"), false, false, "message 4");
+
+        Event createdEvent = dao.createEvent(eventToCreate);
+        Assert.assertNotNull("createEvent() returned null", createdEvent);
+        Assert.assertTrue("createEvent() did not return the eventId of the created event.", createdEvent.getEventId() > 0);
+
+        eventToCreate.setEventId(createdEvent.getEventId());
+        assertEventsMatch("createEvent()", eventToCreate, createdEvent);
+
+        Event retrievedEvent = dao.getEventById(createdEvent.getEventId());
+        assertEventsMatch("created event did not store properly within the database:", createdEvent, retrievedEvent);
+    }
+
+    @Test
+    public void createMultipleEvents_creates_multiple_events() {
+        Event newEvent1 = new Event(4, LocalDateTime.parse("2004-04-04T04:44:44"), false, false, "message 4");
+        Event newEvent2 = new Event(5, LocalDateTime.parse("2005-05-05T05:55:55"), false, false, "message 5");
+        Event newEvent3 = new Event(6, LocalDateTime.parse("2006-06-06T06:06:06"), false, false, "message 6");
+        Event[] eventsToCreate = new Event[]{newEvent1, newEvent2, newEvent3};
+
+        List<Event> createdEvents = dao.createMultipleEvents(eventsToCreate);
+        Assert.assertNotNull("createMultipleEvents() returned null instead of a list", createdEvents);
+        Assert.assertEquals("CreateMultipleEvents() did not return the correct number of events", 3, createdEvents.size());
+    }
+
+    @Test
+    public void createMultipleEvents_stores_a_full_monitor_flush() {
+        Event[] eventsToCreate = new Event[1000];
+        for (int i = 0; i < eventsToCreate.length; i++) {
+            eventsToCreate[i] = new Event(0, LocalDateTime.parse("2002-01-01T00:00:00").plusSeconds(30L * i), true, i % 10 != 0, "heartbeat " + i);
+        }
+
+        List<Event> createdEvents = dao.createMultipleEvents(eventsToCreate);
+        Assert.assertEquals("createMultipleEvents() did not return every event in a large flush", 1000, createdEvents.size());
+        Assert.assertEquals("createMultipleEvents() did not store every event in a large flush", 1004, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void createMultipleEvents_returns_empty_list_when_no_events_given() {
+        List<Event> createdEvents = dao.createMultipleEvents(new Event[0]);
+        Assert.assertNotNull("createMultipleEvents() returned null instead of a list", createdEvents);
+        Assert.assertTrue("createMultipleEvents() created events from an empty array", createdEvents.isEmpty());
+    }
+
+    @Test
+    public void createMultipleEvents_skips_events_already_logged_by_sequence() {
+        Event[] firstAttempt = new Event[]{
+                sequencedEvent("kitchen", 1, "2001-01-01T00:00:00"),
+                sequencedEvent("kitchen", 2, "2001-01-01T00:01:00")
+        };
+        Assert.assertEquals(2, dao.createMultipleEvents(firstAttempt).size());
+
+        Event[] retry = new Event[]{
+                sequencedEvent("kitchen", 1, "2001-01-01T00:00:00"),
+                sequencedEvent("kitchen", 2, "2001-01-01T00:01:00"),
+                sequencedEvent("kitchen", 3, "2001-01-01T00:02:00"),
+                sequencedEvent("attic", 1, "2001-01-01T00:00:00")
+        };
+        List<Event> createdEvents = dao.createMultipleEvents(retry);
+        Assert.assertEquals("createMultipleEvents() did not skip events that were already logged", 2, createdEvents.size());
+        retry[2].setEventId(createdEvents.get(0).getEventId());
+        assertEventsMatch("createMultipleEvents() did not return the new event:", retry[2], createdEvents.get(0));
+        retry[3].setEventId(createdEvents.get(1).getEventId());
+        assertEventsMatch("createMultipleEvents() did not return the new event:", retry[3], createdEvents.get(1));
+        Assert.assertEquals("a resent batch was logged twice", 8, dao.getAllEvents().size());
+
+        Assert.assertTrue("a batch resent in full was logged again", dao.createMultipleEvents(retry).isEmpty());
+        Assert.assertEquals("a batch resent in full was logged again", 8, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void createMultipleEvents_never_skips_events_without_a_sequence() {
+        Event[] eventsToCreate = new Event[]{
+                new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "unsequenced"),
+                new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "unsequenced")
+        };
+
+        Assert.assertEquals(2, dao.createMultipleEvents(eventsToCreate).size());
+        Assert.assertEquals(2, dao.createMultipleEvents(eventsToCreate).size());
+        Assert.assertEquals(8, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void createEvent_returns_null_when_sequence_already_logged() {
+        Event created = dao.createEvent(sequencedEvent("kitchen", 42, "2001-01-01T00:00:00"));
+
+        Assert.assertNull("createEvent() did not report the resent event as already logged",
+                dao.createEvent(sequencedEvent("kitchen", 42, "2001-01-01T00:00:00")));
+        Assert.assertEquals("a resent event was logged twice", 5, dao.getAllEvents().size());
+        assertEventsMatch("getEventBySequence() did not return the stored event:", created,
+                dao.getEventBySequence("kitchen", 42, LocalDateTime.parse("2001-01-01T00:00:00")));
+        Assert.assertNull(dao.getEventBySequence("kitchen", 43, LocalDateTime.parse("2001-01-01T00:00:00")));
+    }
+
+    @Test
+    public void reserveEventIds_returns_unused_ascending_ids() {
+        List<Integer> ids = dao.reserveEventIds(3);
+        Assert.assertEquals("reserveEventIds() did not reserve the requested number of ids", 3, ids.size());
+        Assert.assertTrue("reserveEventIds() returned an id that is already in use", ids.get(0) > EVENT_4.getEventId());
+        Assert.assertTrue("reserveEventIds() did not return ids in ascending order", ids.get(0) < ids.get(1) && ids.get(1) < ids.get(2));
+
+        Event created = dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "after reservation"));
+        Assert.assertTrue("createEvent() reused a reserved id", created.getEventId() > ids.get(2));
+    }
+
+    @Test
+    public void createEventsWithIds_keeps_ids_and_skips_existing_events() {
+        List<Integer> ids = dao.reserveEventIds(2);
+        List<Event> eventsToCreate = List.of(
+                new Event(ids.get(0), LocalDateTime.parse("2001-01-01T00:00:00"), true, false, "queued 1"),
+                new Event(ids.get(1), LocalDateTime.parse("2001-01-01T00:00:30"), true, true, "queued 2"));
+
+        List<Event> createdEvents = dao.createEventsWithIds(eventsToCreate);
+        Assert.assertEquals("createEventsWithIds() did not insert every event", 2, createdEvents.size());
+        for (Event event : eventsToCreate) {
+            assertEventsMatch("createEventsWithIds() did not store an event with its id:", event, dao.getEventById(event.getEventId()));
+        }
+
+        Assert.assertTrue("createEventsWithIds() inserted events that already exist", dao.createEventsWithIds(eventsToCreate).isEmpty());
+        Assert.assertEquals("writing a batch twice duplicated events", 6, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void updateEvent_updates_event() {
+        Event eventToUpdate = new Event(1, LocalDateTime.parse("1999-01-01T01:00:00"), true, true, "updated event");
+
+        Event updatedEvent = dao.updateEvent(eventToUpdate);
+        Assert.assertNotNull("updateEvent() returned null instead of updated event", updatedEvent);
+        assertEventsMatch("updateEvent() returned incorrect or incomplete event:", eventToUpdate, updatedEvent);
+
+        Event retrievedEvent = dao.getEventById(updatedEvent.getEventId());
+        assertEventsMatch("updateEvent() updated the event but failed to save in the database:", updatedEvent, retrievedEvent);
+
+        Event unmodifiedEvent = dao.getEventById(EVENT_2.getEventId());
+        assertEventsMatch("updateEvent() updated either the wrong or multiple events:", EVENT_2, unmodifiedEvent);
+    }
+
+    @Test
+    public void updateEvent_keeps_device_when_none_given() {
+        Event created = dao.createEvent(new Event(0, "kitchen", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "kitchen"));
+
+        Event updatedEvent = dao.updateEvent(new Event(created.getEventId(), LocalDateTime.parse("2001-01-01T00:00:00"), false, false, "updated"));
+        Assert.assertEquals("updateEvent() moved the event to another device", "kitchen", updatedEvent.getDeviceId());
+    }
+
+    @Test
+    public void deleteEvent_deletes_event() {
+        int rowsDeleted = dao.deleteEvent(EVENT_3.getEventId());
+        Assert.assertEquals("deleteEvent(3) did not delete the correct number of rows.", 1, rowsDeleted);
+        Event retrievedEvent = dao.getEventById(EVENT_3.getEventId());
+        Assert.assertNull("deleteEvent(3) did not remove the event from the database.", retrievedEvent);
+    }
+
+    protected Event sequencedEvent(String deviceId, long sequence, String eventTime) {
+        Event event = new Event(0, deviceId, LocalDateTime.parse(eventTime), true, false, deviceId + " " + sequence);
+        event.setSequence(sequence);
+        return event;
+    }
+
+    protected void assertEventsMatch(String methodInvoked, Event expected, Event actual) {
+        Assert.assertEquals(methodInvoked + " eventIds do not match.", expected.getEventId(), actual.getEventId());
+        String expectedDeviceId = expected.getDeviceId() != null ? expected.getDeviceId() : Event.DEFAULT_DEVICE_ID;
+        Assert.assertEquals(methodInvoked + " deviceIds do not match.", expectedDeviceId, actual.getDeviceId());
+        Assert.assertEquals(methodInvoked + " eventTimes do not match.", expected.getEventTime(), actual.getEventTime());
+        Assert.assertEquals(methodInvoked + " isConnectedToWifi does not match.", expected.isConnectedToWifi(), actual.isConnectedToWifi());
+        Assert.assertEquals(methodInvoked + " isConnectedToInternet does not match.", expected.isConnectedToInternet(), actual.isConnectedToInternet());
+        Assert.assertEquals(methodInvoked + " messages do not match", expected.getMessage(), actual.getMessage());
+        Assert.assertEquals(methodInvoked + " sequences do not match", expected.getSequence(), actual.getSequence());
+    }
+
+}
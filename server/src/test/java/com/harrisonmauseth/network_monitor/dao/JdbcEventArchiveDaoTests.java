@@ -0,0 +1,171 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JdbcEventArchiveDaoTests extends BaseDaoTests {
+    private static final LocalDateTime CUTOFF = LocalDateTime.parse("2000-03-01T00:00:00");
+    // the header of a file holding only the default device
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4 + 4 + 2 + Event.DEFAULT_DEVICE_ID.length();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private JdbcTemplate jdbcTemplate;
+    private Path directory;
+    private JdbcEventArchiveDao dao;
+    private JdbcEventDao eventDao;
+
+    @Before
+    public void setup() throws IOException {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        directory = folder.getRoot().toPath().resolve("archive");
+        open();
+    }
+
+    @Test
+    public void archived_events_are_read_with_the_rest() throws IOException {
+        List<Event> before = eventDao.getAllEvents();
+
+        Assert.assertEquals(LocalDate.parse("2000-01-01"), dao.getOldestDayToArchive(CUTOFF));
+        Assert.assertEquals("archiveDay() did not move the day's event", 1, dao.archiveDay(LocalDate.parse("2000-01-01")));
+        Assert.assertEquals(1, dao.archiveDay(LocalDate.parse("2000-02-02")));
+        Assert.assertNull("getOldestDayToArchive() found a day that was archived", dao.getOldestDayToArchive(CUTOFF));
+        Assert.assertEquals("archived rows were left in the events table",
+                2, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events;", Integer.class));
+
+        assertSameEvents("getAllEvents() changed after archiving", before, eventDao.getAllEvents());
+        List<Event> streamed = new ArrayList<>();
+        eventDao.streamAllEvents(streamed::add);
+        assertSameEvents("streamAllEvents() changed after archiving", before, streamed);
+        assertSameEvents("the failures in the archive were not read", List.of(before.get(0), before.get(2), before.get(3)),
+                eventDao.getAllDisconnectedEvents(10));
+        assertEventsMatch("getEventById() did not find an archived event", before.get(3), eventDao.getEventById(1));
+
+        open();
+        assertSameEvents("reopening the archive lost events", before, eventDao.getAllEvents());
+    }
+
+    @Test
+    public void status_queries_skip_archived_days_without_failures() throws IOException {
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("1999-12-30T00:00:00"), true, true, "all up"));
+        Assert.assertEquals(1, dao.archiveDay(LocalDate.parse("1999-12-30")));
+        Assert.assertEquals(1, dao.archiveDay(LocalDate.parse("2000-01-01")));
+        // cut the all-up day down to its header, so any read that decodes it fails
+        Path allUp = directory.resolve("events-1999-12-30.col");
+        Files.write(allUp, Arrays.copyOf(Files.readAllBytes(allUp), HEADER_BYTES));
+        open();
+
+        Assert.assertThrows("the cut file was still readable", DaoException.class, () -> eventDao.getAllEvents());
+        List<Event> failures = eventDao.getAllDisconnectedEvents(10);
+        Assert.assertEquals("a status query did not skip the day without failures", 3, failures.size());
+        Assert.assertEquals("the failure in the archive was not read", 1, failures.get(2).getEventId());
+        EventQuery wifiDown = new EventQuery(EventQuery.Status.WIFI_DISCONNECTED, 0);
+        wifiDown.setTo(LocalDateTime.parse("2000-01-01T00:00:00"));
+        Assert.assertFalse(new ColdEventStore(directory).mayContain(wifiDown));
+    }
+
+    @Test
+    public void pages_cross_from_the_table_into_the_archive() {
+        for (int i = 0; i < 10; i++) {
+            eventDao.createEvent(new Event(0, "attic", LocalDateTime.parse("2000-01-05T00:00:00").plusMinutes(i), i % 3 != 0, true, null));
+        }
+        List<Event> before = eventDao.getAllEvents();
+        dao.archiveDay(LocalDate.parse("2000-01-01"));
+        dao.archiveDay(LocalDate.parse("2000-01-05"));
+
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 3);
+        List<Event> paged = new ArrayList<>();
+        List<Event> page;
+        do {
+            page = eventDao.getEvents(query);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                query.setAfter(EventCursor.after(page.get(page.size() - 1)));
+            }
+        } while (!page.isEmpty());
+        assertSameEvents("paging across the archive skipped or repeated events", before, paged);
+
+        EventQuery attic = new EventQuery(EventQuery.Status.DISCONNECTED, 0);
+        attic.setDeviceId("attic");
+        Assert.assertEquals("filters were not applied to archived events", 4, eventDao.getEvents(attic).size());
+        Assert.assertEquals(List.of("attic", Event.DEFAULT_DEVICE_ID), eventDao.getDeviceIds());
+    }
+
+    @Test
+    public void events_the_jobs_have_not_processed_are_not_archived() {
+        jdbcTemplate.update("INSERT INTO jobs (jobName) VALUES ('outages');");
+        eventDao.createEvent(new Event(0, "attic", LocalDateTime.parse("1999-12-31T12:00:00"), false, false, null));
+        Assert.assertEquals("getOldestDayToArchive() offered an event a job has not processed",
+                LocalDate.parse("2000-01-01"), dao.getOldestDayToArchive(CUTOFF));
+        Assert.assertEquals("archiveDay() moved an event a job has not processed", 0, dao.archiveDay(LocalDate.parse("1999-12-31")));
+    }
+
+    @Test
+    public void archiving_a_day_again_adds_to_its_file() throws IOException {
+        dao.archiveDay(LocalDate.parse("2000-01-01"));
+        Event late = eventDao.createEvent(sequencedEvent("attic", 41, "2000-01-01T23:59:59.123456"));
+        Event unsequenced = eventDao.createEvent(new Event(0, "attic", LocalDateTime.parse("2000-01-01T00:00:00"), true, false, null));
+        List<Event> before = eventDao.getAllEvents();
+
+        Assert.assertEquals("archiveDay() did not move the late events", 2, dao.archiveDay(LocalDate.parse("2000-01-01")));
+        open();
+        assertSameEvents("archiving a day again lost or changed events", before, eventDao.getAllEvents());
+        assertEventsMatch("the sequence or time of an archived event changed:", late, eventDao.getEventById(late.getEventId()));
+        assertEventsMatch("an archived event without a message changed:", unsequenced, eventDao.getEventById(unsequenced.getEventId()));
+    }
+
+    @Test
+    public void an_archived_event_still_in_the_table_is_read_once() throws IOException {
+        // as if the archive run had failed after writing the file
+        new ColdEventStore(directory).archive(LocalDate.parse("2000-01-01"), List.of(eventDao.getEventById(1)));
+        open();
+        Assert.assertEquals("an event in both the table and the archive was read twice", 4, eventDao.getAllEvents().size());
+        Assert.assertEquals(1, eventDao.getAllEvents().stream().filter(event -> event.getEventId() == 1).count());
+    }
+
+    private void open() throws IOException {
+        ColdEventStore coldEventStore = new ColdEventStore(directory);
+        dao = new JdbcEventArchiveDao(jdbcTemplate, coldEventStore);
+        eventDao = new JdbcEventDao(jdbcTemplate, JdbcEventDao.DEFAULT_INSERT_CHUNK_SIZE, coldEventStore, null);
+    }
+
+    private Event sequencedEvent(String deviceId, long sequence, String eventTime) {
+        Event event = new Event(0, deviceId, LocalDateTime.parse(eventTime), false, true, "sequenced");
+        event.setSequence(sequence);
+        return event;
+    }
+
+    private void assertSameEvents(String message, List<Event> expected, List<Event> actual) {
+        Assert.assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEventsMatch(message + ":", expected.get(i), actual.get(i));
+        }
+    }
+
+    private void assertEventsMatch(String methodInvoked, Event expected, Event actual) {
+        Assert.assertNotNull(methodInvoked + " returned null", actual);
+        Assert.assertEquals(methodInvoked + " eventId", expected.getEventId(), actual.getEventId());
+        Assert.assertEquals(methodInvoked + " deviceId", expected.getDeviceId(), actual.getDeviceId());
+        Assert.assertEquals(methodInvoked + " eventTime", expected.getEventTime(), actual.getEventTime());
+        Assert.assertEquals(methodInvoked + " isConnectedToWifi", expected.isConnectedToWifi(), actual.isConnectedToWifi());
+        Assert.assertEquals(methodInvoked + " isConnectedToInternet", expected.isConnectedToInternet(), actual.isConnectedToInternet());
+        Assert.assertEquals(methodInvoked + " message", expected.getMessage(), actual.getMessage());
+        Assert.assertEquals(methodInvoked + " sequence", expected.getSequence(), actual.getSequence());
+    }
+}
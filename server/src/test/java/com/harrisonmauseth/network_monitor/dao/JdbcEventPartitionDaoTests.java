@@ -0,0 +1,73 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+public class JdbcEventPartitionDaoTests extends BaseDaoTests {
+    private JdbcEventPartitionDao dao;
+    private JdbcEventDao eventDao;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dao = new JdbcEventPartitionDao(jdbcTemplate);
+        eventDao = new JdbcEventDao(jdbcTemplate);
+    }
+
+    @Test
+    public void getMonthsInDefaultPartition_returns_months_of_unpartitioned_rows() {
+        List<YearMonth> months = dao.getMonthsInDefaultPartition();
+        Assert.assertEquals("getMonthsInDefaultPartition() did not return the months of the test data",
+                Arrays.asList(YearMonth.of(2000, 1), YearMonth.of(2000, 2), YearMonth.of(2000, 3), YearMonth.of(2000, 4)), months);
+        Assert.assertTrue("getPartitionMonths() should be empty before any partition is created", dao.getPartitionMonths().isEmpty());
+    }
+
+    @Test
+    public void createPartition_moves_rows_out_of_default_partition() {
+        dao.createPartition(YearMonth.of(2000, 1));
+
+        Assert.assertEquals("createPartition() did not create the partition",
+                List.of(YearMonth.of(2000, 1)), dao.getPartitionMonths());
+        Assert.assertFalse("createPartition() left rows for the month in the default partition",
+                dao.getMonthsInDefaultPartition().contains(YearMonth.of(2000, 1)));
+        Integer rowsInPartition = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events_p2000_01;", Integer.class);
+        Assert.assertEquals("createPartition() did not move the month's rows into the partition", Integer.valueOf(1), rowsInPartition);
+        Assert.assertNotNull("event is no longer readable after being moved to its partition", eventDao.getEventById(1));
+        Assert.assertEquals("moving rows between partitions changed the number of events", 4, eventDao.getAllEvents().size());
+    }
+
+    @Test
+    public void createPartition_routes_new_events_to_the_partition() {
+        dao.createPartition(YearMonth.of(2030, 6));
+
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2030-06-15T12:00:00"), true, true, "in partition"));
+        Integer rowsInPartition = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events_p2030_06;", Integer.class);
+        Assert.assertEquals("new event was not stored in its month's partition", Integer.valueOf(1), rowsInPartition);
+    }
+
+    @Test
+    public void detachPartition_removes_partition_from_events() {
+        dao.createPartition(YearMonth.of(2000, 2));
+        dao.createPartition(YearMonth.of(2000, 3));
+
+        dao.detachPartition(YearMonth.of(2000, 2), false);
+        Assert.assertEquals("detachPartition() did not detach the partition", List.of(YearMonth.of(2000, 3)), dao.getPartitionMonths());
+        Assert.assertNull("detached events are still returned from the events table", eventDao.getEventById(2));
+        Boolean tableKept = jdbcTemplate.queryForObject("SELECT to_regclass('events_p2000_02') IS NOT NULL;", Boolean.class);
+        Assert.assertEquals("detachPartition(drop = false) dropped the table", Boolean.TRUE, tableKept);
+
+        dao.detachPartition(YearMonth.of(2000, 3), true);
+        Boolean tableDropped = jdbcTemplate.queryForObject("SELECT to_regclass('events_p2000_03') IS NULL;", Boolean.class);
+        Assert.assertEquals("detachPartition(drop = true) did not drop the table", Boolean.TRUE, tableDropped);
+        Assert.assertEquals("detaching partitions removed the wrong events", 2, eventDao.getAllEvents().size());
+    }
+}
@@ -0,0 +1,191 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.exception.InvalidImportException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventFormat;
+import com.harrisonmauseth.network_monitor.model.EventImportResult;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import com.harrisonmauseth.network_monitor.service.EventImportReader;
+import jakarta.validation.Validation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+public class JdbcEventTransferDaoTests extends BaseDaoTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String CSV_HEADER = "eventId,deviceId,sequence,eventTime,isConnectedToWifi,isConnectedToInternet,message\n";
+    private JdbcTemplate jdbcTemplate;
+    private JdbcEventTransferDao dao;
+    private JdbcEventDao eventDao;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dao = new JdbcEventTransferDao(jdbcTemplate, null, null);
+        eventDao = new JdbcEventDao(jdbcTemplate);
+    }
+
+    @Test
+    public void exportEvents_writes_csv_oldest_first() {
+        Event sequenced = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:00.25"), true, true, "say \"hi\", twice");
+        sequenced.setSequence(7L);
+        int eventId = eventDao.createEvent(sequenced).getEventId();
+
+        Assert.assertEquals(CSV_HEADER +
+                        "1,default,,2000-01-01T01:00:00,false,false,message 1\n" +
+                        "2,default,,2000-02-02T02:00:00,true,false,message 2\n" +
+                        "3,default,,2000-03-03T03:00:00,true,true,message 3\n" +
+                        "4,default,,2000-04-04T04:00:00,false,true,message 4\n" +
+                        eventId + ",attic,7,2000-05-05T05:00:00.25,true,true,\"say \"\"hi\"\", twice\"\n",
+                export(new EventQuery(EventQuery.Status.ANY, 0), EventFormat.CSV));
+    }
+
+    @Test
+    public void exportEvents_writes_ndjson_for_the_requested_range() {
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setFrom(LocalDateTime.parse("2000-02-01T00:00:00"));
+        query.setTo(LocalDateTime.parse("2000-04-01T00:00:00"));
+
+        Assert.assertEquals(
+                "{\"eventId\":2,\"deviceId\":\"default\",\"sequence\":null,\"eventTime\":\"2000-02-02T02:00:00\",\"isConnectedToWifi\":true,\"isConnectedToInternet\":false,\"message\":\"message 2\"}\n" +
+                "{\"eventId\":3,\"deviceId\":\"default\",\"sequence\":null,\"eventTime\":\"2000-03-03T03:00:00\",\"isConnectedToWifi\":true,\"isConnectedToInternet\":true,\"message\":\"message 3\"}\n",
+                export(query, EventFormat.NDJSON));
+    }
+
+    @Test
+    public void exportEvents_quotes_the_device_filter() {
+        EventQuery query = new EventQuery(EventQuery.Status.ANY, 0);
+        query.setDeviceId("default' OR 'a' = 'a");
+
+        Assert.assertEquals(CSV_HEADER, export(query, EventFormat.CSV));
+    }
+
+    @Test
+    public void importEvents_adds_events_and_skips_those_already_stored() {
+        Event stored = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, null);
+        stored.setSequence(1L);
+        eventDao.createEvent(stored);
+        Event resent = new Event(99, "attic", stored.getEventTime(), false, false, "resent");
+        resent.setSequence(1L);
+        Event newEvent = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:30"), false, true, null);
+        newEvent.setSequence(2L);
+        Event unsequenced = new Event(0, null, LocalDateTime.parse("1999-12-31T23:59:59"), true, false, "");
+
+        EventImportResult result = dao.importEvents(List.of(resent, newEvent, unsequenced).iterator());
+
+        Assert.assertEquals(3, result.getReceived());
+        Assert.assertEquals(2, result.getImported());
+        Assert.assertEquals(1, result.getSkipped());
+        List<Event> events = eventDao.getAllEvents();
+        Assert.assertEquals(7, events.size());
+        Assert.assertEquals("the stored event was replaced by the resent one", stored.getEventTime(), events.get(1).getEventTime());
+        Assert.assertNull(events.get(1).getMessage());
+        Assert.assertEquals(Long.valueOf(2), events.get(0).getSequence());
+        Assert.assertEquals(Event.DEFAULT_DEVICE_ID, events.get(6).getDeviceId());
+        Assert.assertEquals("an empty message was read as null", "", events.get(6).getMessage());
+    }
+
+    @Test
+    public void importEvents_skips_events_already_archived() throws IOException {
+        Event stored = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, null);
+        stored.setSequence(1L);
+        ColdEventStore coldEventStore = new ColdEventStore(folder.getRoot().toPath());
+        coldEventStore.archive(LocalDate.parse("2000-05-05"), List.of(eventDao.createEvent(stored)));
+        jdbcTemplate.update("DELETE FROM events WHERE deviceId = 'attic';");
+        dao = new JdbcEventTransferDao(jdbcTemplate, coldEventStore, null);
+        Event resent = new Event(0, "attic", stored.getEventTime(), false, false, "resent");
+        resent.setSequence(1L);
+        Event sameDay = new Event(0, "attic", LocalDateTime.parse("2000-05-05T06:00:00"), false, true, null);
+        sameDay.setSequence(2L);
+
+        EventImportResult result = dao.importEvents(List.of(resent, sameDay).iterator());
+
+        Assert.assertEquals(2, result.getReceived());
+        Assert.assertEquals("the archived event was imported again", 1, result.getImported());
+        Assert.assertEquals(1, result.getSkipped());
+        Assert.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE sequence = 1;", Integer.class).intValue());
+        Assert.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE sequence = 2;", Integer.class).intValue());
+    }
+
+    @Test
+    public void importEvents_adds_nothing_when_a_line_is_invalid() throws SQLException {
+        Event valid = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:00"), true, true, null);
+        Iterator<Event> events = new Iterator<>() {
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Event next() {
+                if (first) {
+                    first = false;
+                    return valid;
+                }
+                throw new InvalidImportException(2, "'eventTime' is required.");
+            }
+        };
+
+        try {
+            dao.importEvents(events);
+            Assert.fail("importEvents() did not stop at the invalid line");
+        } catch (InvalidImportException e) {
+            Assert.assertEquals("Line 2: 'eventTime' is required.", e.getMessage());
+        }
+        // the cancelled copy aborts the transaction, which the caller's @Transactional rolls back
+        dataSource.getConnection().rollback();
+        Assert.assertEquals(4, eventDao.getAllEvents().size());
+    }
+
+    @Test
+    public void exported_events_import_unchanged() {
+        Event sequenced = new Event(0, "attic", LocalDateTime.parse("2000-05-05T05:00:00.123456"), true, false, "line one\nline two");
+        sequenced.setSequence(3L);
+        eventDao.createEvent(sequenced);
+        for (EventFormat format : EventFormat.values()) {
+            List<Event> before = eventDao.getAllEvents();
+            String exported = export(new EventQuery(EventQuery.Status.ANY, 0), format);
+            jdbcTemplate.update("DELETE FROM events;");
+
+            EventImportResult result = dao.importEvents(new EventImportReader(new BufferedReader(new StringReader(exported)), format,
+                    new ObjectMapper().findAndRegisterModules().reader(), Validation.buildDefaultValidatorFactory().getValidator()));
+
+            Assert.assertEquals(before.size(), result.getImported());
+            List<Event> after = eventDao.getAllEvents();
+            for (int i = 0; i < before.size(); i++) {
+                String message = format + " round trip changed an event:";
+                Assert.assertEquals(message, before.get(i).getDeviceId(), after.get(i).getDeviceId());
+                Assert.assertEquals(message, before.get(i).getSequence(), after.get(i).getSequence());
+                Assert.assertEquals(message, before.get(i).getEventTime(), after.get(i).getEventTime());
+                Assert.assertEquals(message, before.get(i).isConnectedToWifi(), after.get(i).isConnectedToWifi());
+                Assert.assertEquals(message, before.get(i).isConnectedToInternet(), after.get(i).isConnectedToInternet());
+                Assert.assertEquals(message, before.get(i).getMessage(), after.get(i).getMessage());
+            }
+        }
+    }
+
+    private String export(EventQuery query, EventFormat format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dao.exportEvents(query, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,199 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.Outage;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class JdbcOutageDaoTests extends BaseDaoTests {
+    private static final LocalDateTime EVENT_1_TIME = LocalDateTime.parse("2000-01-01T01:00:00");
+    private static final LocalDateTime EVENT_2_TIME = LocalDateTime.parse("2000-02-02T02:00:00");
+    private static final LocalDateTime EVENT_3_TIME = LocalDateTime.parse("2000-03-03T03:00:00");
+    private static final LocalDateTime EVENT_4_TIME = LocalDateTime.parse("2000-04-04T04:00:00");
+    private JdbcTemplate jdbcTemplate;
+    private JdbcOutageDao dao;
+    private JdbcEventDao eventDao;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dao = new JdbcOutageDao(jdbcTemplate);
+        eventDao = new JdbcEventDao(jdbcTemplate);
+    }
+
+    @Test
+    public void refreshOutages_builds_outages_from_events() {
+        Assert.assertEquals("refreshOutages() did not process every new event", 4, dao.refreshOutages());
+
+        List<Outage> wifi = dao.getOutages(null, OutageType.WIFI, null, null);
+        Assert.assertEquals("wrong number of wifi outages", 2, wifi.size());
+        assertOutageMatches("ongoing wifi outage", EVENT_4_TIME, null, wifi.get(0));
+        assertOutageMatches("first wifi outage", EVENT_1_TIME, EVENT_2_TIME, wifi.get(1));
+        Assert.assertNull("an ongoing outage has no duration", wifi.get(0).getDurationSeconds());
+
+        List<Outage> internet = dao.getOutages(null, OutageType.INTERNET, null, null);
+        Assert.assertEquals("wrong number of internet outages", 1, internet.size());
+        assertOutageMatches("internet outage", EVENT_1_TIME, EVENT_3_TIME, internet.get(0));
+
+        Assert.assertEquals("refreshOutages() processed events that were already processed", 0, dao.refreshOutages());
+        Assert.assertEquals("refreshing again changed the outages", 3, dao.getOutages(null, null, null, null).size());
+    }
+
+    @Test
+    public void refreshOutages_picks_up_events_inserted_after_a_later_id() {
+        dao.refreshOutages();
+        // an id handed out before the refresh, whose insert commits after a later id was already processed
+        int reservedId = eventDao.reserveEventIds(1).get(0);
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-04-04T05:00:00"), true, true, "newer id"));
+        dao.refreshOutages();
+        eventDao.createEventsWithIds(List.of(new Event(reservedId, LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "older id")));
+
+        Assert.assertEquals("refreshOutages() skipped the event with the older id", 1, dao.refreshOutages());
+        List<Outage> wifi = dao.getOutages(null, OutageType.WIFI, null, null);
+        assertOutageMatches("wifi outage was not cut short", EVENT_1_TIME, LocalDateTime.parse("2000-01-15T00:00:00"), wifi.get(1));
+    }
+
+    @Test
+    public void refreshOutages_splits_outage_on_late_connected_event() {
+        dao.refreshOutages();
+
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "late heartbeat"));
+        Assert.assertEquals("refreshOutages() did not pick up the late event", 1, dao.refreshOutages());
+
+        List<Outage> wifi = dao.getOutages(null, OutageType.WIFI, null, null);
+        Assert.assertEquals("wrong number of wifi outages", 2, wifi.size());
+        assertOutageMatches("ongoing wifi outage was touched", EVENT_4_TIME, null, wifi.get(0));
+        assertOutageMatches("wifi outage was not cut short", EVENT_1_TIME, LocalDateTime.parse("2000-01-15T00:00:00"), wifi.get(1));
+
+        List<Outage> internet = dao.getOutages(null, OutageType.INTERNET, null, null);
+        Assert.assertEquals("internet outage was not split", 2, internet.size());
+        assertOutageMatches("second half of internet outage", EVENT_2_TIME, EVENT_3_TIME, internet.get(0));
+        assertOutageMatches("first half of internet outage", EVENT_1_TIME, LocalDateTime.parse("2000-01-15T00:00:00"), internet.get(1));
+    }
+
+    @Test
+    public void refreshOutages_extends_outages_on_late_disconnected_event() {
+        dao.refreshOutages();
+
+        LocalDateTime lateTime = LocalDateTime.parse("2000-03-10T00:00:00");
+        eventDao.createMultipleEvents(new Event[]{new Event(0, lateTime, false, false, "late failure")});
+        dao.refreshOutages();
+
+        List<Outage> wifi = dao.getOutages(null, OutageType.WIFI, null, null);
+        Assert.assertEquals("wrong number of wifi outages", 2, wifi.size());
+        assertOutageMatches("ongoing wifi outage was not moved back to the late event", lateTime, null, wifi.get(0));
+        assertOutageMatches("first wifi outage was changed", EVENT_1_TIME, EVENT_2_TIME, wifi.get(1));
+
+        List<Outage> internet = dao.getOutages(null, OutageType.INTERNET, null, null);
+        Assert.assertEquals("late event did not start a new internet outage", 2, internet.size());
+        assertOutageMatches("new internet outage", lateTime, EVENT_4_TIME, internet.get(0));
+        Assert.assertEquals("wrong duration", 25 * 24 * 60 * 60 + 4 * 60 * 60L, (long) internet.get(0).getDurationSeconds());
+    }
+
+    @Test
+    public void refreshOutages_keeps_outages_of_pruned_events() {
+        dao.refreshOutages();
+        JdbcStatsDao statsDao = new JdbcStatsDao(jdbcTemplate);
+        statsDao.rollUpNewEvents(60);
+        Assert.assertEquals(2, statsDao.pruneRolledUpEvents(LocalDateTime.parse("2000-03-01T00:00:00")));
+
+        // no connected sample is stored before these, so the rebuild reaches back to the earliest stored event
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-02-20T00:00:00"), true, false, "late internet failure"));
+        dao.refreshOutages();
+        List<Outage> wifi = dao.getOutages(null, OutageType.WIFI, null, null);
+        Assert.assertEquals("an outage of pruned events was deleted", 2, wifi.size());
+        assertOutageMatches("wifi outage of pruned events", EVENT_1_TIME, EVENT_2_TIME, wifi.get(1));
+        List<Outage> internet = dao.getOutages(null, OutageType.INTERNET, null, null);
+        Assert.assertEquals("the late failure was not folded into the outage of pruned events", 1, internet.size());
+        assertOutageMatches("internet outage of pruned events", EVENT_1_TIME, EVENT_3_TIME, internet.get(0));
+
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-02-25T00:00:00"), true, true, "late heartbeat"));
+        dao.refreshOutages();
+        internet = dao.getOutages(null, OutageType.INTERNET, null, null);
+        Assert.assertEquals(1, internet.size());
+        assertOutageMatches("the late heartbeat did not end the outage of pruned events",
+                EVENT_1_TIME, LocalDateTime.parse("2000-02-25T00:00:00"), internet.get(0));
+    }
+
+    @Test
+    public void getOutages_returns_outages_overlapping_range() {
+        dao.refreshOutages();
+
+        List<Outage> outages = dao.getOutages(null, null, LocalDateTime.parse("2000-02-15T00:00:00"), LocalDateTime.parse("2000-03-15T00:00:00"));
+        Assert.assertEquals("getOutages() did not filter by range", 1, outages.size());
+        assertOutageMatches("internet outage", EVENT_1_TIME, EVENT_3_TIME, outages.get(0));
+
+        outages = dao.getOutages(null, null, LocalDateTime.parse("2001-01-01T00:00:00"), null);
+        Assert.assertEquals("getOutages() did not include the ongoing outage", 1, outages.size());
+        Assert.assertEquals(OutageType.WIFI, outages.get(0).getType());
+
+        Assert.assertTrue("getOutages() returned outages starting after the range",
+                dao.getOutages(null, null, null, LocalDateTime.parse("2000-01-01T00:00:00")).isEmpty());
+    }
+
+    @Test
+    public void refreshOutages_tracks_each_device_separately() {
+        dao.refreshOutages();
+
+        // a second monitor that stayed connected must not end the default device's outages, and its own outage
+        // must not be merged into them
+        eventDao.createMultipleEvents(new Event[]{
+                new Event(0, "kitchen", LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "kitchen heartbeat"),
+                new Event(0, "kitchen", LocalDateTime.parse("2000-04-05T00:00:00"), false, false, "kitchen failure"),
+                new Event(0, "kitchen", LocalDateTime.parse("2000-04-06T00:00:00"), true, true, "kitchen heartbeat")
+        });
+        Assert.assertEquals("refreshOutages() did not pick up the second device's events", 3, dao.refreshOutages());
+
+        List<Outage> defaultOutages = dao.getOutages(Event.DEFAULT_DEVICE_ID, null, null, null);
+        Assert.assertEquals("another device's events changed the default device's outages", 3, defaultOutages.size());
+        assertOutageMatches("ongoing wifi outage", EVENT_4_TIME, null, defaultOutages.get(0));
+        assertOutageMatches("internet outage", EVENT_1_TIME, EVENT_3_TIME, defaultOutages.get(1));
+
+        List<Outage> kitchen = dao.getOutages("kitchen", OutageType.WIFI, null, null);
+        Assert.assertEquals("wrong number of wifi outages for the second device", 1, kitchen.size());
+        assertOutageMatches("second device's wifi outage", LocalDateTime.parse("2000-04-05T00:00:00"), LocalDateTime.parse("2000-04-06T00:00:00"), kitchen.get(0));
+        Assert.assertEquals("kitchen", kitchen.get(0).getDeviceId());
+        Assert.assertEquals("getOutages() without a device did not return every device's outages", 5, dao.getOutages(null, null, null, null).size());
+    }
+
+    @Test
+    public void refreshOutages_merges_late_samples_into_device_coverage() {
+        // each sample covers the time until the next one, at most 90 seconds
+        eventDao.createMultipleEvents(new Event[]{
+                new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:00:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:01:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:03:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:05:00"), true, true, null)
+        });
+        dao.refreshOutages();
+        Assert.assertEquals(List.of("2000-05-05T00:00 to 2000-05-05T00:02:30", "2000-05-05T00:03 to 2000-05-05T00:04:30"), getCoverage("attic"));
+
+        eventDao.createEvent(new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:02:20"), true, true, "late sample"));
+        dao.refreshOutages();
+        Assert.assertEquals("the late sample did not close the gap", List.of("2000-05-05T00:00 to 2000-05-05T00:04:30"), getCoverage("attic"));
+
+        jdbcTemplate.update("DELETE FROM events WHERE deviceId = 'attic';");
+        eventDao.createEvent(new Event(0, "attic", LocalDateTime.parse("2000-05-05T00:06:00"), true, true, null));
+        dao.refreshOutages();
+        Assert.assertEquals("coverage of deleted events was lost",
+                List.of("2000-05-05T00:00 to 2000-05-05T00:04:30"), getCoverage("attic"));
+    }
+
+    private List<String> getCoverage(String deviceId) {
+        return jdbcTemplate.queryForList("SELECT startTime, endTime FROM device_coverage WHERE deviceId = ? ORDER BY startTime;", deviceId)
+                .stream().map(row -> ((Timestamp) row.get("startTime")).toLocalDateTime() + " to " +
+                        ((Timestamp) row.get("endTime")).toLocalDateTime()).toList();
+    }
+
+    private void assertOutageMatches(String message, LocalDateTime startTime, LocalDateTime endTime, Outage actual) {
+        Assert.assertEquals(message + ": startTime does not match.", startTime, actual.getStartTime());
+        Assert.assertEquals(message + ": endTime does not match.", endTime, actual.getEndTime());
+    }
+}
@@ -0,0 +1,279 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Availability;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventSummary;
+import com.harrisonmauseth.network_monitor.model.OutageType;
+import com.harrisonmauseth.network_monitor.model.SummaryResolution;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcStatsDaoTests extends BaseDaoTests {
+    private static final int MAX_SAMPLE_GAP_SECONDS = 60;
+    private static final LocalDateTime FROM = LocalDateTime.parse("2000-01-01T00:00:00");
+    private static final LocalDateTime TO = LocalDateTime.parse("2000-05-01T00:00:00");
+    private JdbcTemplate jdbcTemplate;
+    private JdbcStatsDao dao;
+    private JdbcEventDao eventDao;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dao = new JdbcStatsDao(jdbcTemplate);
+        eventDao = new JdbcEventDao(jdbcTemplate);
+    }
+
+    @Test
+    public void rollUpNewEvents_summarizes_every_resolution() {
+        int rolledUp = dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        Assert.assertEquals("rollUpNewEvents() did not roll up every new event", 4, rolledUp);
+
+        for (SummaryResolution resolution : SummaryResolution.values()) {
+            // 2000-01-01 is a Saturday, so the first event's week starts before FROM
+            LocalDateTime from = resolution == SummaryResolution.WEEK ? LocalDateTime.parse("1999-12-27T00:00:00") : FROM;
+            List<EventSummary> summaries = dao.getSummaries(resolution, from, TO);
+            Assert.assertEquals("getSummaries(" + resolution + ") did not return a bucket per event", 4, summaries.size());
+        }
+        assertSummaryMatches("first week bucket", new EventSummary(LocalDateTime.parse("1999-12-27T00:00:00"), 1, 0, 1, 1, 60),
+                dao.getSummaries(SummaryResolution.WEEK, LocalDateTime.parse("1999-12-27T00:00:00"), TO).get(0));
+        Assert.assertEquals("getSummaries(WEEK) returned a week that starts before the range",
+                3, dao.getSummaries(SummaryResolution.WEEK, FROM, TO).size());
+
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, FROM, TO);
+        assertSummaryMatches("first minute bucket", new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 1, 0, 1, 1, 60), minutes.get(0));
+        assertSummaryMatches("second minute bucket", new EventSummary(LocalDateTime.parse("2000-02-02T02:00:00"), 1, 0, 0, 1, 60), minutes.get(1));
+        assertSummaryMatches("third minute bucket", new EventSummary(LocalDateTime.parse("2000-03-03T03:00:00"), 1, 1, 0, 0, 0), minutes.get(2));
+        assertSummaryMatches("last sample has no successor, so no downtime yet",
+                new EventSummary(LocalDateTime.parse("2000-04-04T04:00:00"), 1, 0, 1, 0, 0), minutes.get(3));
+
+        List<EventSummary> days = dao.getSummaries(SummaryResolution.DAY, FROM, TO);
+        assertSummaryMatches("first day bucket", new EventSummary(LocalDateTime.parse("2000-01-01T00:00:00"), 1, 0, 1, 1, 60), days.get(0));
+
+        Assert.assertEquals("rollUpNewEvents() rolled up events that were already summarized", 0, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+    }
+
+    @Test
+    public void rollUpNewEvents_folds_late_arrivals_into_existing_buckets() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-01-01T01:00:20"), true, true, "late heartbeat"));
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-01-01T01:30:00"), true, false, "late failure"));
+        Assert.assertEquals("rollUpNewEvents() did not pick up the late events", 2, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, FROM, LocalDateTime.parse("2000-01-02T00:00:00"));
+        Assert.assertEquals("late events did not create their own minute bucket", 2, minutes.size());
+        assertSummaryMatches("downtime of the earlier sample was not cut short by the late arrival",
+                new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 2, 1, 1, 1, 20), minutes.get(0));
+
+        List<EventSummary> hours = dao.getSummaries(SummaryResolution.HOUR, FROM, LocalDateTime.parse("2000-01-02T00:00:00"));
+        Assert.assertEquals("late events were not merged into the existing hour bucket", 1, hours.size());
+        assertSummaryMatches("hour bucket", new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 3, 1, 1, 2, 80), hours.get(0));
+    }
+
+    @Test
+    public void rollUpNewEvents_measures_downtime_per_device() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        // another monitor's samples neither cut the default device's outage short nor end their own
+        eventDao.createMultipleEvents(new Event[]{
+                new Event(0, "kitchen", LocalDateTime.parse("2000-01-01T01:00:20"), true, true, "kitchen heartbeat"),
+                new Event(0, "kitchen", LocalDateTime.parse("2000-01-01T01:00:40"), false, false, "kitchen failure")
+        });
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, FROM, LocalDateTime.parse("2000-01-02T00:00:00"));
+        Assert.assertEquals("devices sharing a minute did not share its bucket", 1, minutes.size());
+        assertSummaryMatches("the latest sample of each device has no downtime yet",
+                new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 3, 1, 2, 2, 60), minutes.get(0));
+    }
+
+    @Test
+    public void rollUpNewEvents_rebuilds_the_minutes_of_edited_and_deleted_events() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        eventDao.updateEvent(new Event(2, LocalDateTime.parse("2000-02-02T02:05:00"), true, false, "moved"));
+        eventDao.updateEvent(new Event(3, LocalDateTime.parse("2000-03-03T03:00:00"), false, false, "now down"));
+        eventDao.deleteEvent(1);
+        Assert.assertEquals("rollUpNewEvents() did not pick up the edited events", 2, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, FROM, TO);
+        Assert.assertEquals("the minutes the events left were still summarized", 3, minutes.size());
+        assertSummaryMatches("minute the event moved to", new EventSummary(LocalDateTime.parse("2000-02-02T02:05:00"), 1, 0, 0, 1, 60), minutes.get(0));
+        assertSummaryMatches("minute of the edited status", new EventSummary(LocalDateTime.parse("2000-03-03T03:00:00"), 1, 0, 1, 1, 60), minutes.get(1));
+
+        List<EventSummary> days = dao.getSummaries(SummaryResolution.DAY, FROM, TO);
+        Assert.assertEquals("the day of the deleted event was still summarized", 3, days.size());
+        assertSummaryMatches("day of the edited status", new EventSummary(LocalDateTime.parse("2000-03-03T00:00:00"), 1, 0, 1, 1, 60), days.get(1));
+    }
+
+    @Test
+    public void rollUpNewEvents_takes_deleted_events_off_the_summaries_of_pruned_minutes() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        dao.pruneRolledUpEvents(LocalDateTime.parse("2000-03-01T00:00:00"));
+        Assert.assertEquals("pruning queued the pruned events as deleted", 0, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+
+        Event late = eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-02-02T02:00:30"), true, true, "late"));
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        eventDao.deleteEvent(late.getEventId());
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, FROM, TO);
+        Assert.assertEquals(4, minutes.size());
+        assertSummaryMatches("the deleted sample was not taken off the pruned minute",
+                new EventSummary(LocalDateTime.parse("2000-02-02T02:00:00"), 1, 0, 0, 1, 60), minutes.get(1));
+        assertSummaryMatches("hour of the pruned minute", new EventSummary(LocalDateTime.parse("2000-02-02T02:00:00"), 1, 0, 0, 1, 60),
+                dao.getSummaries(SummaryResolution.HOUR, FROM, TO).get(1));
+    }
+
+    @Test
+    public void pruneRolledUpEvents_only_deletes_summarized_events() {
+        LocalDateTime cutoff = LocalDateTime.parse("2000-03-01T00:00:00");
+        Assert.assertEquals("pruneRolledUpEvents() deleted events that were not rolled up yet", 0, dao.pruneRolledUpEvents(cutoff));
+
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        Event lateEvent = eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "late"));
+
+        Assert.assertEquals("pruneRolledUpEvents() did not delete the summarized events before the cutoff", 2, dao.pruneRolledUpEvents(cutoff));
+        Assert.assertNull("pruneRolledUpEvents() kept a summarized event", eventDao.getEventById(1));
+        Assert.assertNotNull("pruneRolledUpEvents() deleted an event that was not summarized", eventDao.getEventById(lateEvent.getEventId()));
+        Assert.assertEquals("pruning raw events changed the summaries", 4, dao.getSummaries(SummaryResolution.DAY, FROM, TO).size());
+    }
+
+    @Test
+    public void pruneRolledUpEvents_keeps_events_still_queued_for_outages() {
+        JdbcOutageDao outageDao = new JdbcOutageDao(jdbcTemplate);
+        outageDao.refreshOutages();
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        Event lateEvent = eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "late"));
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+
+        LocalDateTime cutoff = LocalDateTime.parse("2000-03-01T00:00:00");
+        Assert.assertEquals("pruneRolledUpEvents() did not delete the events every job processed", 2, dao.pruneRolledUpEvents(cutoff));
+        Assert.assertNotNull("pruneRolledUpEvents() deleted an event the outage job had not processed", eventDao.getEventById(lateEvent.getEventId()));
+
+        Assert.assertEquals(1, outageDao.refreshOutages());
+        Assert.assertEquals("pruneRolledUpEvents() kept an event every job processed", 1, dao.pruneRolledUpEvents(cutoff));
+    }
+
+    @Test
+    public void rollUpNewEvents_picks_up_events_inserted_after_a_later_id() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        // an id handed out before the rollup, whose insert commits after a later id was already rolled up
+        int reservedId = eventDao.reserveEventIds(1).get(0);
+        eventDao.createEvent(new Event(0, LocalDateTime.parse("2000-04-04T05:00:00"), true, true, "newer id"));
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        Event slow = new Event(reservedId, LocalDateTime.parse("2000-01-15T00:00:00"), true, true, "older id");
+        eventDao.createEventsWithIds(List.of(slow));
+
+        Assert.assertEquals("pruneRolledUpEvents() deleted an event that was not rolled up yet",
+                1, dao.pruneRolledUpEvents(LocalDateTime.parse("2000-02-01T00:00:00")));
+        Assert.assertEquals("rollUpNewEvents() skipped the event with the older id", 1, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+        Assert.assertEquals(1, dao.getSummaries(SummaryResolution.MINUTE, LocalDateTime.parse("2000-01-15T00:00:00"),
+                LocalDateTime.parse("2000-01-16T00:00:00")).size());
+    }
+
+    @Test
+    public void rollUpNewEvents_keeps_summaries_of_pruned_events_when_old_events_are_imported() {
+        dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS);
+        dao.pruneRolledUpEvents(LocalDateTime.parse("2000-03-01T00:00:00"));
+
+        Event backfilled = new Event(0, LocalDateTime.parse("2000-01-01T01:00:30"), true, true, "backfilled");
+        Event older = new Event(0, LocalDateTime.parse("1999-12-31T23:00:00"), true, true, "older than everything");
+        new JdbcEventTransferDao(jdbcTemplate, null, null).importEvents(List.of(backfilled, older).iterator());
+        Assert.assertEquals(2, dao.rollUpNewEvents(MAX_SAMPLE_GAP_SECONDS));
+
+        LocalDateTime from = LocalDateTime.parse("1999-12-01T00:00:00");
+        List<EventSummary> minutes = dao.getSummaries(SummaryResolution.MINUTE, from, TO);
+        Assert.assertEquals("a bucket of pruned events was deleted", 5, minutes.size());
+        assertSummaryMatches("the imported sample was not added to the pruned sample's bucket",
+                new EventSummary(LocalDateTime.parse("2000-01-01T01:00:00"), 2, 1, 1, 1, 60), minutes.get(1));
+        assertSummaryMatches("pruned bucket", new EventSummary(LocalDateTime.parse("2000-02-02T02:00:00"), 1, 0, 0, 1, 60), minutes.get(2));
+        List<EventSummary> days = dao.getSummaries(SummaryResolution.DAY, from, TO);
+        Assert.assertEquals(5, days.size());
+        assertSummaryMatches("day of the imported sample", new EventSummary(LocalDateTime.parse("2000-01-01T00:00:00"), 2, 1, 1, 1, 60), days.get(1));
+        assertSummaryMatches("day of the pruned events", new EventSummary(LocalDateTime.parse("2000-02-02T00:00:00"), 1, 0, 0, 1, 60), days.get(2));
+    }
+
+    @Test
+    public void getAvailability_measures_each_bucket_from_outages() {
+        // hourly samples on Tuesday 2000-06-06 with the internet down from 01:00 to 03:00, then two on Thursday
+        eventDao.createMultipleEvents(new Event[]{
+                new Event(0, "attic", LocalDateTime.parse("2000-06-06T00:00:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-06T01:00:00"), true, false, "internet down"),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-06T02:00:00"), true, false, "internet down"),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-06T03:00:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-06T04:00:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-08T10:00:00"), true, true, null),
+                new Event(0, "attic", LocalDateTime.parse("2000-06-08T10:30:00"), true, true, null)
+        });
+        new JdbcOutageDao(jdbcTemplate, 3600).refreshOutages();
+        LocalDateTime monday = LocalDateTime.parse("2000-06-05T00:00:00");
+        LocalDateTime nextMonday = LocalDateTime.parse("2000-06-12T00:00:00");
+
+        for (String when : List.of("with the events stored", "after the events were pruned")) {
+            // each sample covers the hour until the next one, the last covers nothing and silent days are not observed
+            List<Availability> days = dao.getAvailability(SummaryResolution.DAY, OutageType.INTERNET, null, monday, nextMonday);
+            Assert.assertEquals("getAvailability() did not skip the days without samples " + when, 2, days.size());
+            assertAvailabilityMatches("day of the outage " + when,
+                    new Availability(LocalDateTime.parse("2000-06-06T00:00:00"), 18000, 7200, 60, 1, 10800.0, 7200.0), days.get(0));
+            assertAvailabilityMatches("day with two samples " + when,
+                    new Availability(LocalDateTime.parse("2000-06-08T00:00:00"), 1800, 0, 100, 0, null, null), days.get(1));
+
+            List<Availability> weeks = dao.getAvailability(SummaryResolution.WEEK, OutageType.INTERNET, "attic", monday, nextMonday);
+            Assert.assertEquals(1, weeks.size());
+            assertAvailabilityMatches("week only counts the time the monitor was reporting " + when,
+                    new Availability(monday, 19800, 7200, 100.0 * 12600 / 19800, 1, 12600.0, 7200.0), weeks.get(0));
+            jdbcTemplate.update("DELETE FROM events WHERE deviceId = 'attic';");
+        }
+
+        Assert.assertTrue("getAvailability() counted an ongoing outage after its monitor stopped reporting",
+                dao.getAvailability(SummaryResolution.WEEK, OutageType.WIFI, Event.DEFAULT_DEVICE_ID,
+                        LocalDateTime.parse("2000-04-03T00:00:00"), LocalDateTime.parse("2000-04-10T00:00:00")).isEmpty());
+        Assert.assertTrue("getAvailability() measured a monitor that never logged an event",
+                dao.getAvailability(SummaryResolution.DAY, OutageType.WIFI, "kitchen", FROM, TO).isEmpty());
+    }
+
+    @Test
+    public void getAvailability_clips_buckets_to_the_range_and_adds_up_devices() {
+        List<Event> events = new ArrayList<>();
+        for (int hour = 8; hour <= 18; hour++) {
+            LocalDateTime eventTime = LocalDateTime.of(2000, 1, 1, hour, 0);
+            events.add(new Event(0, "attic", eventTime, true, true, null));
+            boolean internet = hour != 11 && hour != 12;
+            events.add(new Event(0, "kitchen", eventTime, true, internet, internet ? null : "internet down"));
+        }
+        eventDao.createMultipleEvents(events.toArray(new Event[0]));
+        new JdbcOutageDao(jdbcTemplate, 3600).refreshOutages();
+
+        List<Availability> days = dao.getAvailability(SummaryResolution.DAY, OutageType.INTERNET, null,
+                LocalDateTime.parse("2000-01-01T10:00:00"), LocalDateTime.parse("2000-01-01T16:00:00"));
+        Assert.assertEquals(1, days.size());
+        assertAvailabilityMatches("a partial bucket only counts the requested hours of both monitors",
+                new Availability(LocalDateTime.parse("2000-01-01T00:00:00"), 2 * 21600, 7200, 100.0 * 36000 / 43200, 1, 36000.0, 7200.0), days.get(0));
+    }
+
+    private void assertAvailabilityMatches(String message, Availability expected, Availability actual) {
+        Assert.assertEquals(message + ": bucketStart does not match.", expected.getBucketStart(), actual.getBucketStart());
+        Assert.assertEquals(message + ": observedSeconds do not match.", expected.getObservedSeconds(), actual.getObservedSeconds(), 0.001);
+        Assert.assertEquals(message + ": downtimeSeconds do not match.", expected.getDowntimeSeconds(), actual.getDowntimeSeconds(), 0.001);
+        Assert.assertEquals(message + ": uptimePercent does not match.", expected.getUptimePercent(), actual.getUptimePercent(), 0.001);
+        Assert.assertEquals(message + ": outages do not match.", expected.getOutages(), actual.getOutages());
+        Assert.assertEquals(message + ": mtbfSeconds do not match.", expected.getMtbfSeconds(), actual.getMtbfSeconds());
+        Assert.assertEquals(message + ": mttrSeconds do not match.", expected.getMttrSeconds(), actual.getMttrSeconds());
+    }
+
+    private void assertSummaryMatches(String message, EventSummary expected, EventSummary actual) {
+        Assert.assertEquals(message + ": bucketStart does not match.", expected.getBucketStart(), actual.getBucketStart());
+        Assert.assertEquals(message + ": samples do not match.", expected.getSamples(), actual.getSamples());
+        Assert.assertEquals(message + ": connectedSamples do not match.", expected.getConnectedSamples(), actual.getConnectedSamples());
+        Assert.assertEquals(message + ": wifiDownSamples do not match.", expected.getWifiDownSamples(), actual.getWifiDownSamples());
+        Assert.assertEquals(message + ": internetDownSamples do not match.", expected.getInternetDownSamples(), actual.getInternetDownSamples());
+        Assert.assertEquals(message + ": downtimeSeconds do not match.", expected.getDowntimeSeconds(), actual.getDowntimeSeconds(), 0.001);
+    }
+}
@@ -0,0 +1,67 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MeteredEventDaoTests {
+    private static final Event EVENT = new Event(1, "kitchen", LocalDateTime.parse("2000-01-01T00:00:00"), true, true, "message");
+    private EventDao delegate;
+    private SimpleMeterRegistry registry;
+    private MeteredEventDao dao;
+
+    @Before
+    public void setup() {
+        delegate = mock(EventDao.class);
+        registry = new SimpleMeterRegistry();
+        dao = new MeteredEventDao(delegate, registry);
+    }
+
+    @Test
+    public void successful_calls_are_timed_by_method() {
+        when(delegate.getEventById(1)).thenReturn(EVENT);
+
+        Assert.assertSame(EVENT, dao.getEventById(1));
+        dao.getEventById(1);
+
+        Assert.assertEquals(2, registry.get("events.dao").tags("method", "getEventById", "outcome", "success").timer().count());
+    }
+
+    @Test
+    public void batches_record_their_size_and_the_rows_written() {
+        Event[] batch = new Event[]{EVENT, EVENT, EVENT};
+        when(delegate.createMultipleEvents(batch)).thenReturn(List.of(EVENT, EVENT));
+
+        dao.createMultipleEvents(batch);
+
+        Assert.assertEquals(1, registry.get("events.ingest.batch.size").summary().count());
+        Assert.assertEquals(3, registry.get("events.ingest.batch.size").summary().totalAmount(), 0);
+        Assert.assertEquals(2, registry.get("events.ingest.rows").tags("method", "createMultipleEvents").counter().count(), 0);
+        Assert.assertEquals(1, registry.get("events.ingest.duplicates").tags("method", "createMultipleEvents").counter().count(), 0);
+    }
+
+    @Test
+    public void failures_are_counted_by_the_database_error_behind_them() {
+        when(delegate.createEvent(any())).thenThrow(new DaoException("Unable to connect to database.",
+                new CannotGetJdbcConnectionException("pool exhausted")));
+
+        Assert.assertThrows(DaoException.class, () -> dao.createEvent(EVENT));
+
+        Assert.assertEquals(1, registry.get("events.dao.errors")
+                .tags("method", "createEvent", "exception", "CannotGetJdbcConnectionException").counter().count(), 0);
+        Assert.assertEquals(1, registry.get("events.dao")
+                .tags("method", "createEvent", "outcome", "error", "exception", "CannotGetJdbcConnectionException").timer().count());
+        Assert.assertNull("a failed write counted rows", registry.find("events.ingest.rows").counter());
+    }
+}
@@ -0,0 +1,168 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link JdbcEventDao} against the test database as the primary and a second database as its replica. The
+ * replica is not replicating, its copy of the test data has every message prefixed with "replica", so each read shows
+ * where it was served from. Set POSTGRES_REPLICA_HOST and POSTGRES_REPLICA_PORT to put the replica on a second
+ * PostgreSQL instance, by default it is a second database on the same one.
+ */
+public class ReadReplicaTests extends BaseDaoTests {
+    private static final String REPLICA_HOST = System.getenv().getOrDefault("POSTGRES_REPLICA_HOST", System.getenv("POSTGRES_HOST"));
+    private static final String REPLICA_PORT = System.getenv().getOrDefault("POSTGRES_REPLICA_PORT", System.getenv("POSTGRES_PORT"));
+    private static final String REPLICA_NAME = "NetworkConnectivityLogs-test-replica";
+    private static final Duration LONG_WINDOW = Duration.ofHours(1);
+    private static DriverManagerDataSource replicaDataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeClass
+    public static void createReplica() throws SQLException {
+        admin().update("DROP DATABASE IF EXISTS \"" + REPLICA_NAME + "\";");
+        admin().update("CREATE DATABASE \"" + REPLICA_NAME + "\";");
+        replicaDataSource = dataSource(String.format("jdbc:postgresql://%s:%s/%s", REPLICA_HOST, REPLICA_PORT, REPLICA_NAME));
+        try (Connection connection = replicaDataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("test-schema.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("test-data.sql"));
+        }
+        new JdbcTemplate(replicaDataSource).update("UPDATE events SET message = 'replica ' || message;");
+    }
+
+    @AfterClass
+    public static void dropReplica() {
+        admin().update("DROP DATABASE IF EXISTS \"" + REPLICA_NAME + "\";");
+    }
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void reads_are_served_by_the_replica() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        assertAllFrom("getAllEvents()", true, dao.getAllEvents());
+        List<Event> streamed = new ArrayList<>();
+        dao.streamAllEvents(streamed::add);
+        assertAllFrom("streamAllEvents()", true, streamed);
+        Assert.assertEquals("replica message 1", dao.getEventById(1).getMessage());
+    }
+
+    @Test
+    public void a_device_reads_its_new_events_from_the_primary() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        Event created = dao.createEvent(new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "logged"));
+
+        EventQuery attic = new EventQuery(EventQuery.Status.ANY, 10);
+        attic.setDeviceId("attic");
+        Assert.assertEquals("a device did not read its own new event", 1, dao.getEvents(attic).size());
+        Assert.assertEquals("a new event was not found by id", "logged", dao.getEventById(created.getEventId()).getMessage());
+        assertAllFrom("a read across devices", true, dao.getAllEvents());
+    }
+
+    @Test
+    public void reads_return_to_the_replica_after_the_window() throws InterruptedException {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, Duration.ofMillis(100)));
+        dao.createEvent(new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "logged"));
+        Thread.sleep(150);
+        EventQuery attic = new EventQuery(EventQuery.Status.ANY, 10);
+        attic.setDeviceId("attic");
+        Assert.assertTrue("the device's reads stayed on the primary", dao.getEvents(attic).isEmpty());
+    }
+
+    @Test
+    public void updates_and_deletes_keep_every_read_on_the_primary() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        Event updated = dao.updateEvent(new Event(1, LocalDateTime.parse("2000-01-01T01:00:00"), true, true, "updated"));
+        Assert.assertEquals("updateEvent() returned the replica's copy", "updated", updated.getMessage());
+        Assert.assertEquals("updated", dao.getEventById(1).getMessage());
+        assertAllFrom("a read after an update", false, dao.getAllEvents());
+
+        dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        dao.deleteEvent(2);
+        Assert.assertEquals("a read after a delete saw the deleted event", 3, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void consistent_reads_stay_on_the_primary_after_any_new_event() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        EventQuery consistent = new EventQuery(EventQuery.Status.ANY, 10);
+        consistent.setConsistent(true);
+        assertAllFrom("a consistent read before any write", true, dao.getEvents(consistent));
+
+        dao.createEvent(new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "logged"));
+        Assert.assertEquals("a consistent read missed a new event from another device", "logged", dao.getEvents(consistent).get(0).getMessage());
+        Assert.assertTrue("the device list missed a new device", dao.getDeviceIds().contains("attic"));
+    }
+
+    @Test
+    public void an_unfiltered_consistent_stream_reads_the_primary_after_a_new_event() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        dao.createEvent(new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "logged"));
+        EventQuery everything = new EventQuery(EventQuery.Status.ANY, 0);
+        everything.setConsistent(true);
+
+        List<Event> streamed = new ArrayList<>();
+        dao.streamEvents(everything, streamed::add);
+        Assert.assertEquals("the stream missed the new event", "logged", streamed.get(0).getMessage());
+        assertAllFrom("the rest of the stream", false, streamed.subList(1, streamed.size()));
+    }
+
+    @Test
+    public void the_cache_is_filled_from_the_primary_after_a_new_event() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(replicaDataSource, LONG_WINDOW));
+        dao.createEvent(new Event(0, "attic", LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "logged"));
+        CachingEventDao cache = new CachingEventDao(dao, 10);
+        cache.warmUp();
+
+        List<Event> cached = cache.getAllEventsLimited(10);
+        Assert.assertEquals("the read was not answered from the cache", 1, cache.getStats().getHits());
+        Assert.assertEquals("the cache was filled from the replica", "logged", cached.get(0).getMessage());
+        assertAllFrom("the cache", false, cached.subList(1, cached.size()));
+    }
+
+    @Test
+    public void reads_fall_back_to_the_primary_when_the_replica_is_down() {
+        JdbcEventDao dao = daoWithReplica(new ReadReplica(dataSource("jdbc:postgresql://localhost:1/" + REPLICA_NAME), LONG_WINDOW));
+        assertAllFrom("getAllEvents()", false, dao.getAllEvents());
+        List<Event> streamed = new ArrayList<>();
+        dao.streamAllEvents(streamed::add);
+        assertAllFrom("streamAllEvents()", false, streamed);
+    }
+
+    private JdbcEventDao daoWithReplica(ReadReplica readReplica) {
+        return new JdbcEventDao(jdbcTemplate, JdbcEventDao.DEFAULT_INSERT_CHUNK_SIZE, null, readReplica);
+    }
+
+    private void assertAllFrom(String read, boolean fromReplica, List<Event> events) {
+        Assert.assertEquals(read + " did not return every event", 4, events.size());
+        for (Event event : events) {
+            Assert.assertEquals(read + " was served by the wrong database", fromReplica, event.getMessage().startsWith("replica "));
+        }
+    }
+
+    private static JdbcTemplate admin() {
+        return new JdbcTemplate(dataSource(System.getenv("POSTGRES_JDBC_ADMIN_URL")));
+    }
+
+    private static DriverManagerDataSource dataSource(String url) {
+        return new DriverManagerDataSource(url, System.getenv("POSTGRES_USER"), System.getenv("POSTGRES_TOKEN"));
+    }
+}
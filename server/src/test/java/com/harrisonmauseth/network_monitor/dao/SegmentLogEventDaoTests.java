@@ -0,0 +1,159 @@
+package com.harrisonmauseth.network_monitor.dao;
+
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventCursor;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the shared {@link EventDaoTests} against a segment log in a temporary directory.
+ */
+public class SegmentLogEventDaoTests extends EventDaoTests {
+    private static final DataSize SMALL_SEGMENTS = DataSize.ofKilobytes(4);
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path directory;
+    private SegmentLogEventDao logDao;
+
+    @Override
+    protected EventDao createDao() throws IOException {
+        return createDao(DataSize.ofMegabytes(1));
+    }
+
+    private EventDao createDao(DataSize segmentSize) throws IOException {
+        directory = folder.newFolder().toPath();
+        logDao = new SegmentLogEventDao(directory, segmentSize, false);
+        logDao.createEventsWithIds(List.of(EVENT_1, EVENT_2, EVENT_3, EVENT_4));
+        return logDao;
+    }
+
+    @After
+    public void close() throws IOException {
+        logDao.close();
+    }
+
+    @Test
+    public void reopening_the_log_keeps_updates_deletes_and_ids() throws IOException {
+        Event updated = dao.updateEvent(new Event(1, "kitchen", LocalDateTime.parse("1999-01-01T01:00:00"), true, true, "updated event"));
+        dao.deleteEvent(EVENT_3.getEventId());
+        Event created = dao.createEvent(sequencedEvent("attic", 7, "2001-01-01T00:00:00"));
+        List<Integer> reserved = dao.reserveEventIds(2);
+        List<Event> before = dao.getAllEvents();
+
+        reopen(DataSize.ofMegabytes(1));
+
+        List<Event> after = dao.getAllEvents();
+        Assert.assertEquals("reopening the log lost or revived events", before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEventsMatch("reopening the log changed an event:", before.get(i), after.get(i));
+        }
+        assertEventsMatch("reopening the log lost an update:", updated, dao.getEventById(1));
+        Assert.assertNull("reopening the log revived a deleted event", dao.getEventById(EVENT_3.getEventId()));
+        Assert.assertEquals(List.of("attic", Event.DEFAULT_DEVICE_ID, "kitchen"), dao.getDeviceIds());
+        Assert.assertNull("a resent event was logged again after reopening", dao.createEvent(sequencedEvent("attic", 7, "2001-01-01T00:00:00")));
+        Assert.assertEquals(created.getEventId(), dao.getEventBySequence("attic", 7, LocalDateTime.parse("2001-01-01T00:00:00")).getEventId());
+        Assert.assertTrue("reopening the log reused a reserved id",
+                dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-02T00:00:00"), true, true, "new")).getEventId() > reserved.get(1));
+    }
+
+    @Test
+    public void events_are_read_in_order_across_segments() throws IOException {
+        logDao.close();
+        dao = createDao(SMALL_SEGMENTS);
+        Event[] eventsToCreate = new Event[300];
+        for (int i = 0; i < eventsToCreate.length; i++) {
+            // arrive slightly out of order, as flushes from different monitors do
+            LocalDateTime time = LocalDateTime.parse("2001-01-01T00:00:00").plusSeconds(30L * i + (i % 3 == 0 ? 45 : 0));
+            eventsToCreate[i] = new Event(0, "device-" + (i % 2), time, i % 5 != 0, i % 7 != 0, "event " + i);
+        }
+        dao.createMultipleEvents(eventsToCreate);
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertTrue("the log did not start new segments as they filled", files.count() > 1);
+        }
+
+        List<Event> all = dao.getAllEvents();
+        Assert.assertEquals(304, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            Event newer = all.get(i - 1);
+            Event older = all.get(i);
+            Assert.assertTrue("events were not read newest first",
+                    newer.getEventTime().isAfter(older.getEventTime())
+                            || (newer.getEventTime().equals(older.getEventTime()) && newer.getEventId() > older.getEventId()));
+        }
+
+        EventQuery query = new EventQuery(EventQuery.Status.DISCONNECTED, 7);
+        query.setDeviceId("device-1");
+        List<Event> paged = new ArrayList<>();
+        do {
+            events = dao.getEvents(query);
+            paged.addAll(events);
+            if (!events.isEmpty()) {
+                query.setAfter(EventCursor.after(events.get(events.size() - 1)));
+            }
+        } while (!events.isEmpty());
+        List<Event> expected = all.stream()
+                .filter(event -> event.getDeviceId().equals("device-1") && (!event.isConnectedToWifi() || !event.isConnectedToInternet()))
+                .toList();
+        Assert.assertEquals("paging through a device's failures skipped or repeated events", expected.size(), paged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEventsMatch("paging through a device's failures returned events out of order:", expected.get(i), paged.get(i));
+        }
+
+        reopen(SMALL_SEGMENTS);
+        Assert.assertEquals("reopening the log lost events from earlier segments", 304, dao.getAllEvents().size());
+    }
+
+    @Test
+    public void a_torn_append_is_dropped_when_the_log_is_reopened() throws IOException {
+        dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, true, "kept"));
+        dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:00:30"), true, true, "torn"));
+        logDao.close();
+        Path segment = directory.resolve("events-000000000000.log");
+        byte[] bytes = Files.readAllBytes(segment);
+        int torn = indexOf(bytes, "torn".getBytes(StandardCharsets.UTF_8));
+        bytes[torn] = 'T';
+        Files.write(segment, bytes);
+
+        reopen(DataSize.ofMegabytes(1));
+
+        events = dao.getAllEvents();
+        Assert.assertEquals("the torn event was not dropped, or events before it were", 5, events.size());
+        Assert.assertEquals("kept", events.get(0).getMessage());
+        Event created = dao.createEvent(new Event(0, LocalDateTime.parse("2001-01-01T00:01:00"), true, true, "after"));
+        reopen(DataSize.ofMegabytes(1));
+        assertEventsMatch("an event appended after a torn one was lost:", created, dao.getEventById(created.getEventId()));
+    }
+
+    private void reopen(DataSize segmentSize) throws IOException {
+        logDao.close();
+        logDao = new SegmentLogEventDao(directory, segmentSize, false);
+        dao = logDao;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] search) {
+        for (int i = bytes.length - search.length; i >= 0; i--) {
+            boolean found = true;
+            for (int j = 0; j < search.length && found; j++) {
+                found = bytes[i + j] == search[j];
+            }
+            if (found) {
+                return i;
+            }
+        }
+        throw new AssertionError("not found");
+    }
+}
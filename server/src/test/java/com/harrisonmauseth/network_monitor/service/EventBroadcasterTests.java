@@ -0,0 +1,179 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harrisonmauseth.network_monitor.exception.TooManySubscribersException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import com.harrisonmauseth.network_monitor.model.EventQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class EventBroadcasterTests {
+    private static final Event CONNECTED = new Event(1, LocalDateTime.parse("2000-01-01T01:00:00"), true, true, "connected");
+    private static final Event DISCONNECTED = new Event(2, LocalDateTime.parse("2000-01-01T02:00:00"), false, false, "disconnected");
+    private static final Event KITCHEN = new Event(3, "kitchen", LocalDateTime.parse("2000-01-01T03:00:00"), true, true, "kitchen");
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private EventBroadcaster broadcaster;
+
+    @Before
+    public void setup() {
+        broadcaster = new EventBroadcaster(mapper, 2, 10, Duration.ofMinutes(1), 1);
+    }
+
+    @After
+    public void teardown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void subscribe_rejects_subscribers_past_the_limit() {
+        broadcaster.subscribe(new EventQuery());
+        broadcaster.subscribe(new EventQuery(EventQuery.Status.DISCONNECTED, 0));
+        Assert.assertEquals(2, broadcaster.getSubscriberCount());
+
+        Assert.assertThrows(TooManySubscribersException.class, () -> broadcaster.subscribe(new EventQuery()));
+    }
+
+    @Test
+    public void shutdown_disconnects_every_subscriber() {
+        broadcaster.subscribe(new EventQuery());
+        broadcaster.subscribe(new EventQuery());
+
+        broadcaster.shutdown();
+        Assert.assertEquals("shutdown() left subscribers connected", 0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void onEventsChanged_sends_created_events_to_every_subscriber() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        broadcaster.subscribe(new EventQuery(), first);
+        broadcaster.subscribe(new EventQuery(), second);
+
+        broadcaster.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, List.of(CONNECTED, DISCONNECTED)));
+        broadcaster.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.UPDATED, List.of(KITCHEN)));
+
+        List<String> expected = List.of(message(CONNECTED), message(DISCONNECTED));
+        awaitMessages(first, 2);
+        awaitMessages(second, 2);
+        Assert.assertEquals("the first subscriber did not get every created event in order", expected, first.getMessages());
+        Assert.assertEquals("the second subscriber did not get every created event in order", expected, second.getMessages());
+    }
+
+    @Test
+    public void onEventsChanged_only_sends_events_matching_each_filter() throws Exception {
+        RecordingEmitter failures = new RecordingEmitter();
+        RecordingEmitter kitchen = new RecordingEmitter();
+        EventQuery kitchenFilter = new EventQuery();
+        kitchenFilter.setDeviceId("kitchen");
+        broadcaster.subscribe(new EventQuery(EventQuery.Status.DISCONNECTED, 0), failures);
+        broadcaster.subscribe(kitchenFilter, kitchen);
+
+        broadcaster.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, List.of(CONNECTED, DISCONNECTED, KITCHEN)));
+
+        awaitMessages(failures, 1);
+        awaitMessages(kitchen, 1);
+        Assert.assertEquals("the status filter was not applied", List.of(message(DISCONNECTED)), failures.getMessages());
+        Assert.assertEquals("the device filter was not applied", List.of(message(KITCHEN)), kitchen.getMessages());
+    }
+
+    @Test
+    public void onEventsChanged_disconnects_a_subscriber_that_falls_a_full_buffer_behind() throws Exception {
+        broadcaster.shutdown();
+        broadcaster = new EventBroadcaster(mapper, 2, 10, Duration.ofMinutes(1), 2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter();
+        broadcaster.subscribe(new EventQuery(), slow);
+        broadcaster.subscribe(new EventQuery(), fast);
+
+        // the first event holds the slow subscriber's send, so the next ten fill its buffer and the one after overflows
+        // it, while the fast subscriber keeps up with each of them
+        broadcaster.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, List.of(CONNECTED)));
+        Assert.assertTrue("the slow subscriber's send never started", slow.sending.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 11; i++) {
+            Event event = new Event(10 + i, LocalDateTime.parse("2000-01-02T00:00:00").plusMinutes(i), true, true, "backlog");
+            broadcaster.onEventsChanged(new EventsChangedEvent(this, EventsChangedEvent.Change.CREATED, List.of(event)));
+            awaitMessages(fast, i + 2);
+        }
+
+        Assert.assertEquals("the slow subscriber was not disconnected, or the fast one was", 1, broadcaster.getSubscriberCount());
+        release.countDown();
+        await("the slow subscriber's response was not completed", () -> slow.completed);
+        Assert.assertEquals("the slow subscriber was sent events after it was disconnected", 1, slow.getMessages().size());
+    }
+
+    private String message(Event event) throws IOException {
+        return "id:" + event.getEventId() + "\nevent:event\ndata:" + mapper.writeValueAsString(event) + "\n\n";
+    }
+
+    private static void awaitMessages(RecordingEmitter emitter, int count) throws InterruptedException {
+        await("a subscriber did not get " + count + " messages", () -> emitter.getMessages().size() >= count);
+    }
+
+    private static void await(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(message, condition.getAsBoolean());
+    }
+
+    /**
+     * Keeps what is sent instead of writing it to a response, optionally holding each send until released.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> messages = new ArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile boolean completed;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder message = new StringBuilder();
+            for (DataWithMediaType item : items) {
+                message.append(item.getData());
+            }
+            synchronized (messages) {
+                messages.add(message.toString());
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> getMessages() {
+            synchronized (messages) {
+                return new ArrayList<>(messages);
+            }
+        }
+    }
+}
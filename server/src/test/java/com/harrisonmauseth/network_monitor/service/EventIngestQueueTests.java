@@ -0,0 +1,175 @@
+package com.harrisonmauseth.network_monitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.harrisonmauseth.network_monitor.dao.EventDao;
+import com.harrisonmauseth.network_monitor.exception.DaoException;
+import com.harrisonmauseth.network_monitor.exception.IngestQueueFullException;
+import com.harrisonmauseth.network_monitor.model.Event;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventIngestQueueTests {
+    private static final int QUEUE_CAPACITY = 5;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private EventDao eventDao;
+    private ApplicationEventPublisher publisher;
+    private Path journalDirectory;
+    private EventIngestQueue queue;
+    private int nextId = 100;
+
+    @Before
+    public void setup() throws IOException {
+        eventDao = mock(EventDao.class);
+        publisher = mock(ApplicationEventPublisher.class);
+        journalDirectory = folder.newFolder("journal").toPath();
+        when(eventDao.reserveEventIds(anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            List<Integer> ids = IntStream.range(nextId, nextId + count).boxed().collect(Collectors.toList());
+            nextId += count;
+            return ids;
+        });
+        when(eventDao.createEventsWithIds(anyList())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Event>>getArgument(0)));
+        queue = newQueue();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.shutdown();
+    }
+
+    @Test
+    public void accept_assigns_ids_and_times_without_writing() {
+        List<Event> accepted = queue.accept(List.of(newEvent("first"), new Event(0, null, true, true, "no time")));
+
+        Assert.assertEquals("accept() did not assign the first reserved id", 100, accepted.get(0).getEventId());
+        Assert.assertEquals("accept() did not assign ids in order", 101, accepted.get(1).getEventId());
+        Assert.assertNotNull("accept() did not fill in a missing event time", accepted.get(1).getEventTime());
+        Assert.assertEquals("accepted events are not waiting to be written", 2, queue.getBacklog());
+        verify(eventDao, never()).createEventsWithIds(anyList());
+    }
+
+    @Test
+    public void flush_writes_queued_events_and_clears_journal() throws IOException {
+        queue.accept(List.of(newEvent("first")));
+        queue.accept(List.of(newEvent("second"), newEvent("third")));
+
+        queue.flush();
+
+        ArgumentCaptor<List<Event>> written = captureWrites(1);
+        Assert.assertEquals("flush() did not write every queued event in one batch", 3, written.getValue().size());
+        Assert.assertEquals("flushed events are still waiting to be written", 0, queue.getBacklog());
+        Assert.assertEquals("flushed segment was left in the journal", 0, countJournalEvents());
+        verify(publisher).publishEvent(any(EventsChangedEvent.class));
+    }
+
+    @Test
+    public void accept_rejects_events_when_queue_is_full() {
+        queue.accept(List.of(newEvent("1"), newEvent("2"), newEvent("3"), newEvent("4")));
+        try {
+            queue.accept(List.of(newEvent("5"), newEvent("6")));
+            Assert.fail("accept() took more events than the queue can hold");
+        } catch (IngestQueueFullException e) {
+            // expected
+        }
+
+        queue.flush();
+        Assert.assertEquals("accept() did not have room again after a flush", 2, queue.accept(List.of(newEvent("5"), newEvent("6"))).size());
+    }
+
+    @Test
+    public void failed_flush_keeps_events_and_retries() {
+        when(eventDao.createEventsWithIds(anyList())).thenThrow(new DaoException("Unable to connect to database."));
+        queue.accept(List.of(newEvent("first")));
+
+        queue.flush();
+        Assert.assertEquals("failed flush dropped events", 1, queue.getBacklog());
+
+        doAnswer(invocation -> new ArrayList<>(invocation.<List<Event>>getArgument(0))).when(eventDao).createEventsWithIds(anyList());
+        queue.accept(List.of(newEvent("second")));
+        queue.flush();
+
+        ArgumentCaptor<List<Event>> written = captureWrites(3);
+        Assert.assertEquals("retried batch was not written before newer events", "first", written.getAllValues().get(1).get(0).getMessage());
+        Assert.assertEquals("newer events were not written after the retry", "second", written.getAllValues().get(2).get(0).getMessage());
+        Assert.assertEquals(0, queue.getBacklog());
+    }
+
+    @Test
+    public void unwritten_events_are_recovered_from_journal_after_restart() throws Exception {
+        queue.accept(List.of(newEvent("first"), newEvent("second")));
+        // simulate a crash: the journal is left behind without the queue being flushed
+        Path leftover = folder.newFolder("crashed").toPath();
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, leftover.resolve(file.getFileName()));
+            }
+        }
+        Files.writeString(leftover.resolve("segment-000000000099.jsonl"), "{\"eventId\":7,\"eventTi");
+
+        journalDirectory = leftover;
+        EventIngestQueue restarted = newQueue();
+        Assert.assertEquals("restart did not recover the journaled events", 2, restarted.getBacklog());
+        restarted.flush();
+
+        ArgumentCaptor<List<Event>> written = captureWrites(1);
+        Assert.assertEquals("recovered events lost their ids", 100, written.getValue().get(0).getEventId());
+        Assert.assertEquals("recovered events lost their messages", "second", written.getValue().get(1).getMessage());
+        restarted.shutdown();
+    }
+
+    private EventIngestQueue newQueue() throws IOException {
+        return new EventIngestQueue(eventDao, publisher, mapper, journalDirectory, false, QUEUE_CAPACITY, 100, 10, Duration.ofSeconds(1));
+    }
+
+    private ArgumentCaptor<List<Event>> captureWrites(int expectedWrites) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Event>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventDao, times(expectedWrites)).createEventsWithIds(captor.capture());
+        return captor;
+    }
+
+    private long countJournalEvents() throws IOException {
+        long lines = 0;
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                lines += Files.readAllLines(file).size();
+            }
+        }
+        return lines;
+    }
+
+    private Event newEvent(String message) {
+        return new Event(0, LocalDateTime.parse("2001-01-01T00:00:00"), true, false, message);
+    }
+}